@@ -21,14 +21,19 @@ import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.DoubleNode;
 import com.fasterxml.jackson.databind.node.NullNode;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
 import java.io.StringWriter;
 import java.util.ArrayList;
@@ -48,6 +53,7 @@ import java.util.Objects;
 import java.util.Set;
 import org.apache.avro.util.internal.Accessor;
 import org.apache.avro.util.internal.Accessor.FieldAccessor;
+import org.apache.avro.util.internal.Accessor.UnionSchemaAccessor;
 import org.apache.avro.util.internal.JacksonUtils;
 
 /**
@@ -171,6 +177,15 @@ public abstract class Schema extends JsonProperties implements Serializable {
 
   int hashCode = NO_HASHCODE;
 
+  // The parsing canonical form and fingerprints, memoized by SchemaNormalization.
+  // They only depend on names, types, symbols, sizes and fields, none of which
+  // change once set, and are only computed once a schema's fields are all set.
+  transient volatile String parsingForm;
+  transient volatile long parsingFingerprint64;
+  transient volatile boolean hasParsingFingerprint64;
+  transient volatile byte[] md5Fingerprint;
+  transient volatile byte[] sha256Fingerprint;
+
   @Override
   public void addProp(String name, String value) {
     super.addProp(name, value);
@@ -1172,8 +1187,27 @@ public abstract class Schema extends JsonProperties implements Serializable {
   }
 
   private static class UnionSchema extends Schema {
+
+    static {
+      Accessor.setAccessor(new UnionSchemaAccessor() {
+        @Override
+        protected Object getBranchCache(Schema union) {
+          return union instanceof UnionSchema ? ((UnionSchema) union).branchCache : null;
+        }
+
+        @Override
+        protected void setBranchCache(Schema union, Object cache) {
+          if (union instanceof UnionSchema) {
+            ((UnionSchema) union).branchCache = cache;
+          }
+        }
+      });
+    }
+
     private final List<Schema> types;
     private final Map<String, Integer> indexByName;
+    // the branches chosen by GenericData.resolveUnion; not part of the schema
+    private volatile Object branchCache;
 
     public UnionSchema(LockableArrayList<Schema> types) {
       super(Type.UNION);
@@ -1339,6 +1373,7 @@ public abstract class Schema extends JsonProperties implements Serializable {
     private Names names = new Names();
     private boolean validate = true;
     private boolean validateDefaults = true;
+    private boolean interning = false;
 
     /**
      * Adds the provided types to the set of defined, named types known to this
@@ -1380,12 +1415,27 @@ public abstract class Schema extends JsonProperties implements Serializable {
       return this.validateDefaults;
     }
 
+    /**
+     * Enable or disable interning of parsed schemas with {@link SchemaInterner}.
+     * When enabled, a parsed schema whose definition was seen before is returned
+     * as the instance parsed first, and so are the named types it defines.
+     */
+    public Parser setInterning(boolean interning) {
+      this.interning = interning;
+      return this;
+    }
+
+    /** True iff parsed schemas are interned. False by default. */
+    public boolean getInterning() {
+      return this.interning;
+    }
+
     /**
      * Parse a schema from the provided file. If named, the schema is added to the
      * names known to this parser.
      */
     public Schema parse(File file) throws IOException {
-      return parse(FACTORY.createParser(file));
+      return parse(() -> FACTORY.createParser(file));
     }
 
     /**
@@ -1393,7 +1443,8 @@ public abstract class Schema extends JsonProperties implements Serializable {
      * names known to this parser. The input stream stays open after the parsing.
      */
     public Schema parse(InputStream in) throws IOException {
-      return parse(FACTORY.createParser(in).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+      RecordingInputStream recording = new RecordingInputStream(in);
+      return parse(() -> FACTORY.createParser(recording.replay()).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
     }
 
     /** Read a schema from one or more json strings */
@@ -1410,27 +1461,172 @@ public abstract class Schema extends JsonProperties implements Serializable {
      */
     public Schema parse(String s) {
       try {
-        return parse(FACTORY.createParser(s));
+        return parse(() -> FACTORY.createParser(s));
       } catch (IOException e) {
         throw new SchemaParseException(e);
       }
     }
 
-    private Schema parse(JsonParser parser) throws IOException {
+    /** Opens the JSON to parse; called again if it must be parsed twice. */
+    private interface JsonSource {
+      JsonParser open() throws IOException;
+    }
+
+    /**
+     * Keeps the bytes read from a stream, so that they can be read again, without
+     * reading the stream further than a parser would.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+      private final ByteArrayOutputStream read = new ByteArrayOutputStream();
+      private boolean replayed = false;
+
+      RecordingInputStream(InputStream in) {
+        super(in);
+      }
+
+      /** Returns this stream the first time, then the bytes read followed by the rest. */
+      InputStream replay() {
+        if (!replayed) {
+          replayed = true;
+          return this;
+        }
+        return new SequenceInputStream(new ByteArrayInputStream(read.toByteArray()), in);
+      }
+
+      @Override
+      public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+          read.write(b);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+          read.write(b, off, n);
+        }
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        byte[] skipped = new byte[(int) Math.min(n, 8192)];
+        long remaining = n;
+        while (remaining > 0) {
+          int count = read(skipped, 0, (int) Math.min(remaining, skipped.length));
+          if (count < 0) {
+            break;
+          }
+          remaining -= count;
+        }
+        return n - remaining;
+      }
+
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+    }
+
+    /**
+     * Parses the JSON straight from its tokens. Should that fail, which it does
+     * for schemas whose keys come in an unusual order as well as for invalid
+     * ones, the JSON is parsed again into a tree, so that schemas are accepted
+     * and rejected exactly as with the tree parser alone.
+     */
+    private Schema parse(JsonSource source) throws IOException {
       boolean saved = validateNames.get();
       boolean savedValidateDefaults = VALIDATE_DEFAULTS.get();
+      int known = names.size();
+      String space = names.space();
       try {
         validateNames.set(validate);
         VALIDATE_DEFAULTS.set(validateDefaults);
-        return Schema.parse(MAPPER.readTree(parser), names);
+        Schema result;
+        try (JsonParser parser = source.open()) {
+          parser.nextToken();
+          result = Schema.parse(parser, names);
+        } catch (RuntimeException | IOException e) {
+          forgetNamesAfter(known);
+          names.space(space);
+          try (JsonParser parser = source.open()) {
+            JsonNode tree = MAPPER.readTree(parser);
+            result = Schema.parse(tree, names);
+          }
+        }
+        return interning ? intern(result, known) : result;
       } catch (JsonParseException e) {
         throw new SchemaParseException(e);
       } finally {
-        parser.close();
         validateNames.set(saved);
         VALIDATE_DEFAULTS.set(savedValidateDefaults);
       }
     }
+
+    /** Removes the names defined after the first {@code known} ones. */
+    private void forgetNamesAfter(int known) {
+      Iterator<Schema> i = names.values().iterator();
+      for (int n = 0; i.hasNext(); n++) {
+        i.next();
+        if (n >= known) {
+          i.remove();
+        }
+      }
+    }
+
+    /**
+     * Interns a parsed schema. The types it newly defined, i.e. the names after
+     * the first {@code known} ones, are then replaced in the known names by the
+     * interned schema's, so that later schemas refer to those.
+     */
+    private Schema intern(Schema schema, int known) {
+      Schema interned = SchemaInterner.intern(schema);
+      if (interned != schema) {
+        Map<Name, Schema> defined = new HashMap<>();
+        collectNamedTypes(interned, defined);
+        Iterator<Map.Entry<Name, Schema>> i = names.entrySet().iterator();
+        for (int n = 0; i.hasNext(); n++) {
+          Map.Entry<Name, Schema> entry = i.next();
+          Schema replacement = defined.get(entry.getKey());
+          if (replacement != null && n >= known) {
+            entry.setValue(replacement);
+          }
+        }
+      }
+      return interned;
+    }
+
+    private static void collectNamedTypes(Schema schema, Map<Name, Schema> defined) {
+      switch (schema.getType()) {
+      case RECORD:
+        if (defined.putIfAbsent(((NamedSchema) schema).name, schema) == null) {
+          for (Field field : schema.getFields()) {
+            collectNamedTypes(field.schema(), defined);
+          }
+        }
+        break;
+      case ENUM:
+      case FIXED:
+        defined.putIfAbsent(((NamedSchema) schema).name, schema);
+        break;
+      case ARRAY:
+        collectNamedTypes(schema.getElementType(), defined);
+        break;
+      case MAP:
+        collectNamedTypes(schema.getValueType(), defined);
+        break;
+      case UNION:
+        for (Schema type : schema.getTypes()) {
+          collectNamedTypes(type, defined);
+        }
+        break;
+      default:
+        break;
+      }
+    }
   }
 
   /**
@@ -1755,6 +1951,311 @@ public abstract class Schema extends JsonProperties implements Serializable {
     }
   }
 
+  // bits of the reserved keys seen in a schema object, to detect repeated keys
+  private static final int TYPE_KEY = 1, NAME_KEY = 1 << 1, NAMESPACE_KEY = 1 << 2, DOC_KEY = 1 << 3,
+      FIELDS_KEY = 1 << 4, ITEMS_KEY = 1 << 5, VALUES_KEY = 1 << 6, SYMBOLS_KEY = 1 << 7, SIZE_KEY = 1 << 8,
+      ALIASES_KEY = 1 << 9, ORDER_KEY = 1 << 10, DEFAULT_KEY = 1 << 11;
+
+  /**
+   * Parses a schema from JSON tokens, starting at the parser's current token,
+   * without building a tree of the JSON first. Only properties and defaults,
+   * which schemas keep as JSON, are read into trees.
+   * <p>
+   * A value that depends on keys of its object which have not been read yet,
+   * such as the fields of a record before its name, cannot be parsed from a
+   * stream. This throws a {@link SchemaParseException} then, as it does for
+   * invalid schemas, and the caller parses the JSON as a tree with
+   * {@link #parse(JsonNode, Names)} instead, which also reports errors.
+   */
+  static Schema parse(JsonParser parser, Names names) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING) { // name
+      Schema result = names.get(parser.getText());
+      if (result == null)
+        throw new SchemaParseException("Undefined name: " + parser.getText());
+      return result;
+    } else if (token == JsonToken.START_OBJECT) {
+      return parseObject(parser, names);
+    } else if (token == JsonToken.START_ARRAY) { // union
+      LockableArrayList<Schema> types = new LockableArrayList<>();
+      while (parser.nextToken() != JsonToken.END_ARRAY)
+        types.add(parse(parser, names));
+      return new UnionSchema(types);
+    } else {
+      throw new SchemaParseException("Schema not yet supported: " + token);
+    }
+  }
+
+  private static Schema parseObject(JsonParser parser, Names names) throws IOException {
+    String savedSpace = names.space();
+    String type = null;
+    String name = null;
+    String space = null;
+    String doc = null;
+    Schema record = null;
+    Schema items = null;
+    Schema values = null;
+    LockableArrayList<String> symbols = null;
+    int size = -1;
+    Set<String> aliases = null;
+    Map<String, JsonNode> props = new LinkedHashMap<>();
+    int seen = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      int bit = schemaKey(key);
+      if ((seen & bit) != 0)
+        throw new SchemaParseException("Repeated key: " + key);
+      seen |= bit;
+      switch (key) {
+      case "type":
+        if (token != JsonToken.VALUE_STRING)
+          throw new SchemaParseException("No type");
+        type = parser.getText();
+        break;
+      case "name":
+      case "namespace":
+        if (record != null)
+          throw new SchemaParseException("Record name after fields");
+        if (key.equals("name"))
+          name = textOrNull(parser);
+        else
+          space = textOrNull(parser);
+        break;
+      case "doc":
+        if (record != null)
+          throw new SchemaParseException("Record doc after fields");
+        doc = textOrNull(parser);
+        break;
+      case "fields":
+        if (type == null)
+          throw new SchemaParseException("Fields before type");
+        if (!type.equals("record") && !type.equals("error")) {
+          parser.skipChildren();
+          break;
+        }
+        if (name == null)
+          throw new SchemaParseException("Fields before name");
+        if (token != JsonToken.START_ARRAY)
+          throw new SchemaParseException("Record has no fields");
+        Name recordName = new Name(name, space != null ? space : savedSpace);
+        record = new RecordSchema(recordName, doc, type.equals("error"));
+        names.add(record);
+        names.space(recordName.space); // set default namespace
+        List<Field> fields = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY)
+          fields.add(parseField(parser, names));
+        record.setFields(fields);
+        break;
+      case "items":
+      case "values":
+        if (type == null)
+          throw new SchemaParseException(key + " before type");
+        if (key.equals("items") && type.equals("array"))
+          items = parse(parser, names);
+        else if (key.equals("values") && type.equals("map"))
+          values = parse(parser, names);
+        else
+          parser.skipChildren();
+        break;
+      case "symbols":
+        if (token != JsonToken.START_ARRAY)
+          throw new SchemaParseException("Enum has no symbols");
+        symbols = new LockableArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          if (parser.currentToken() != JsonToken.VALUE_STRING)
+            throw new SchemaParseException("Enum symbol not a string");
+          symbols.add(parser.getText());
+        }
+        break;
+      case "size":
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT)
+          size = parser.getIntValue();
+        else
+          parser.skipChildren();
+        break;
+      case "aliases":
+        aliases = parseAliases(parser);
+        break;
+      default: // "default" is reserved for enums only
+        props.put(key, MAPPER.readTree(parser));
+      }
+    }
+    if (type == null)
+      throw new SchemaParseException("No type");
+
+    Schema result;
+    Name schemaName = null;
+    if (type.equals("enum") || type.equals("fixed")) {
+      if (name == null)
+        throw new SchemaParseException("No name in schema");
+      schemaName = new Name(name, space != null ? space : savedSpace);
+    }
+    if (PRIMITIVES.containsKey(type)) { // primitive
+      result = create(PRIMITIVES.get(type));
+    } else if (type.equals("record") || type.equals("error")) { // record
+      if (record == null)
+        throw new SchemaParseException("Record has no fields");
+      result = record;
+    } else if (type.equals("enum")) { // enum
+      if (symbols == null)
+        throw new SchemaParseException("Enum has no symbols");
+      JsonNode enumDefault = props.remove("default");
+      result = new EnumSchema(schemaName, doc, symbols, enumDefault != null ? enumDefault.textValue() : null);
+      names.add(result);
+    } else if (type.equals("array")) { // array
+      if (items == null)
+        throw new SchemaParseException("Array has no items type");
+      result = new ArraySchema(items);
+    } else if (type.equals("map")) { // map
+      if (values == null)
+        throw new SchemaParseException("Map has no values type");
+      result = new MapSchema(values);
+    } else if (type.equals("fixed")) { // fixed
+      if (size < 0)
+        throw new SchemaParseException("Invalid or no size");
+      result = new FixedSchema(schemaName, doc, size);
+      names.add(result);
+    } else { // for unions with self reference
+      result = names.get(new Name(type, savedSpace));
+      if (result == null)
+        throw new SchemaParseException("Type not supported: " + type);
+      return result;
+    }
+    for (Map.Entry<String, JsonNode> prop : props.entrySet()) // add properties
+      result.addProp(prop.getKey(), prop.getValue());
+    // parse logical type if present
+    result.logicalType = LogicalTypes.fromSchemaIgnoreInvalid(result);
+    names.space(savedSpace); // restore space
+    if (result instanceof NamedSchema && aliases != null) // add aliases
+      for (String alias : aliases)
+        result.addAlias(alias);
+    return result;
+  }
+
+  private static Field parseField(JsonParser parser, Names names) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT)
+      throw new SchemaParseException("Field not an object");
+    String fieldName = null;
+    String fieldDoc = null;
+    Schema fieldSchema = null;
+    Field.Order order = Field.Order.ASCENDING;
+    JsonNode defaultValue = null;
+    Set<String> aliases = null;
+    Map<String, JsonNode> props = new LinkedHashMap<>();
+    int seen = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      int bit = fieldKey(key);
+      if ((seen & bit) != 0)
+        throw new SchemaParseException("Repeated key: " + key);
+      seen |= bit;
+      switch (key) {
+      case "name":
+        fieldName = textOrNull(parser);
+        break;
+      case "doc":
+        fieldDoc = textOrNull(parser);
+        break;
+      case "type":
+        fieldSchema = parse(parser, names);
+        break;
+      case "order":
+        if (token != JsonToken.VALUE_STRING)
+          throw new SchemaParseException("Field order not a string");
+        order = Field.Order.valueOf(parser.getText().toUpperCase(Locale.ENGLISH));
+        break;
+      case "default":
+        defaultValue = MAPPER.readTree(parser);
+        break;
+      case "aliases":
+        aliases = parseAliases(parser);
+        break;
+      default:
+        props.put(key, MAPPER.readTree(parser));
+      }
+    }
+    if (fieldName == null)
+      throw new SchemaParseException("No field name");
+    if (fieldSchema == null)
+      throw new SchemaParseException("No field type");
+    if (defaultValue != null && (Type.FLOAT.equals(fieldSchema.getType()) || Type.DOUBLE.equals(fieldSchema.getType()))
+        && defaultValue.isTextual())
+      defaultValue = new DoubleNode(Double.valueOf(defaultValue.textValue()));
+    Field f = new Field(fieldName, fieldSchema, fieldDoc, defaultValue, true, order);
+    for (Map.Entry<String, JsonNode> prop : props.entrySet()) // add field props
+      f.addProp(prop.getKey(), prop.getValue());
+    f.aliases = aliases;
+    return f;
+  }
+
+  private static int schemaKey(String key) {
+    switch (key) {
+    case "type":
+      return TYPE_KEY;
+    case "name":
+      return NAME_KEY;
+    case "namespace":
+      return NAMESPACE_KEY;
+    case "doc":
+      return DOC_KEY;
+    case "fields":
+      return FIELDS_KEY;
+    case "items":
+      return ITEMS_KEY;
+    case "values":
+      return VALUES_KEY;
+    case "symbols":
+      return SYMBOLS_KEY;
+    case "size":
+      return SIZE_KEY;
+    case "aliases":
+      return ALIASES_KEY;
+    default:
+      return 0;
+    }
+  }
+
+  private static int fieldKey(String key) {
+    switch (key) {
+    case "name":
+      return NAME_KEY;
+    case "doc":
+      return DOC_KEY;
+    case "type":
+      return TYPE_KEY;
+    case "order":
+      return ORDER_KEY;
+    case "default":
+      return DEFAULT_KEY;
+    case "aliases":
+      return ALIASES_KEY;
+    default:
+      return 0;
+    }
+  }
+
+  /** Reads a string, or null for any other value as JsonNode.textValue() does. */
+  private static String textOrNull(JsonParser parser) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_STRING)
+      return parser.getText();
+    parser.skipChildren();
+    return null;
+  }
+
+  private static Set<String> parseAliases(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY)
+      throw new SchemaParseException("aliases not an array");
+    Set<String> aliases = new LinkedHashSet<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.currentToken() != JsonToken.VALUE_STRING)
+        throw new SchemaParseException("alias not a string");
+      aliases.add(parser.getText());
+    }
+    return aliases;
+  }
+
   static Set<String> parseAliases(JsonNode node) {
     JsonNode aliasesNode = node.get("aliases");
     if (aliasesNode == null)
@@ -23,6 +23,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -30,6 +33,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import org.apache.avro.Schema.Field;
 import org.apache.avro.Schema.Type;
+import org.apache.avro.util.WeakIdentityHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,9 +62,13 @@ public class SchemaCompatibility {
    * @return a result object identifying any compatibility errors.
    */
   public static SchemaPairCompatibility checkReaderWriterCompatibility(final Schema reader, final Schema writer) {
-    final SchemaCompatibilityResult compatibility = new ReaderWriterCompatibilityChecker().getCompatibility(reader,
+    final SchemaCompatibilityResult compatibility = new ReaderWriterCompatibilityChecker(null).getCompatibility(reader,
         writer);
+    return toPairCompatibility(compatibility, reader, writer);
+  }
 
+  private static SchemaPairCompatibility toPairCompatibility(final SchemaCompatibilityResult compatibility,
+      final Schema reader, final Schema writer) {
     final String message;
     switch (compatibility.getCompatibility()) {
     case INCOMPATIBLE: {
@@ -80,6 +88,205 @@ public class SchemaCompatibility {
     return new SchemaPairCompatibility(compatibility, reader, writer, message);
   }
 
+  /**
+   * Checks the compatibility of many reader/writer schema pairs, such as a new
+   * schema against every earlier version of it, and remembers across checks
+   * which pairs of sub-schemas were found compatible, so that they are not
+   * compared again.
+   *
+   * <p>
+   * Pairs of sub-schemas are looked up by 64-bit fingerprints of the schemas,
+   * computed once per schema from those of its parts, and confirmed by schema
+   * equality, so that equal schemas parsed separately share results. Unlike
+   * the parsing canonical form, the fingerprints cover the aliases, defaults and
+   * properties that compatibility depends on; aliases, which schema equality
+   * leaves out, are only told apart by them. Incompatible results are not
+   * shared, as they report locations relative to the schemas checked. A checker may be used by
+   * several threads, and the schemas checked must not change while it is in
+   * use.
+   * </p>
+   */
+  public static final class Checker {
+    private static final int DEFAULT_MAX_PAIRS = 100_000;
+    // 64-bit FNV-1a parameters
+    private static final long FINGERPRINT_SEED = 0xcbf29ce484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+
+    private final Map<Schema, Long> mFingerprints = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+    private final Map<SchemaPair, Boolean> mCompatiblePairs;
+
+    /** Creates a checker remembering up to 100,000 compatible pairs. */
+    public Checker() {
+      this(DEFAULT_MAX_PAIRS);
+    }
+
+    /**
+     * Creates a checker remembering up to the given number of compatible pairs,
+     * the least recently used being forgotten first.
+     */
+    public Checker(final int maxPairs) {
+      if (maxPairs < 0) {
+        throw new IllegalArgumentException("Invalid maximum number of pairs: " + maxPairs);
+      }
+      mCompatiblePairs = Collections.synchronizedMap(new LinkedHashMap<SchemaPair, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SchemaPair, Boolean> eldest) {
+          return size() > maxPairs;
+        }
+      });
+    }
+
+    /**
+     * Validates that the provided reader schema can be used to decode avro data
+     * written with the provided writer schema.
+     *
+     * @see SchemaCompatibility#checkReaderWriterCompatibility(Schema, Schema)
+     */
+    public SchemaPairCompatibility checkReaderWriterCompatibility(final Schema reader, final Schema writer) {
+      final SchemaCompatibilityResult compatibility = new ReaderWriterCompatibilityChecker(this)
+          .getCompatibility(reader, writer);
+      return toPairCompatibility(compatibility, reader, writer);
+    }
+
+    /**
+     * Validates that the provided reader schema can be used to decode avro data
+     * written with each of the writer schemas.
+     *
+     * @return the results, in the order of the writer schemas.
+     */
+    public List<SchemaPairCompatibility> checkReaderCompatibility(final Schema reader,
+        final Iterable<Schema> writers) {
+      final List<SchemaPairCompatibility> results = new ArrayList<>();
+      for (Schema writer : writers) {
+        results.add(checkReaderWriterCompatibility(reader, writer));
+      }
+      return results;
+    }
+
+    /**
+     * Validates that each of the reader schemas can be used to decode avro data
+     * written with the provided writer schema.
+     *
+     * @return the results, in the order of the reader schemas.
+     */
+    public List<SchemaPairCompatibility> checkWriterCompatibility(final Schema writer,
+        final Iterable<Schema> readers) {
+      final List<SchemaPairCompatibility> results = new ArrayList<>();
+      for (Schema reader : readers) {
+        results.add(checkReaderWriterCompatibility(reader, writer));
+      }
+      return results;
+    }
+
+    private SchemaPair pair(final Schema reader, final Schema writer) {
+      return new SchemaPair(reader, writer, fingerprint(reader), fingerprint(writer));
+    }
+
+    private long fingerprint(final Schema schema) {
+      Long fingerprint = mFingerprints.get(schema);
+      return fingerprint != null ? fingerprint : fingerprint(schema, new IdentityHashMap<>());
+    }
+
+    /**
+     * Fingerprints a schema from the fingerprints of its parts, remembering each
+     * of them, so that a schema graph is only walked once. A schema reached again
+     * while its own fingerprint is in progress stands for its name.
+     */
+    private long fingerprint(final Schema schema, final Map<Schema, Schema> inProgress) {
+      final Long known = mFingerprints.get(schema);
+      if (known != null) {
+        return known;
+      }
+      if (inProgress.containsKey(schema)) {
+        return mix(FINGERPRINT_SEED, schema.getFullName().hashCode());
+      }
+      inProgress.put(schema, schema);
+      // logical types are properties too
+      long fingerprint = mix(mix(FINGERPRINT_SEED, schema.getType().ordinal()), schema.propsHashCode());
+      switch (schema.getType()) {
+      case RECORD:
+        fingerprint = mix(mix(fingerprint, schema.getFullName().hashCode()), schema.getAliases().hashCode());
+        for (Field field : schema.getFields()) {
+          fingerprint = mix(mix(fingerprint, field.name().hashCode()), field.aliases().hashCode());
+          fingerprint = mix(mix(fingerprint, Objects.hashCode(field.defaultValue())), field.order().ordinal());
+          fingerprint = mix(mix(fingerprint, field.propsHashCode()), fingerprint(field.schema(), inProgress));
+        }
+        break;
+      case ENUM:
+        fingerprint = mix(mix(fingerprint, schema.getFullName().hashCode()), schema.getAliases().hashCode());
+        fingerprint = mix(mix(fingerprint, schema.getEnumSymbols().hashCode()),
+            Objects.hashCode(schema.getEnumDefault()));
+        break;
+      case FIXED:
+        fingerprint = mix(mix(fingerprint, schema.getFullName().hashCode()), schema.getAliases().hashCode());
+        fingerprint = mix(fingerprint, schema.getFixedSize());
+        break;
+      case ARRAY:
+        fingerprint = mix(fingerprint, fingerprint(schema.getElementType(), inProgress));
+        break;
+      case MAP:
+        fingerprint = mix(fingerprint, fingerprint(schema.getValueType(), inProgress));
+        break;
+      case UNION:
+        for (Schema branch : schema.getTypes()) {
+          fingerprint = mix(fingerprint, fingerprint(branch, inProgress));
+        }
+        break;
+      default:
+        break;
+      }
+      inProgress.remove(schema);
+      mFingerprints.put(schema, fingerprint);
+      return fingerprint;
+    }
+
+    private static long mix(final long fingerprint, final long value) {
+      return (fingerprint ^ value) * FINGERPRINT_PRIME;
+    }
+
+    boolean isKnownCompatible(final Schema reader, final Schema writer) {
+      return mCompatiblePairs.get(pair(reader, writer)) != null;
+    }
+
+    void addCompatible(final Schema reader, final Schema writer) {
+      mCompatiblePairs.put(pair(reader, writer), Boolean.TRUE);
+    }
+  }
+
+  /**
+   * A reader/writer schema pair, hashed by the fingerprints of its schemas and
+   * confirmed by their equality.
+   */
+  private static final class SchemaPair {
+    private final Schema mReader;
+    private final Schema mWriter;
+    private final long mReaderFingerprint;
+    private final long mWriterFingerprint;
+
+    SchemaPair(final Schema reader, final Schema writer, final long readerFingerprint,
+        final long writerFingerprint) {
+      mReader = reader;
+      mWriter = writer;
+      mReaderFingerprint = readerFingerprint;
+      mWriterFingerprint = writerFingerprint;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(mReaderFingerprint * 31 + mWriterFingerprint);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SchemaPair)) {
+        return false;
+      }
+      final SchemaPair that = (SchemaPair) obj;
+      return mReaderFingerprint == that.mReaderFingerprint && mWriterFingerprint == that.mWriterFingerprint
+          && mReader.equals(that.mReader) && mWriter.equals(that.mWriter);
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
 
   /**
@@ -194,6 +401,25 @@ public class SchemaCompatibility {
     private static final String ROOT_REFERENCE_TOKEN = "";
     private final Map<ReaderWriter, SchemaCompatibilityResult> mMemoizeMap = new HashMap<>();
 
+    /**
+     * Checker sharing compatible pairs across checks, or null. Pairs found
+     * compatible only by assuming that a pair still in progress is compatible are
+     * not shared: the assumption may yet fail. To tell them apart, the pairs in
+     * progress are numbered by their depth, and each check tracks the lowest depth
+     * of a pair in progress that its result depends on.
+     */
+    private final Checker mShared;
+    private final Map<ReaderWriter, Integer> mDepths = new HashMap<>();
+    private final Map<ReaderWriter, Integer> mDependencies = new HashMap<>();
+    private final Set<ReaderWriter> mAssumed = new HashSet<>();
+    private int mDepth = 0;
+    private int mLowestDependency = Integer.MAX_VALUE;
+    private boolean mAssumptionFailed = false;
+
+    ReaderWriterCompatibilityChecker(final Checker shared) {
+      mShared = shared;
+    }
+
     /**
      * Reports the compatibility of a reader/writer schema pair.
      *
@@ -235,7 +461,18 @@ public class SchemaCompatibility {
           // Break the recursion here.
           // schemas are compatible unless proven incompatible:
           result = SchemaCompatibilityResult.compatible();
+          if (mShared != null) {
+            dependOn(mDepths.get(pair));
+            mAssumed.add(pair);
+          }
+        } else if (mShared != null) {
+          dependOn(mDependencies.get(pair));
         }
+      } else if (mShared != null && mShared.isKnownCompatible(reader, writer)) {
+        result = SchemaCompatibilityResult.compatible();
+        mMemoizeMap.put(pair, result);
+      } else if (mShared != null) {
+        result = calculateSharedCompatibility(pair, reader, writer, location);
       } else {
         // Mark this reader/writer pair as "in progress":
         mMemoizeMap.put(pair, SchemaCompatibilityResult.recursionInProgress());
@@ -246,6 +483,44 @@ public class SchemaCompatibility {
       return result;
     }
 
+    /**
+     * Calculates the compatibility of a pair, sharing it with {@link #mShared} if
+     * it is compatible without assuming any pair in progress but itself is.
+     */
+    private SchemaCompatibilityResult calculateSharedCompatibility(final ReaderWriter pair, final Schema reader,
+        final Schema writer, final Deque<String> location) {
+      final int depth = mDepth++;
+      final int outerDependency = mLowestDependency;
+      mLowestDependency = Integer.MAX_VALUE;
+      mDepths.put(pair, depth);
+      // Mark this reader/writer pair as "in progress":
+      mMemoizeMap.put(pair, SchemaCompatibilityResult.recursionInProgress());
+      final SchemaCompatibilityResult result = calculateCompatibility(reader, writer, location);
+      mMemoizeMap.put(pair, result);
+      mDepths.remove(pair);
+      mDepth--;
+
+      final int dependency = mLowestDependency;
+      final boolean compatible = result.getCompatibility() == SchemaCompatibilityType.COMPATIBLE;
+      if (dependency < depth) {
+        mDependencies.put(pair, dependency);
+      } else if (compatible && !mAssumptionFailed) {
+        mShared.addCompatible(reader, writer);
+      }
+      if (!compatible && mAssumed.contains(pair)) {
+        // results which assumed this pair compatible are not to be shared
+        mAssumptionFailed = true;
+      }
+      mLowestDependency = Math.min(outerDependency, dependency);
+      return result;
+    }
+
+    private void dependOn(final Integer depth) {
+      if (depth != null) {
+        mLowestDependency = Math.min(mLowestDependency, depth);
+      }
+    }
+
     /**
      * Calculates the compatibility of a reader/writer schema pair.
      *
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool of canonical {@link Schema} instances. Interning a schema returns the
+ * pooled instance with the same definition, so that the same schema parsed
+ * many times, e.g. once per message header or handshake, is held in memory
+ * once and hits caches keyed by schema identity.
+ * <p>
+ * Schemas are looked up by the 64-bit fingerprint of their parsing canonical
+ * form. As that form leaves out docs, aliases, defaults, logical types and
+ * other properties, a pooled schema is only returned when its full JSON form
+ * is the same too. The pool holds its schemas weakly: a schema no longer used
+ * elsewhere is dropped from it.
+ * <p>
+ * Interned schemas are shared, so they must not be changed, e.g. by adding
+ * properties, once interned.
+ */
+public final class SchemaInterner {
+
+  private static final Map<Long, List<Entry>> POOL = new HashMap<>();
+  private static final ReferenceQueue<Schema> QUEUE = new ReferenceQueue<>();
+
+  private SchemaInterner() {
+  }
+
+  /**
+   * Returns the pooled schema with the same definition as a schema, adding the
+   * schema to the pool if there is none.
+   */
+  public static Schema intern(Schema schema) {
+    Long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+    List<Entry> candidates = new ArrayList<>(1);
+    synchronized (POOL) {
+      expungeStaleEntries();
+      List<Entry> entries = POOL.get(fingerprint);
+      if (entries != null) {
+        for (Entry entry : entries) {
+          if (entry.get() == schema) {
+            return schema;
+          }
+          candidates.add(entry);
+        }
+      }
+    }
+
+    // print and compare outside of the lock, as large schemas take a while
+    String json = schema.toString();
+    for (Entry entry : candidates) {
+      Schema pooled = entry.get();
+      if (pooled != null && entry.json.equals(json) && pooled.equals(schema)) {
+        return pooled;
+      }
+    }
+
+    synchronized (POOL) {
+      POOL.computeIfAbsent(fingerprint, k -> new ArrayList<>(1)).add(new Entry(fingerprint, json, schema, QUEUE));
+    }
+    return schema;
+  }
+
+  private static void expungeStaleEntries() {
+    for (Object ref; (ref = QUEUE.poll()) != null;) {
+      Entry stale = (Entry) ref;
+      List<Entry> entries = POOL.get(stale.fingerprint);
+      if (entries != null) {
+        entries.remove(stale);
+        if (entries.isEmpty()) {
+          POOL.remove(stale.fingerprint);
+        }
+      }
+    }
+  }
+
+  private static final class Entry extends WeakReference<Schema> {
+    private final Long fingerprint;
+    // the full JSON form of the pooled schema, printed once when it was added
+    private final String json;
+
+    Entry(Long fingerprint, String json, Schema schema, ReferenceQueue<Schema> queue) {
+      super(schema, queue);
+      this.fingerprint = fingerprint;
+      this.json = json;
+    }
+  }
+}
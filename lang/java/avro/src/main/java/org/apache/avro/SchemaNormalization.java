@@ -20,7 +20,6 @@ package org.apache.avro;
 import java.util.Map;
 import java.util.HashMap;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -28,6 +27,10 @@ import java.security.NoSuchAlgorithmException;
  * Collection of static methods for generating the canonical form of schemas
  * (see {@link #toParsingForm}) -- and fingerprints of canonical forms
  * ({@link #fingerprint}).
+ * <p>
+ * The canonical form of a schema and its 64-bit, MD5 and SHA-256 fingerprints
+ * are computed once and kept with the schema. Fingerprints are computed from
+ * the canonical form as it is generated, without building it as a string.
  */
 public class SchemaNormalization {
 
@@ -38,13 +41,12 @@ public class SchemaNormalization {
    * Returns "Parsing Canonical Form" of a schema as defined by Avro spec.
    */
   public static String toParsingForm(Schema s) {
-    try {
-      Map<String, String> env = new HashMap<>();
-      return build(env, s, new StringBuilder()).toString();
-    } catch (IOException e) {
-      // Shouldn't happen, b/c StringBuilder can't throw IOException
-      throw new RuntimeException(e);
+    String form = s.parsingForm;
+    if (form == null) {
+      form = build(s, new StringBuilder()).toString();
+      s.parsingForm = form;
     }
+    return form;
   }
 
   /**
@@ -63,19 +65,23 @@ public class SchemaNormalization {
    */
   public static byte[] fingerprint(String fpName, byte[] data) throws NoSuchAlgorithmException {
     if (fpName.equals("CRC-64-AVRO")) {
-      long fp = fingerprint64(data);
-      byte[] result = new byte[8];
-      for (int i = 0; i < 8; i++) {
-        result[i] = (byte) fp;
-        fp >>= 8;
-      }
-      return result;
+      return toBytes(fingerprint64(data));
     }
 
     MessageDigest md = MessageDigest.getInstance(fpName);
     return md.digest(data);
   }
 
+  /** Returns a 64-bit fingerprint in little-endian format. */
+  private static byte[] toBytes(long fp) {
+    byte[] result = new byte[8];
+    for (int i = 0; i < 8; i++) {
+      result[i] = (byte) fp;
+      fp >>= 8;
+    }
+    return result;
+  }
+
   /**
    * Returns the 64-bit Rabin Fingerprint (as recommended in the Avro spec) of a
    * byte string.
@@ -92,7 +98,28 @@ public class SchemaNormalization {
    * supplied schema.
    */
   public static byte[] parsingFingerprint(String fpName, Schema s) throws NoSuchAlgorithmException {
-    return fingerprint(fpName, toParsingForm(s).getBytes(StandardCharsets.UTF_8));
+    byte[] fp;
+    switch (fpName) {
+    case "CRC-64-AVRO":
+      return toBytes(parsingFingerprint64(s));
+    case "MD5":
+      fp = s.md5Fingerprint;
+      if (fp == null) {
+        fp = digest(fpName, s);
+        s.md5Fingerprint = fp;
+      }
+      break;
+    case "SHA-256":
+      fp = s.sha256Fingerprint;
+      if (fp == null) {
+        fp = digest(fpName, s);
+        s.sha256Fingerprint = fp;
+      }
+      break;
+    default:
+      return digest(fpName, s);
+    }
+    return fp.clone();
   }
 
   /**
@@ -100,7 +127,29 @@ public class SchemaNormalization {
    * supplied schema.
    */
   public static long parsingFingerprint64(Schema s) {
-    return fingerprint64(toParsingForm(s).getBytes(StandardCharsets.UTF_8));
+    if (!s.hasParsingFingerprint64) {
+      Fingerprint64 fp = new Fingerprint64();
+      build(s, fp).finish();
+      s.parsingFingerprint64 = fp.value;
+      s.hasParsingFingerprint64 = true;
+    }
+    return s.parsingFingerprint64;
+  }
+
+  private static byte[] digest(String fpName, Schema s) throws NoSuchAlgorithmException {
+    Digest digest = new Digest(MessageDigest.getInstance(fpName));
+    build(s, digest).finish();
+    return digest.digest();
+  }
+
+  private static <A extends Appendable> A build(Schema s, A o) {
+    try {
+      build(new HashMap<>(), s, o);
+      return o;
+    } catch (IOException e) {
+      // Shouldn't happen, b/c none of the appendables used can throw IOException
+      throw new RuntimeException(e);
+    }
   }
 
   private static Appendable build(Map<String, String> env, Schema s, Appendable o) throws IOException {
@@ -168,6 +217,104 @@ public class SchemaNormalization {
     }
   }
 
+  /**
+   * Receives the UTF-8 encoding of the characters appended to it, as
+   * {@link String#getBytes} would produce it.
+   */
+  private abstract static class Utf8Sink implements Appendable {
+    private char highSurrogate = 0;
+
+    abstract void write(int b);
+
+    @Override
+    public Appendable append(CharSequence csq) {
+      return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+      for (int i = start; i < end; i++) {
+        append(csq.charAt(i));
+      }
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+      if (highSurrogate != 0) {
+        char high = highSurrogate;
+        highSurrogate = 0;
+        if (Character.isLowSurrogate(c)) {
+          int cp = Character.toCodePoint(high, c);
+          write(0xf0 | (cp >> 18));
+          write(0x80 | ((cp >> 12) & 0x3f));
+          write(0x80 | ((cp >> 6) & 0x3f));
+          write(0x80 | (cp & 0x3f));
+          return this;
+        }
+        write('?'); // unpaired surrogate
+      }
+      if (c < 0x80) {
+        write(c);
+      } else if (c < 0x800) {
+        write(0xc0 | (c >> 6));
+        write(0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c)) {
+        highSurrogate = c;
+      } else if (Character.isLowSurrogate(c)) {
+        write('?'); // unpaired surrogate
+      } else {
+        write(0xe0 | (c >> 12));
+        write(0x80 | ((c >> 6) & 0x3f));
+        write(0x80 | (c & 0x3f));
+      }
+      return this;
+    }
+
+    /** Called once all characters are appended. */
+    void finish() {
+      if (highSurrogate != 0) {
+        highSurrogate = 0;
+        write('?'); // unpaired surrogate
+      }
+    }
+  }
+
+  /** Computes {@link #fingerprint64} of the characters' UTF-8 encoding. */
+  private static class Fingerprint64 extends Utf8Sink {
+    long value = EMPTY64;
+
+    @Override
+    void write(int b) {
+      value = (value >>> 8) ^ FP64.FP_TABLE[(int) (value ^ b) & 0xff];
+    }
+  }
+
+  /** Computes a message digest of the characters' UTF-8 encoding. */
+  private static class Digest extends Utf8Sink {
+    private final MessageDigest md;
+    private final byte[] buffer = new byte[256];
+    private int count = 0;
+
+    Digest(MessageDigest md) {
+      this.md = md;
+    }
+
+    @Override
+    void write(int b) {
+      if (count == buffer.length) {
+        md.update(buffer, 0, count);
+        count = 0;
+      }
+      buffer[count++] = (byte) b;
+    }
+
+    byte[] digest() {
+      md.update(buffer, 0, count);
+      return md.digest();
+    }
+  }
+
   final static long EMPTY64 = 0xc15d213aa4d7a795L;
 
   /* An inner class ensures that FP_TABLE initialized only when needed. */
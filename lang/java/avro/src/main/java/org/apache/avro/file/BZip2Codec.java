@@ -18,7 +18,6 @@
 package org.apache.avro.file;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
@@ -31,7 +30,7 @@ public class BZip2Codec extends Codec {
   public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
   private final byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
 
-  private ByteArrayOutputStream outputBuffer;
+  private NonCopyingByteArrayOutputStream outputBuffer;
 
   static class Option extends CodecFactory {
     @Override
@@ -47,28 +46,48 @@ public class BZip2Codec extends Codec {
 
   @Override
   public ByteBuffer compress(ByteBuffer uncompressedData) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(uncompressedData.remaining());
+    return ByteBuffer.wrap(compressToBuffer(uncompressedData).toByteArray());
+  }
+
+  @Override
+  public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
+    return ByteBuffer.wrap(decompressToBuffer(compressedData).toByteArray());
+  }
+
+  @Override
+  protected ByteBuffer compressReusing(ByteBuffer uncompressedData) throws IOException {
+    return compressToBuffer(uncompressedData).getByteArrayAsByteBuffer();
+  }
+
+  @Override
+  protected ByteBuffer decompressReusing(ByteBuffer compressedData) throws IOException {
+    return decompressToBuffer(compressedData).getByteArrayAsByteBuffer();
+  }
+
+  private NonCopyingByteArrayOutputStream compressToBuffer(ByteBuffer uncompressedData) throws IOException {
+    uncompressedData = toHeapBuffer(uncompressedData);
+    NonCopyingByteArrayOutputStream baos = getOutputBuffer(uncompressedData.remaining());
 
     try (BZip2CompressorOutputStream outputStream = new BZip2CompressorOutputStream(baos)) {
       outputStream.write(uncompressedData.array(), computeOffset(uncompressedData), uncompressedData.remaining());
     }
 
-    return ByteBuffer.wrap(baos.toByteArray());
+    return baos;
   }
 
-  @Override
-  public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
+  private NonCopyingByteArrayOutputStream decompressToBuffer(ByteBuffer compressedData) throws IOException {
+    compressedData = toHeapBuffer(compressedData);
     ByteArrayInputStream bais = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
         compressedData.remaining());
     try (BZip2CompressorInputStream inputStream = new BZip2CompressorInputStream(bais)) {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      NonCopyingByteArrayOutputStream baos = getOutputBuffer(compressedData.remaining());
 
       int readCount = -1;
-      while ((readCount = inputStream.read(buffer, compressedData.position(), buffer.length)) > 0) {
+      while ((readCount = inputStream.read(buffer, 0, buffer.length)) > 0) {
         baos.write(buffer, 0, readCount);
       }
 
-      return ByteBuffer.wrap(baos.toByteArray());
+      return baos;
     }
   }
 
@@ -85,9 +104,9 @@ public class BZip2Codec extends Codec {
   }
 
   // get and initialize the output buffer for use.
-  private ByteArrayOutputStream getOutputBuffer(int suggestedLength) {
+  private NonCopyingByteArrayOutputStream getOutputBuffer(int suggestedLength) {
     if (null == outputBuffer) {
-      outputBuffer = new ByteArrayOutputStream(suggestedLength);
+      outputBuffer = new NonCopyingByteArrayOutputStream(suggestedLength);
     }
     outputBuffer.reset();
     return outputBuffer;
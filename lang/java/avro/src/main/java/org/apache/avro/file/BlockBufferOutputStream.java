@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * The buffer that {@link DataFileWriter} fills with the current block, held
+ * either on the heap or in a direct buffer outside it. The contents may be
+ * read without copying.
+ */
+class BlockBufferOutputStream extends OutputStream {
+  private final boolean direct;
+  private ByteBuffer buf;
+
+  BlockBufferOutputStream(int initialSize, boolean direct) {
+    this.direct = direct;
+    this.buf = allocate(initialSize);
+  }
+
+  private ByteBuffer allocate(int size) {
+    return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+  }
+
+  private void ensureCapacity(int length) {
+    if (buf.remaining() < length) {
+      long needed = (long) buf.position() + length;
+      if (needed > Integer.MAX_VALUE - 8) {
+        throw new OutOfMemoryError("Block too large");
+      }
+      ByteBuffer grown = allocate((int) Math.min(Math.max(needed, buf.capacity() * 2L), Integer.MAX_VALUE - 8));
+      ((Buffer) buf).flip();
+      grown.put(buf);
+      buf = grown;
+    }
+  }
+
+  @Override
+  public void write(int b) {
+    ensureCapacity(1);
+    buf.put((byte) b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    ensureCapacity(len);
+    buf.put(b, off, len);
+  }
+
+  /** Write the remaining bytes of a buffer, leaving its position unchanged. */
+  void write(ByteBuffer b) {
+    ensureCapacity(b.remaining());
+    buf.put(b.duplicate());
+  }
+
+  /** The number of bytes written. */
+  int size() {
+    return buf.position();
+  }
+
+  /** Discard all bytes written. */
+  void reset() {
+    ((Buffer) buf).clear();
+  }
+
+  /** Discard the bytes written after the first <code>size</code>. */
+  void truncate(int size) {
+    ((Buffer) buf).position(size);
+  }
+
+  /**
+   * The bytes written, which are only valid until the stream is next written to
+   * or reset.
+   */
+  ByteBuffer getByteBuffer() {
+    ByteBuffer contents = buf.duplicate();
+    ((Buffer) contents).flip();
+    return contents;
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.util.ArrayDeque;
+
+/**
+ * A bounded pool of byte arrays used as block buffers. Arrays released while
+ * the pool is full are left to the garbage collector. Not thread safe.
+ */
+final class BlockBufferPool {
+  private final ArrayDeque<byte[]> free = new ArrayDeque<>();
+  private final int capacity;
+
+  BlockBufferPool(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /** Return an array of at least the given length. */
+  byte[] acquire(int minLength) {
+    byte[] buffer = free.poll();
+    return buffer != null && buffer.length >= minLength ? buffer : new byte[minLength];
+  }
+
+  /** Return an array to the pool. */
+  void release(byte[] buffer) {
+    if (buffer != null && free.size() < capacity) {
+      free.add(buffer);
+    }
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * An index of the blocks of a data file: the position, entry count and first
+ * entry number of each block and, optionally, the minimum and maximum value of
+ * a key field in each block. It is written by {@link DataFileWriter} when
+ * enabled with {@link DataFileWriter#setBlockIndex(File, String)} and lets
+ * {@link DataFileReader#seekToRecord(long)} jump to the block holding an entry
+ * without decoding the blocks before it.
+ *
+ * The index is stored in a sidecar data file, next to the data file by
+ * convention (see {@link #sidecarFor(File)}), so that data files remain
+ * readable by any implementation.
+ */
+public class BlockIndex {
+  static final String KEY_META = "index.key";
+  static final String SYNC_META = "index.sync";
+
+  /** The index entry for one block. */
+  public static final class Entry {
+    private final long offset;
+    private final long count;
+    private final long firstRecord;
+    private final Object min;
+    private final Object max;
+
+    Entry(long offset, long count, long firstRecord, Object min, Object max) {
+      this.offset = offset;
+      this.count = count;
+      this.firstRecord = firstRecord;
+      this.min = min;
+      this.max = max;
+    }
+
+    /**
+     * The position of the block, which may be passed to
+     * {@link DataFileReader#seek(long)}.
+     */
+    public long getOffset() {
+      return offset;
+    }
+
+    /** The number of entries in the block. */
+    public long getCount() {
+      return count;
+    }
+
+    /** The number, within the file, of the first entry in the block. */
+    public long getFirstRecord() {
+      return firstRecord;
+    }
+
+    /** The smallest non-null key in the block, or null if unknown. */
+    public Object getMin() {
+      return min;
+    }
+
+    /** The largest non-null key in the block, or null if unknown. */
+    public Object getMax() {
+      return max;
+    }
+  }
+
+  /**
+   * Return the conventional location of the index of a data file: the same
+   * path with an <code>.idx</code> suffix.
+   */
+  public static File sidecarFor(File dataFile) {
+    return new File(dataFile.getPath() + ".idx");
+  }
+
+  private final List<Entry> entries = new ArrayList<>();
+  private final byte[] sync;
+  private final String keyField;
+  private final Schema keySchema;
+  private final GenericData data;
+  private long recordCount;
+
+  // min/max of blocks that have been filled but not yet written
+  private ArrayDeque<Object[]> pendingKeys;
+  private Object min;
+  private Object max;
+  private boolean keysUnknown;
+
+  BlockIndex(byte[] sync, String keyField, Schema keySchema, GenericData data) {
+    this.sync = sync;
+    this.keyField = keyField;
+    this.keySchema = keySchema;
+    this.data = data;
+  }
+
+  /** The name of the key field, or null if keys are not indexed. */
+  public String getKeyField() {
+    return keyField;
+  }
+
+  /** The schema of the key field, or null if keys are not indexed. */
+  public Schema getKeySchema() {
+    return keySchema;
+  }
+
+  /** The entries of the index, in file order. */
+  public List<Entry> getEntries() {
+    return Collections.unmodifiableList(entries);
+  }
+
+  /** The total number of entries in the indexed blocks. */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Return the block holding an entry.
+   *
+   * @param record the number of the entry within the file, starting at 0
+   * @return the index entry of the block, or null if the file holds fewer entries
+   */
+  public Entry findBlock(long record) {
+    if (record < 0 || record >= recordCount) {
+      return null;
+    }
+    int low = 0;
+    int high = entries.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (entries.get(mid).firstRecord <= record) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return entries.get(low);
+  }
+
+  /**
+   * Return the blocks that may hold keys in a range. Blocks without key
+   * statistics are always returned. Keys are compared, and must be given, in
+   * the representation of the data model the index was written or read with.
+   *
+   * @param from the smallest key, inclusive, or null for no lower bound
+   * @param to   the largest key, inclusive, or null for no upper bound
+   */
+  public List<Entry> findBlocks(Object from, Object to) {
+    if (keySchema == null) {
+      throw new AvroRuntimeException("Index has no key field");
+    }
+    List<Entry> result = new ArrayList<>();
+    for (Entry e : entries) {
+      if (e.min != null && to != null && data.compare(to, e.min, keySchema) < 0) {
+        continue;
+      }
+      if (e.max != null && from != null && data.compare(from, e.max, keySchema) > 0) {
+        continue;
+      }
+      result.add(e);
+    }
+    return result;
+  }
+
+  /** Check that this index was written for a data file. */
+  void checkSync(byte[] fileSync) throws IOException {
+    if (!Arrays.equals(sync, fileSync)) {
+      throw new IOException("Block index does not belong to this file");
+    }
+  }
+
+  /** Track the key of an entry appended to the current block. */
+  void recordKey(Object key) {
+    if (key == null || keysUnknown) {
+      return;
+    }
+    if (min == null || data.compare(key, min, keySchema) < 0) {
+      min = data.deepCopy(keySchema, key);
+    }
+    if (max == null || data.compare(key, max, keySchema) > 0) {
+      max = data.deepCopy(keySchema, key);
+    }
+  }
+
+  /**
+   * The current block holds entries whose keys were not recorded, so it must not
+   * be pruned.
+   */
+  void keysUnknown() {
+    keysUnknown = true;
+  }
+
+  /** The current block is complete; it may be written later. */
+  void blockFilled() {
+    if (pendingKeys == null) {
+      pendingKeys = new ArrayDeque<>();
+    }
+    if (keysUnknown) {
+      pendingKeys.add(new Object[2]);
+    } else {
+      pendingKeys.add(new Object[] { min, max });
+    }
+    min = null;
+    max = null;
+    keysUnknown = false;
+  }
+
+  /** The oldest filled block has been written at a position. */
+  void blockWritten(long offset, long count) {
+    Object[] keys = pendingKeys.poll();
+    entries.add(new Entry(offset, count, recordCount, keys[0], keys[1]));
+    recordCount += count;
+  }
+
+  /**
+   * Write this index as a sidecar data file. Keys are written with the data
+   * model of the indexed file, so that logical type conversions apply to them.
+   */
+  public void write(File file) throws IOException {
+    Schema schema = entrySchema(keySchema);
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema, data))) {
+      writer.setMeta(SYNC_META, sync);
+      if (keyField != null) {
+        writer.setMeta(KEY_META, keyField);
+      }
+      writer.create(schema, file);
+      for (Entry e : entries) {
+        GenericRecord r = new GenericData.Record(schema);
+        r.put("offset", e.offset);
+        r.put("count", e.count);
+        if (keySchema != null) {
+          r.put("min", e.min);
+          r.put("max", e.max);
+        }
+        writer.append(r);
+      }
+    }
+  }
+
+  /** Read an index written by {@link #write(File)}. */
+  public static BlockIndex read(File file) throws IOException {
+    return read(file, GenericData.get());
+  }
+
+  /**
+   * Read an index written by {@link #write(File)}, with a data model whose
+   * logical type conversions are applied to the keys.
+   */
+  public static BlockIndex read(File file, GenericData data) throws IOException {
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file,
+        new GenericDatumReader<>(null, null, data))) {
+      Schema keySchema = null;
+      Schema.Field minField = reader.getSchema().getField("min");
+      if (minField != null) {
+        keySchema = minField.schema().getTypes().get(1);
+      }
+      BlockIndex index = new BlockIndex(reader.getMeta(SYNC_META), reader.getMetaString(KEY_META), keySchema,
+          data);
+      for (GenericRecord r : reader) {
+        long count = (Long) r.get("count");
+        Object min = keySchema == null ? null : r.get("min");
+        Object max = keySchema == null ? null : r.get("max");
+        index.entries.add(new Entry((Long) r.get("offset"), count, index.recordCount, min, max));
+        index.recordCount += count;
+      }
+      return index;
+    }
+  }
+
+  private static Schema entrySchema(Schema keySchema) {
+    SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("BlockIndexEntry")
+        .namespace("org.apache.avro.file").fields().requiredLong("offset").requiredLong("count");
+    if (keySchema != null) {
+      Schema nullableKey = Schema.createUnion(Schema.create(Schema.Type.NULL), keySchema);
+      fields = fields.name("min").type(nullableKey).withDefault(null).name("max").type(nullableKey).withDefault(null);
+    }
+    return fields.endRecord();
+  }
+}
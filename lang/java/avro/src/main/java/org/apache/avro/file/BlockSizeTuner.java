@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+/**
+ * Chooses the synchronization interval of a {@link DataFileWriter} from the
+ * blocks written so far, so that blocks approach a target compressed size, a
+ * target time to fill and compress, or both, whichever gives smaller blocks.
+ * Observations are smoothed with an exponential moving average so that a single
+ * unusual block does not swing the interval.
+ */
+final class BlockSizeTuner {
+  private static final double WEIGHT = 0.25;
+  static final int MIN_INTERVAL = 32;
+  static final int MAX_INTERVAL = 1 << 30;
+
+  private final int targetCompressedSize;
+  private final long targetNanos;
+  private int interval;
+
+  // compressed bytes per uncompressed byte, or 0 until known
+  private double ratio;
+  // uncompressed bytes per nanosecond, or 0 until known
+  private double throughput;
+
+  /**
+   * @param initialInterval      the interval to use until blocks are observed
+   * @param targetCompressedSize the compressed block size to aim for, or 0
+   * @param targetNanos          the time to fill and compress a block to aim
+   *                             for, or 0
+   */
+  BlockSizeTuner(int initialInterval, int targetCompressedSize, long targetNanos) {
+    this.interval = initialInterval;
+    this.targetCompressedSize = targetCompressedSize;
+    this.targetNanos = targetNanos;
+  }
+
+  /** The number of uncompressed bytes after which to end a block. */
+  int getInterval() {
+    return interval;
+  }
+
+  /** A block of a given size was compressed to another. */
+  void blockCompressed(int uncompressedSize, int compressedSize) {
+    if (targetCompressedSize <= 0 || uncompressedSize <= 0) {
+      return;
+    }
+    ratio = smooth(ratio, (double) compressedSize / uncompressedSize);
+    update();
+  }
+
+  /** A block of a given size took some time to fill and hand off. */
+  void blockFilled(int uncompressedSize, long nanos) {
+    if (targetNanos <= 0 || uncompressedSize <= 0) {
+      return;
+    }
+    throughput = smooth(throughput, (double) uncompressedSize / Math.max(nanos, 1));
+    update();
+  }
+
+  private static double smooth(double average, double sample) {
+    return average == 0 ? sample : average + WEIGHT * (sample - average);
+  }
+
+  private void update() {
+    double next = Double.MAX_VALUE;
+    if (ratio > 0) {
+      next = targetCompressedSize / ratio;
+    }
+    if (throughput > 0) {
+      next = Math.min(next, throughput * targetNanos);
+    }
+    if (next != Double.MAX_VALUE) {
+      interval = (int) Math.max(MIN_INTERVAL, Math.min(MAX_INTERVAL, next));
+    }
+  }
+}
@@ -17,7 +17,9 @@
  */
 package org.apache.avro.file;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 
 /**
@@ -25,8 +27,13 @@ import java.nio.ByteBuffer;
  *
  * Note that Codec objects may maintain internal state (e.g. buffers) and are
  * not thread safe.
+ *
+ * Codecs accept buffers without an accessible array, such as direct buffers.
+ * Codecs backed by native libraries that support it (snappy and zstandard)
+ * process direct buffers in place and return a direct buffer; others copy the
+ * data to the heap first.
  */
-public abstract class Codec {
+public abstract class Codec implements Closeable {
   /** Name of the codec; written to the file's metadata. */
   public abstract String getName();
 
@@ -36,6 +43,35 @@ public abstract class Codec {
   /** Decompress the data */
   public abstract ByteBuffer decompress(ByteBuffer compressedData) throws IOException;
 
+  /**
+   * Compresses the input data into a buffer that this codec may reuse, so that
+   * the result is only valid until the next call on this instance. Data file
+   * readers and writers use this to avoid allocating per block. Codecs that
+   * keep an output buffer may override it; the default is
+   * {@link #compress(ByteBuffer)}.
+   */
+  protected ByteBuffer compressReusing(ByteBuffer uncompressedData) throws IOException {
+    return compress(uncompressedData);
+  }
+
+  /**
+   * Decompress the data into a buffer that this codec may reuse, like
+   * {@link #compressReusing(ByteBuffer)}. The default is
+   * {@link #decompress(ByteBuffer)}.
+   */
+  protected ByteBuffer decompressReusing(ByteBuffer compressedData) throws IOException {
+    return decompress(compressedData);
+  }
+
+  /**
+   * Releases native resources held by this codec, such as compression contexts.
+   * Data file readers and writers call this when they are closed. The codec
+   * acquires them again if it is used afterwards. The default does nothing.
+   */
+  @Override
+  public void close() {
+  }
+
   /**
    * Codecs must implement an equals() method. Two codecs, A and B are equal if:
    * the result of A and B decompressing content compressed by A is the same AND
@@ -61,4 +97,16 @@ public abstract class Codec {
   protected static int computeOffset(ByteBuffer data) {
     return data.arrayOffset() + data.position();
   }
+
+  // Codecs that reference the array inside a ByteBuffer must first copy data
+  // from direct or read-only buffers.
+  protected static ByteBuffer toHeapBuffer(ByteBuffer data) {
+    if (data.hasArray()) {
+      return data;
+    }
+    ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+    copy.put(data.duplicate());
+    ((Buffer) copy).flip();
+    return copy;
+  }
 }
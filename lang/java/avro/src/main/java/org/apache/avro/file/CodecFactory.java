@@ -17,6 +17,7 @@
  */
 package org.apache.avro.file;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.Deflater;
@@ -87,7 +88,7 @@ public abstract class CodecFactory {
    *              use a lot of memory.
    */
   public static CodecFactory zstandardCodec(int level) {
-    return new ZstandardCodec.Option(level, false);
+    return new ZstandardCodec.Option(level, false, null);
   }
 
   /**
@@ -100,7 +101,22 @@ public abstract class CodecFactory {
    * @param useChecksum if true, will include a checksum with each data block
    */
   public static CodecFactory zstandardCodec(int level, boolean useChecksum) {
-    return new ZstandardCodec.Option(level, useChecksum);
+    return new ZstandardCodec.Option(level, useChecksum, null);
+  }
+
+  /**
+   * zstandard codec, with specific compression level and a dictionary that every
+   * block is compressed with. The dictionary is stored in the file's metadata,
+   * so that readers can use it too. See
+   * {@link ZstandardCodec#trainDictionary(Iterable, int)}.
+   *
+   * @param level       The compression level should be between -5 and 22,
+   *                    inclusive.
+   * @param useChecksum if true, will include a checksum with each data block
+   * @param dictionary  the dictionary, or null for none
+   */
+  public static CodecFactory zstandardCodec(int level, boolean useChecksum, byte[] dictionary) {
+    return new ZstandardCodec.Option(level, useChecksum, dictionary);
   }
 
   /** Creates internal Codec. */
@@ -146,6 +162,39 @@ public abstract class CodecFactory {
     return o;
   }
 
+  /**
+   * Return the codec for a data file's metadata: the codec named by the
+   * {@link DataFileConstants#CODEC} key, using any level and dictionary stored
+   * along with it.
+   *
+   * @throws AvroRuntimeException if the codec is unknown or its level is not a
+   *                              number
+   */
+  public static CodecFactory fromMeta(Map<String, byte[]> meta) {
+    byte[] codecBytes = meta.get(DataFileConstants.CODEC);
+    if (codecBytes == null) {
+      return nullCodec();
+    }
+    String codecStr = new String(codecBytes, StandardCharsets.UTF_8);
+    if (DataFileConstants.ZSTANDARD_CODEC.equals(codecStr)) {
+      byte[] level = meta.get(DataFileConstants.ZSTANDARD_LEVEL);
+      byte[] dictionary = meta.get(DataFileConstants.ZSTANDARD_DICTIONARY);
+      if (level != null || dictionary != null) {
+        return zstandardCodec(level != null ? parseLevel(level) : DEFAULT_ZSTANDARD_LEVEL, false, dictionary);
+      }
+    }
+    return fromString(codecStr);
+  }
+
+  private static int parseLevel(byte[] level) {
+    String levelStr = new String(level, StandardCharsets.UTF_8);
+    try {
+      return Integer.parseInt(levelStr);
+    } catch (NumberFormatException e) {
+      throw new AvroRuntimeException("Invalid compression level: " + levelStr);
+    }
+  }
+
   /**
    * Adds a new codec implementation. If name already had a codec associated with
    * it, returns the previous codec.
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.file.DataFileStream.DataBlock;
+
+/**
+ * A pool of daemon threads that compress or decompress data file blocks.
+ *
+ * Codecs reuse their output buffers, so a block keeps the codec that processed
+ * it leased until {@link #release(DataBlock)} is called; the codec then goes
+ * back to a pool of idle codecs rather than being created anew for each block.
+ * Closing the pool waits for running tasks, then closes every codec it created.
+ */
+final class CodecWorkers implements Closeable {
+  private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+  private final ExecutorService executor;
+  private final CodecFactory codecFactory;
+  private final ConcurrentLinkedQueue<Codec> idle = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<Codec> created = new ConcurrentLinkedQueue<>();
+
+  CodecWorkers(String name, CodecFactory codecFactory, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of " + name + " threads: " + threads);
+    }
+    this.codecFactory = codecFactory;
+    final String prefix = "avro-" + name + "-" + POOL_COUNT.incrementAndGet() + "-";
+    final AtomicInteger threadCount = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Compress a block, which must own its data, in the background. */
+  Future<DataBlock> compress(DataBlock block) {
+    return executor.submit(() -> {
+      Codec codec = lease(block);
+      try {
+        block.compressUsing(codec);
+      } catch (Throwable t) {
+        // a failed block is never handed out, so it would never be released
+        release(block);
+        throw t;
+      }
+      return block;
+    });
+  }
+
+  /** Decompress a block, which must own its data, in the background. */
+  Future<DataBlock> decompress(DataBlock block) {
+    return executor.submit(() -> {
+      Codec codec = lease(block);
+      try {
+        block.decompressUsing(codec);
+      } catch (Throwable t) {
+        // a failed block is never handed out, so it would never be released
+        release(block);
+        throw t;
+      }
+      return block;
+    });
+  }
+
+  private Codec lease(DataBlock block) {
+    Codec codec = idle.poll();
+    if (codec == null) {
+      codec = codecFactory.createInstance();
+      created.add(codec);
+    }
+    block.setLease(codec);
+    return codec;
+  }
+
+  /**
+   * The caller is done with the output of a block: return the codec that
+   * produced it to the idle pool.
+   */
+  void release(DataBlock block) {
+    Codec codec = block.getLease();
+    if (codec != null) {
+      block.setLease(null);
+      idle.offer(codec);
+    }
+  }
+
+  /**
+   * Wait for a block submitted to this pool, rethrowing any exception thrown by
+   * the codec.
+   */
+  static DataBlock await(Future<DataBlock> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a block");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new AvroRuntimeException(cause);
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    try {
+      // codecs may not be closed while a task is still using them
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        // compressing or decompressing a block cannot be interrupted
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    for (Codec codec : created) {
+      codec.close();
+    }
+    created.clear();
+    idle.clear();
+  }
+}
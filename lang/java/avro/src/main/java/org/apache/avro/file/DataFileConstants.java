@@ -39,5 +39,16 @@ public class DataFileConstants {
   public static final String BZIP2_CODEC = "bzip2";
   public static final String XZ_CODEC = "xz";
   public static final String ZSTANDARD_CODEC = "zstandard";
+  /*
+   * Codec options are not part of the specification, so their keys are kept
+   * out of the "avro." namespace it reserves.
+   */
+  /** Metadata key of the dictionary used by the zstandard codec, if any. */
+  public static final String ZSTANDARD_DICTIONARY = "zstandard.dictionary";
+  /**
+   * Metadata key of the compression level of the zstandard codec, in decimal.
+   * It is not needed to read the file, only to append to it alike.
+   */
+  public static final String ZSTANDARD_LEVEL = "zstandard.level";
 
 }
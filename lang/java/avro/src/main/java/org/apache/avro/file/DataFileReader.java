@@ -20,9 +20,15 @@ package org.apache.avro.file;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
+import org.apache.avro.AvroRuntimeException;
+
 import org.apache.avro.InvalidAvroMagicException;
+import org.apache.avro.io.SchemaSkipper;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.commons.compress.utils.IOUtils;
 import org.apache.avro.io.DatumReader;
@@ -38,6 +44,7 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
   private SeekableInputStream sin;
   private long blockStart;
   private int[] partialMatchTable;
+  private BlockIndex blockIndex;
 
   /** Open a reader for a file. */
   public static <D> FileReader<D> openReader(File file, DatumReader<D> reader) throws IOException {
@@ -50,6 +57,20 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
     }
   }
 
+  /**
+   * Open a reader for a local file through a memory mapping. See
+   * {@link SeekableMappedFileInput}.
+   */
+  public static <D> FileReader<D> openMappedReader(File file, DatumReader<D> reader) throws IOException {
+    SeekableMappedFileInput input = new SeekableMappedFileInput(file);
+    try {
+      return openReader(input, reader);
+    } catch (final Throwable e) {
+      IOUtils.closeQuietly(input);
+      throw e;
+    }
+  }
+
   /** Open a reader for a file. */
   public static <D> FileReader<D> openReader(SeekableInput in, DatumReader<D> reader) throws IOException {
     if (in.length() < MAGIC.length)
@@ -155,6 +176,7 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
   public void seek(long position) throws IOException {
     sin.seek(position);
     vin = DecoderFactory.get().binaryDecoder(this.sin, vin);
+    discardReadAhead();
     datumIn = null;
     blockRemaining = 0;
     blockStart = position;
@@ -202,6 +224,50 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
     blockStart = sin.tell();
   }
 
+  /**
+   * Use a block index written along with this file, enabling
+   * {@link #seekToRecord(long)}.
+   *
+   * @throws IOException if the index was written for another file
+   */
+  public void setBlockIndex(BlockIndex blockIndex) throws IOException {
+    blockIndex.checkSync(getHeader().sync);
+    this.blockIndex = blockIndex;
+  }
+
+  /** Return the block index of this file, or null if none was set. */
+  public BlockIndex getBlockIndex() {
+    return blockIndex;
+  }
+
+  /**
+   * Move to an entry by its number within the file, so that the next call to
+   * {@link #next()} returns it. Requires a {@link BlockIndex}: only the entries
+   * before it in its block are skipped.
+   *
+   * @param record the number of the entry, starting at 0
+   */
+  public void seekToRecord(long record) throws IOException {
+    if (blockIndex == null) {
+      throw new AvroRuntimeException("No block index set");
+    }
+    BlockIndex.Entry entry = blockIndex.findBlock(record);
+    if (entry == null) {
+      throw new IOException("No such record: " + record);
+    }
+    seek(entry.getOffset());
+    SchemaSkipper skipper = SchemaSkipper.get(getSchema());
+    for (long i = entry.getFirstRecord(); i < record; i++) {
+      if (!hasNext()) {
+        throw new IOException("Block index does not match file");
+      }
+      skipper.skip(datumIn);
+      if (--blockRemaining == 0) {
+        blockFinished();
+      }
+    }
+  }
+
   /**
    * Compute that Knuth-Morris-Pratt partial match table.
    *
@@ -229,7 +295,42 @@ public class DataFileReader<D> extends DataFileStream<D> implements FileReader<D
 
   @Override
   protected void blockFinished() throws IOException {
-    blockStart = sin.tell() - vin.inputStream().available();
+    if (readAheadBlockEnd >= 0) {
+      blockStart = readAheadBlockEnd;
+    } else {
+      blockStart = inputPosition();
+    }
+  }
+
+  /**
+   * The channel of the file read, if it is a local file read with
+   * {@link SeekableFileInput}; else null.
+   */
+  FileChannel fileChannel() {
+    if (sin.in instanceof FileInputStream) {
+      return ((FileInputStream) sin.in).getChannel();
+    }
+    return null;
+  }
+
+  @Override
+  ByteBuffer readMapped(int size) throws IOException {
+    // smaller blocks are usually buffered by the decoder already
+    if (!(sin.in instanceof SeekableMappedFileInput) || size <= DecoderFactory.get().getConfiguredBufferSize()) {
+      return null;
+    }
+    long position = inputPosition();
+    ByteBuffer block = ((SeekableMappedFileInput) sin.in).slice(position, size);
+    if (block != null) {
+      sin.seek(position + size);
+      vin = DecoderFactory.get().binaryDecoder(sin, vin);
+    }
+    return block;
+  }
+
+  @Override
+  long inputPosition() throws IOException {
+    return sin.tell() - vin.inputStream().available();
   }
 
   /** Return the last synchronization point before our current position. */
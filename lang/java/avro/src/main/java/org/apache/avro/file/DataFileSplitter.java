@@ -0,0 +1,291 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileStream.Header;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.commons.compress.utils.IOUtils;
+
+/**
+ * Partitions a local data file into byte ranges that start and end on
+ * synchronization markers, so that the ranges can be read independently and in
+ * parallel. For example:
+ *
+ * <pre>
+ * DataFileSplitter&lt;GenericRecord&gt; splitter = new DataFileSplitter&lt;&gt;(file, GenericDatumReader::new);
+ * try (Stream&lt;GenericRecord&gt; records = splitter.stream(64 &lt;&lt; 20, true)) {
+ *   long count = records.filter(...).count();
+ * }
+ * </pre>
+ *
+ * Each split is read with its own input and its own {@link DatumReader}, taken
+ * from the supplier given at construction.
+ */
+public class DataFileSplitter<D> {
+
+  /** A range of a data file that starts and ends on a block boundary. */
+  public static final class Split {
+    private final long start;
+    private final long end;
+
+    Split(long start, long end) {
+      this.start = start;
+      this.end = end;
+    }
+
+    /** The position of the first block in this split. */
+    public long getStart() {
+      return start;
+    }
+
+    /** The position just past the last block in this split. */
+    public long getEnd() {
+      return end;
+    }
+
+    /** The size of this split in bytes. */
+    public long getLength() {
+      return end - start;
+    }
+
+    @Override
+    public String toString() {
+      return "[" + start + ", " + end + ")";
+    }
+  }
+
+  private final File file;
+  private final Supplier<DatumReader<D>> readers;
+  private final Header header;
+  private final long firstBlock;
+  private final long length;
+
+  /**
+   * Read the header of a file.
+   *
+   * @param file    the data file
+   * @param readers creates a datum reader for each split
+   */
+  public DataFileSplitter(File file, Supplier<DatumReader<D>> readers) throws IOException {
+    this.file = file;
+    this.readers = readers;
+    try (DataFileReader<Void> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      this.header = reader.getHeader();
+      this.firstBlock = reader.previousSync();
+      this.length = file.length();
+    }
+  }
+
+  /** Return the schema used in the file. */
+  public Schema getSchema() {
+    return header.schema;
+  }
+
+  /**
+   * Partition the file into splits of about the given size. Splits are aligned
+   * on synchronization markers, so their sizes vary with the size of the
+   * blocks; a split contains at least one block.
+   */
+  public List<Split> plan(long splitSize) throws IOException {
+    if (splitSize <= 0) {
+      throw new IllegalArgumentException("Invalid split size: " + splitSize);
+    }
+    List<Split> splits = new ArrayList<>();
+    try (DataFileReader<D> reader = open(firstBlock)) {
+      long start = firstBlock;
+      while (start + splitSize < length) {
+        reader.sync(start + splitSize);
+        long end = reader.previousSync();
+        if (end >= length) {
+          break;
+        }
+        splits.add(new Split(start, end));
+        start = end;
+      }
+      if (start < length) {
+        splits.add(new Split(start, length));
+      }
+    }
+    return splits;
+  }
+
+  /** Open a reader over the entries in a split. */
+  public SplitReader<D> open(Split split) throws IOException {
+    return new SplitReader<>(open(split.getStart()), split.getEnd());
+  }
+
+  /**
+   * A stream of all entries in the file, which may be split along the planned
+   * splits. Closing the stream closes any split readers left open, so it should
+   * be closed even when it is not read to the end.
+   */
+  public Stream<D> stream(long splitSize, boolean parallel) throws IOException {
+    Set<SplitReader<D>> open = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    Stream<D> stream = StreamSupport.stream(new SplitSpliterator(plan(splitSize), open), parallel);
+    return stream.onClose(() -> {
+      for (SplitReader<D> reader : open) {
+        IOUtils.closeQuietly(reader);
+      }
+    });
+  }
+
+  private DataFileReader<D> open(long position) throws IOException {
+    SeekableFileInput input = new SeekableFileInput(file);
+    try {
+      input.seek(position);
+      return DataFileReader.openReader(input, readers.get(), header, false);
+    } catch (final Throwable e) {
+      IOUtils.closeQuietly(input);
+      throw e;
+    }
+  }
+
+  /** Reads the entries of one split. */
+  public static class SplitReader<D> implements Iterator<D>, Iterable<D>, Closeable {
+    private final DataFileReader<D> reader;
+    private final long end;
+
+    SplitReader(DataFileReader<D> reader, long end) {
+      this.reader = reader;
+      this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return reader.previousSync() < end && reader.hasNext();
+    }
+
+    @Override
+    public D next() {
+      try {
+        return next(null);
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+
+    /**
+     * Read the next datum in the split.
+     *
+     * @param reuse an instance to reuse.
+     * @throws NoSuchElementException if no more remain in the split.
+     */
+    public D next(D reuse) throws IOException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return reader.next(reuse);
+    }
+
+    @Override
+    public Iterator<D> iterator() {
+      return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  /** Reads splits in turn, tracking open readers so that the stream can close them. */
+  private final class SplitSpliterator implements Spliterator<D> {
+    private final List<Split> splits;
+    private final Set<SplitReader<D>> open;
+    private int index;
+    private int fence;
+    private SplitReader<D> current;
+
+    SplitSpliterator(List<Split> splits, Set<SplitReader<D>> open) {
+      this(splits, open, 0, splits.size());
+    }
+
+    private SplitSpliterator(List<Split> splits, Set<SplitReader<D>> open, int index, int fence) {
+      this.splits = splits;
+      this.open = open;
+      this.index = index;
+      this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super D> action) {
+      try {
+        while (true) {
+          if (current == null) {
+            if (index >= fence) {
+              return false;
+            }
+            current = DataFileSplitter.this.open(splits.get(index++));
+            open.add(current);
+          }
+          if (current.hasNext()) {
+            action.accept(current.next());
+            return true;
+          }
+          current.close();
+          open.remove(current);
+          current = null;
+        }
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+
+    @Override
+    public Spliterator<D> trySplit() {
+      // splits are handed off as a prefix, so not once reading has started
+      int remaining = fence - index;
+      if (current != null || remaining < 2) {
+        return null;
+      }
+      int mid = index + remaining / 2;
+      Spliterator<D> prefix = new SplitSpliterator(splits, open, index, mid);
+      index = mid;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+  }
+}
@@ -80,6 +80,10 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   byte[] syncBuffer = new byte[DataFileConstants.SYNC_SIZE];
   private Codec codec;
 
+  private ParallelBlockDecompressor readAhead;
+  /** Position just past the current block, if it was read ahead; else -1. */
+  long readAheadBlockEnd = -1L;
+
   /**
    * Construct a reader for an input stream. For file-based input, use
    * {@link DataFileReader}. This will buffer, wrapping with a
@@ -140,14 +144,55 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   }
 
   Codec resolveCodec() {
-    String codecStr = getMetaString(DataFileConstants.CODEC);
-    if (codecStr != null) {
-      return CodecFactory.fromString(codecStr).createInstance();
-    } else {
-      return CodecFactory.nullCodec().createInstance();
+    return resolveCodecFactory().createInstance();
+  }
+
+  CodecFactory resolveCodecFactory() {
+    return CodecFactory.fromMeta(header.meta);
+  }
+
+  /**
+   * Read up to the given number of blocks ahead of the block being decoded and
+   * decompress them on worker threads, so that I/O, decompression and decoding
+   * overlap. Entries are still returned in file order. By default (0) each block
+   * is read and decompressed when the previous one is finished.
+   *
+   * Read-ahead only applies to iteration with {@link #hasNext()} and
+   * {@link #next()}. Note that the underlying input is positioned past the
+   * blocks read ahead.
+   *
+   * @param blocks the maximum number of blocks to read ahead, or 0 to disable
+   */
+  public void setReadAhead(int blocks) {
+    if (blocks < 0) {
+      throw new IllegalArgumentException("Invalid read-ahead value: " + blocks);
+    }
+    if (readAhead != null) {
+      readAhead.close();
+      readAhead = null;
+      readAheadBlockEnd = -1L;
+    }
+    if (blocks > 0) {
+      readAhead = new ParallelBlockDecompressor(resolveCodecFactory(), blocks);
+    }
+  }
+
+  /** Discard any blocks read ahead of the current position. */
+  void discardReadAhead() {
+    if (readAhead != null) {
+      readAhead.clear();
+      readAheadBlockEnd = -1L;
     }
   }
 
+  /**
+   * The position in the input just past the last block read, or -1 if the input
+   * is not seekable.
+   */
+  long inputPosition() throws IOException {
+    return -1L;
+  }
+
   /**
    * A handle that can be used to reopen this stream without rereading the head.
    */
@@ -208,12 +253,13 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
             throw new IOException("Block read partially, the data may be corrupt");
           }
         }
-        if (hasNextBlock()) {
+        if (readAhead != null) {
+          nextReadAheadBlock();
+        } else if (hasNextBlock()) {
           block = nextRawBlock(block);
           block.decompressUsing(codec);
           blockBuffer = block.getAsByteBuffer();
-          datumIn = DecoderFactory.get().binaryDecoder(blockBuffer.array(),
-              blockBuffer.arrayOffset() + blockBuffer.position(), blockBuffer.remaining(), datumIn);
+          datumIn = DecoderFactory.get().binaryDecoder(blockBuffer, datumIn);
         }
       }
       return blockRemaining != 0;
@@ -224,6 +270,35 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
   }
 
+  private void nextReadAheadBlock() throws IOException {
+    if (block != null) {
+      readAhead.recycle(block);
+      block = null;
+    }
+    try {
+      while (readAhead.needsMore() && hasNextBlock()) {
+        // each queued block needs its own buffer
+        DataBlock raw = nextRawBlock(readAhead.spare());
+        readAhead.submit(raw, inputPosition());
+      }
+    } catch (EOFException e) {
+      // a truncated block; still return those read before it
+      if (readAhead.isEmpty()) {
+        throw e;
+      }
+    }
+    if (readAhead.isEmpty()) {
+      return;
+    }
+    ParallelBlockDecompressor.PendingBlock pending = readAhead.take();
+    block = pending.get();
+    blockRemaining = blockCount = block.getNumEntries();
+    blockSize = pending.getCompressedSize();
+    readAheadBlockEnd = pending.getEnd();
+    blockBuffer = block.getAsByteBuffer();
+    datumIn = DecoderFactory.get().binaryDecoder(blockBuffer, datumIn);
+  }
+
   /**
    * Read the next datum in the file.
    * 
@@ -254,7 +329,10 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     return result;
   }
 
-  /** Expert: Return the next block in the file, as binary-encoded data. */
+  /**
+   * Expert: Return the next block in the file, as binary-encoded data. The
+   * buffer is reused, so it is only valid until the next block is read.
+   */
   public ByteBuffer nextBlock() throws IOException {
     if (!hasNext())
       throw new NoSuchElementException();
@@ -279,6 +357,11 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     // nothing for the stream impl
   }
 
+  /** True if no part of the next block has been read yet. */
+  boolean atBlockBoundary() {
+    return blockRemaining == 0 && !availableBlock && (readAhead == null || readAhead.isEmpty());
+  }
+
   boolean hasNextBlock() {
     try {
       if (availableBlock)
@@ -304,14 +387,22 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     if (!hasNextBlock()) {
       throw new NoSuchElementException();
     }
-    if (reuse == null || reuse.data.length < (int) blockSize) {
-      reuse = new DataBlock(blockRemaining, (int) blockSize);
+    ByteBuffer mapped = readMapped((int) blockSize);
+    if (mapped != null) {
+      if (reuse == null) {
+        reuse = new DataBlock(mapped, blockRemaining);
+      } else {
+        reuse.reset(mapped, blockRemaining);
+      }
     } else {
-      reuse.numEntries = blockRemaining;
-      reuse.blockSize = (int) blockSize;
+      if (reuse == null || reuse.buffer == null || reuse.buffer.length < (int) blockSize) {
+        reuse = new DataBlock(blockRemaining, (int) blockSize);
+      } else {
+        reuse.reset(blockRemaining, (int) blockSize);
+      }
+      // throws if it can't read the size requested
+      vin.readFixed(reuse.data, 0, reuse.blockSize);
     }
-    // throws if it can't read the size requested
-    vin.readFixed(reuse.data, 0, reuse.blockSize);
     vin.readFixed(syncBuffer);
     availableBlock = false;
     if (!Arrays.equals(syncBuffer, header.sync))
@@ -319,6 +410,15 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     return reuse;
   }
 
+  /**
+   * Returns the next size bytes of the input without copying them, e.g. as a
+   * slice of a memory mapping, and moves past them; or returns null, leaving the
+   * input as it was, if the input can't do so.
+   */
+  ByteBuffer readMapped(int size) throws IOException {
+    return null;
+  }
+
   /** Not supported. */
   @Override
   public void remove() {
@@ -328,33 +428,79 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
   /** Close this reader. */
   @Override
   public void close() throws IOException {
+    if (readAhead != null) {
+      readAhead.close();
+    }
+    if (codec != null) {
+      codec.close();
+    }
     vin.inputStream().close();
   }
 
   static class DataBlock {
     private byte[] data;
+    // the array this block was created with. After compression or
+    // decompression, data may instead be the output buffer of the codec, which
+    // is only valid until the codec is used again.
+    private byte[] buffer;
+    // set instead of data while the block is held in a buffer without an
+    // accessible array, e.g. a direct buffer
+    private ByteBuffer direct;
+    // the codec whose output buffer holds data, while the block is in flight
+    // between threads
+    private Codec lease;
     private long numEntries;
     private int blockSize;
     private int offset = 0;
+    // the size before compressUsing, or 0 if not compressed by this writer
+    private int uncompressedSize;
     private boolean flushOnWrite = true;
 
     private DataBlock(long numEntries, int blockSize) {
-      this.data = new byte[blockSize];
+      this.data = this.buffer = new byte[blockSize];
       this.numEntries = numEntries;
       this.blockSize = blockSize;
     }
 
     DataBlock(ByteBuffer block, long numEntries) {
-      this.data = block.array();
-      this.blockSize = block.remaining();
-      this.offset = block.arrayOffset() + block.position();
+      setData(block);
+      this.buffer = data;
+      this.numEntries = numEntries;
+    }
+
+    /** Hold a block read without copying, keeping this block's own buffer. */
+    private void reset(ByteBuffer block, long numEntries) {
+      setData(block);
+      this.uncompressedSize = 0;
+      this.numEntries = numEntries;
+    }
+
+    /** Prepare to read a block into this block's own buffer. */
+    private void reset(long numEntries, int blockSize) {
+      this.data = buffer;
+      this.direct = null;
+      this.uncompressedSize = 0;
+      this.offset = 0;
       this.numEntries = numEntries;
+      this.blockSize = blockSize;
     }
 
     byte[] getData() {
       return data;
     }
 
+    byte[] getBuffer() {
+      return buffer;
+    }
+
+    Codec getLease() {
+      return lease;
+    }
+
+    void setLease(Codec lease) {
+      this.lease = lease;
+    }
+
     long getNumEntries() {
       return numEntries;
     }
@@ -363,6 +509,10 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
       return blockSize;
     }
 
+    int getUncompressedSize() {
+      return uncompressedSize;
+    }
+
     boolean isFlushOnWrite() {
       return flushOnWrite;
     }
@@ -372,25 +522,39 @@ public class DataFileStream<D> implements Iterator<D>, Iterable<D>, Closeable {
     }
 
     ByteBuffer getAsByteBuffer() {
-      return ByteBuffer.wrap(data, offset, blockSize);
+      return direct != null ? direct.duplicate() : ByteBuffer.wrap(data, offset, blockSize);
     }
 
     void decompressUsing(Codec c) throws IOException {
-      ByteBuffer result = c.decompress(getAsByteBuffer());
-      data = result.array();
-      blockSize = result.remaining();
+      setData(c.decompressReusing(getAsByteBuffer()));
     }
 
     void compressUsing(Codec c) throws IOException {
-      ByteBuffer result = c.compress(getAsByteBuffer());
-      data = result.array();
+      uncompressedSize = blockSize;
+      setData(c.compressReusing(getAsByteBuffer()));
+    }
+
+    private void setData(ByteBuffer result) {
+      if (result.hasArray()) {
+        data = result.array();
+        offset = result.arrayOffset() + result.position();
+        direct = null;
+      } else {
+        data = null;
+        offset = 0;
+        direct = result;
+      }
       blockSize = result.remaining();
     }
 
     void writeBlockTo(BinaryEncoder e, byte[] sync) throws IOException {
       e.writeLong(this.numEntries);
       e.writeLong(this.blockSize);
-      e.writeFixed(this.data, offset, this.blockSize);
+      if (direct != null) {
+        e.writeFixed(direct.duplicate());
+      } else {
+        e.writeFixed(this.data, offset, this.blockSize);
+      }
       e.writeFixed(sync);
       if (flushOnWrite) {
         e.flush();
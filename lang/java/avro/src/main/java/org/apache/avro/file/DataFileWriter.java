@@ -20,25 +20,31 @@ package org.apache.avro.file;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileStream.DataBlock;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.EncoderFactory;
@@ -67,14 +73,29 @@ public class DataFileWriter<D> implements Closeable, Flushable {
 
   private long blockCount; // # entries in current block
 
-  private NonCopyingByteArrayOutputStream buffer;
+  private BlockBufferOutputStream buffer;
+  private boolean offHeapBuffer;
   private BinaryEncoder bufOut;
 
   private byte[] sync; // 16 random bytes
   private int syncInterval = DataFileConstants.DEFAULT_SYNC_INTERVAL;
+  private int targetBlockSize;
+  private long targetBlockNanos;
+  private BlockSizeTuner tuner;
+  private long blockStart;
 
   private boolean isOpen;
   private Codec codec;
+  private CodecFactory codecFactory;
+
+  private int compressionThreads;
+  private ParallelBlockCompressor compressor;
+
+  private File blockIndexFile;
+  private String blockIndexKey;
+  private BlockIndex blockIndex;
+  private GenericData blockIndexData;
+  private int blockIndexKeyPos;
 
   private boolean flushOnEveryBlock = true;
 
@@ -99,8 +120,21 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public DataFileWriter<D> setCodec(CodecFactory c) {
     assertNotOpen();
+    this.codecFactory = c;
+    if (codec != null) {
+      codec.close();
+    }
     this.codec = c.createInstance();
     setMetaInternal(DataFileConstants.CODEC, codec.getName());
+    meta.remove(DataFileConstants.ZSTANDARD_LEVEL);
+    meta.remove(DataFileConstants.ZSTANDARD_DICTIONARY);
+    if (c instanceof ZstandardCodec.Option) {
+      ZstandardCodec.Option option = (ZstandardCodec.Option) c;
+      setMetaInternal(DataFileConstants.ZSTANDARD_LEVEL, Integer.toString(option.getCompressionLevel()));
+      if (option.getDictionary() != null) {
+        setMetaInternal(DataFileConstants.ZSTANDARD_DICTIONARY, option.getDictionary());
+      }
+    }
     return this;
   }
 
@@ -129,6 +163,125 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     return this;
   }
 
+  /**
+   * Adapt the synchronization interval so that blocks compress to about the
+   * given size. The interval is tuned from the compression ratio of the blocks
+   * written so far, starting from {@link #setSyncInterval(int)}. This keeps
+   * blocks near a size that suits both the codec and parallel readers when the
+   * ratio varies between datasets. May be combined with
+   * {@link #setTargetBlockLatency(long, TimeUnit)}, in which case the smaller of
+   * the two intervals is used. May not be reset after writes have begun.
+   *
+   * @param targetBlockSize the compressed block size to aim for, in bytes, or 0
+   *                        to disable
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setTargetBlockSize(int targetBlockSize) {
+    assertNotOpen();
+    if (targetBlockSize < 0) {
+      throw new IllegalArgumentException("Invalid targetBlockSize value: " + targetBlockSize);
+    }
+    this.targetBlockSize = targetBlockSize;
+    return this;
+  }
+
+  /**
+   * Adapt the synchronization interval so that each block takes about the given
+   * time to fill and compress, as seen by the writing thread. The interval is
+   * tuned from the rate at which previous blocks were filled, which includes the
+   * time spent between appends, so slow producers get smaller blocks that reach
+   * the output sooner. May be combined with {@link #setTargetBlockSize(int)}. May
+   * not be reset after writes have begun.
+   *
+   * @param latency the time per block to aim for, or 0 to disable
+   * @param unit    the unit of latency
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setTargetBlockLatency(long latency, TimeUnit unit) {
+    assertNotOpen();
+    if (latency < 0) {
+      throw new IllegalArgumentException("Invalid latency value: " + latency);
+    }
+    this.targetBlockNanos = unit.toNanos(latency);
+    return this;
+  }
+
+  /**
+   * Set the number of threads used to compress blocks. By default (0) blocks are
+   * compressed by the thread that fills them. With a positive value, filled
+   * blocks are handed to that many worker threads and written to the file in
+   * order, while the caller keeps appending to the next block. At most two
+   * blocks per thread are buffered before {@link #append(Object)} waits for the
+   * oldest one to be written.
+   *
+   * The file format is unaffected. {@link #sync()}, {@link #flush()} and
+   * {@link #close()} wait until all pending blocks are written. May not be reset
+   * after writes have begun.
+   *
+   * @param compressionThreads the number of compression threads, or 0 to
+   *                           compress on the calling thread
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setCompressionThreads(int compressionThreads) {
+    assertNotOpen();
+    if (compressionThreads < 0) {
+      throw new IllegalArgumentException("Invalid compressionThreads value: " + compressionThreads);
+    }
+    this.compressionThreads = compressionThreads;
+    return this;
+  }
+
+  /**
+   * Hold the block being filled in a direct buffer, outside the Java heap. With
+   * the snappy and zstandard codecs, blocks are then compressed without being
+   * copied to the heap, and {@link #appendEncoded(ByteBuffer)} copies direct
+   * buffers straight into the block. Other codecs copy each block to the heap
+   * before compressing it, as does compression on worker threads (see
+   * {@link #setCompressionThreads(int)}). May not be reset after writes have
+   * begun.
+   *
+   * @param offHeapBuffer true to buffer blocks in direct memory
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setOffHeapBuffer(boolean offHeapBuffer) {
+    assertNotOpen();
+    this.offHeapBuffer = offHeapBuffer;
+    return this;
+  }
+
+  /**
+   * Write a {@link BlockIndex} of the file's blocks to a sidecar file when this
+   * writer is closed. See {@link #setBlockIndex(File, String)}.
+   */
+  public DataFileWriter<D> setBlockIndex(File indexFile) {
+    return setBlockIndex(indexFile, null);
+  }
+
+  /**
+   * Write a {@link BlockIndex} of the file's blocks to a sidecar file when this
+   * writer is closed. The index holds the position, entry count and first entry
+   * number of each block and, if a key field is given, the minimum and maximum
+   * value of that field in each block. May not be reset after writes have begun,
+   * and is not supported when appending to an existing file.
+   *
+   * @param indexFile the file to write the index to, usually
+   *                  {@link BlockIndex#sidecarFor(File)}
+   * @param keyField  the name of a top-level field to record the range of, or
+   *                  null
+   * @return this DataFileWriter
+   */
+  public DataFileWriter<D> setBlockIndex(File indexFile, String keyField) {
+    assertNotOpen();
+    this.blockIndexFile = indexFile;
+    this.blockIndexKey = keyField;
+    return this;
+  }
+
+  /** Return the block index built so far, or null if not enabled. */
+  public BlockIndex getBlockIndex() {
+    return blockIndex;
+  }
+
   /** Open a new file for data matching a schema with a random sync. */
   public DataFileWriter<D> create(Schema schema, File file) throws IOException {
     SyncableFileOutputStream sfos = new SyncableFileOutputStream(file);
@@ -158,6 +311,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     } else {
       throw new IOException("sync must be exactly 16 bytes");
     }
+    if (blockIndexFile != null) {
+      initBlockIndex();
+    }
 
     init(outs);
 
@@ -217,17 +373,15 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public DataFileWriter<D> appendTo(SeekableInput in, OutputStream out) throws IOException {
     assertNotOpen();
+    if (blockIndexFile != null) {
+      throw new AvroRuntimeException("Cannot write a block index when appending");
+    }
     DataFileReader<D> reader = new DataFileReader<>(in, new GenericDatumReader<>());
     this.schema = reader.getSchema();
     this.sync = reader.getHeader().sync;
     this.meta.putAll(reader.getHeader().meta);
-    byte[] codecBytes = this.meta.get(DataFileConstants.CODEC);
-    if (codecBytes != null) {
-      String strCodec = new String(codecBytes, StandardCharsets.UTF_8);
-      this.codec = CodecFactory.fromString(strCodec).createInstance();
-    } else {
-      this.codec = CodecFactory.nullCodec().createInstance();
-    }
+    this.codecFactory = CodecFactory.fromMeta(meta);
+    this.codec = codecFactory.createInstance();
 
     init(out);
 
@@ -240,14 +394,46 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     EncoderFactory efactory = new EncoderFactory();
     this.vout = efactory.binaryEncoder(out, null);
     dout.setSchema(schema);
-    buffer = new NonCopyingByteArrayOutputStream(Math.min((int) (syncInterval * 1.25), Integer.MAX_VALUE / 2 - 1));
+    buffer = new BlockBufferOutputStream(Math.min((int) (syncInterval * 1.25), Integer.MAX_VALUE / 2 - 1),
+        offHeapBuffer);
     this.bufOut = efactory.binaryEncoder(buffer, null);
     if (this.codec == null) {
-      this.codec = CodecFactory.nullCodec().createInstance();
+      this.codecFactory = CodecFactory.nullCodec();
+      this.codec = codecFactory.createInstance();
+    }
+    if (compressionThreads > 0) {
+      this.compressor = new ParallelBlockCompressor(codecFactory, compressionThreads, this::writeCompressedBlock);
+    }
+    if (targetBlockSize > 0 || targetBlockNanos > 0) {
+      this.tuner = new BlockSizeTuner(syncInterval, targetBlockSize, targetBlockNanos);
+      this.blockStart = System.nanoTime();
     }
     this.isOpen = true;
   }
 
+  private void initBlockIndex() {
+    Schema keySchema = null;
+    if (blockIndexKey != null) {
+      Schema.Field field = schema.getField(blockIndexKey);
+      if (field == null) {
+        throw new AvroRuntimeException("Not a field of " + schema.getFullName() + ": " + blockIndexKey);
+      }
+      keySchema = field.schema();
+      if (keySchema.getType() == Schema.Type.UNION) {
+        // null keys are not indexed, so a nullable key indexes its other branch
+        Integer nullIndex = keySchema.getIndexNamed(Schema.Type.NULL.getName());
+        if (nullIndex == null || keySchema.getTypes().size() != 2) {
+          throw new AvroRuntimeException("Cannot index union field: " + blockIndexKey);
+        }
+        keySchema = keySchema.getTypes().get(1 - nullIndex);
+      }
+      blockIndexKeyPos = field.pos();
+    }
+    blockIndexData = dout instanceof GenericDatumWriter ? ((GenericDatumWriter<D>) dout).getData()
+        : GenericData.get();
+    blockIndex = new BlockIndex(sync, blockIndexKey, keySchema, blockIndexData);
+  }
+
   private static byte[] generateSync() {
     try {
       MessageDigest digester = MessageDigest.getInstance("MD5");
@@ -316,6 +502,9 @@ public class DataFileWriter<D> implements Closeable, Flushable {
       resetBufferTo(usedBuffer);
       throw new AppendWriteException(e);
     }
+    if (blockIndex != null && blockIndexKey != null) {
+      blockIndex.recordKey(blockIndexData.getField(datum, blockIndexKey, blockIndexKeyPos));
+    }
     blockCount++;
     writeIfBlockFull();
   }
@@ -325,9 +514,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   // Otherwise the file will be corrupt with a partial record.
   private void resetBufferTo(int size) throws IOException {
     bufOut.flush();
-    byte[] data = buffer.toByteArray();
-    buffer.reset();
-    buffer.write(data, 0, size);
+    buffer.truncate(size);
   }
 
   /**
@@ -337,7 +524,16 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    */
   public void appendEncoded(ByteBuffer datum) throws IOException {
     assertOpen();
-    bufOut.writeFixed(datum);
+    if (datum.hasArray()) {
+      bufOut.writeFixed(datum);
+    } else {
+      // e.g. a direct buffer: copy it straight into the block
+      bufOut.flush();
+      buffer.write(datum);
+    }
+    if (blockIndex != null) {
+      blockIndex.keysUnknown();
+    }
     blockCount++;
     writeIfBlockFull();
   }
@@ -347,7 +543,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   }
 
   private void writeIfBlockFull() throws IOException {
-    if (bufferInUse() >= syncInterval)
+    if (bufferInUse() >= (tuner != null ? tuner.getInterval() : syncInterval))
       writeBlock();
   }
 
@@ -365,6 +561,11 @@ public class DataFileWriter<D> implements Closeable, Flushable {
    * at compression level 7. If <i>recompress</i> is false, blocks will be copied
    * without changing the compression level. If true, they will be converted to
    * the new compression level.
+   * <p/>
+   * When blocks are copied without recompression, otherFile is a
+   * {@link DataFileReader} on a {@link SeekableFileInput} and this writer writes
+   * to a {@link FileOutputStream}, blocks are transferred from file to file by
+   * the operating system, without being read into memory.
    * 
    * @param otherFile
    * @param recompress
@@ -379,33 +580,145 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
     // flush anything written so far
     writeBlock();
-    Codec otherCodec = otherFile.resolveCodec();
+    writePendingBlocks();
     DataBlock nextBlockRaw = null;
-    if (codec.equals(otherCodec) && !recompress) {
-      // copy raw bytes
-      while (otherFile.hasNextBlock()) {
-        nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
-        nextBlockRaw.writeBlockTo(vout, sync);
+    try (Codec otherCodec = otherFile.resolveCodec()) {
+      if (codec.equals(otherCodec) && !recompress) {
+        if (transferBlocksFrom(otherFile)) {
+          return;
+        }
+        // copy raw bytes
+        while (otherFile.hasNextBlock()) {
+          nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
+          writeAppendedBlock(nextBlockRaw);
+        }
+      } else {
+        while (otherFile.hasNextBlock()) {
+          nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
+          nextBlockRaw.decompressUsing(otherCodec);
+          nextBlockRaw.compressUsing(codec);
+          writeAppendedBlock(nextBlockRaw);
+        }
       }
-    } else {
-      while (otherFile.hasNextBlock()) {
-        nextBlockRaw = otherFile.nextRawBlock(nextBlockRaw);
-        nextBlockRaw.decompressUsing(otherCodec);
-        nextBlockRaw.compressUsing(codec);
-        nextBlockRaw.writeBlockTo(vout, sync);
+    }
+  }
+
+  /**
+   * Copy the remaining blocks of a local file into this file with
+   * {@link FileChannel#transferTo}, rewriting only the sync markers.
+   *
+   * @return false if either file is not a local file, so that blocks must be
+   *         copied through memory
+   */
+  private boolean transferBlocksFrom(DataFileStream<D> otherFile) throws IOException {
+    if (!(otherFile instanceof DataFileReader) || !(underlyingStream instanceof FileOutputStream)) {
+      return false;
+    }
+    DataFileReader<D> reader = (DataFileReader<D>) otherFile;
+    FileChannel src = reader.fileChannel();
+    if (src == null || !reader.atBlockBoundary()) {
+      return false;
+    }
+    vout.flush();
+    out.flush();
+    FileChannel dst = ((FileOutputStream) underlyingStream).getChannel();
+
+    byte[] otherSync = reader.getHeader().sync;
+    ByteBuffer header = ByteBuffer.allocate(20); // two longs
+    ByteBuffer otherSyncBuffer = ByteBuffer.allocate(DataFileConstants.SYNC_SIZE);
+    long position = reader.inputPosition();
+    long end = src.size();
+    while (position < end) {
+      // read the entry count and size of the next block
+      ((Buffer) header).clear();
+      readFully(src, header, position);
+      ((Buffer) header).flip();
+      long count = readVarLong(header);
+      long size = readVarLong(header);
+      if (size > Integer.MAX_VALUE || size < 0) {
+        throw new IOException("Block size invalid or too large for this implementation: " + size);
+      }
+      ((Buffer) otherSyncBuffer).clear();
+      readFully(src, otherSyncBuffer, position + header.position() + size);
+      if (otherSyncBuffer.hasRemaining() || !Arrays.equals(otherSyncBuffer.array(), otherSync)) {
+        throw new IOException("Invalid sync!");
+      }
+
+      if (blockIndex != null) {
+        blockIndex.keysUnknown();
+        blockIndex.blockFilled();
+        blockIndex.blockWritten(out.tell(), count);
+      }
+      long length = header.position() + size;
+      for (long done = 0; done < length;) {
+        done += src.transferTo(position + done, length - done, dst);
+      }
+      ByteBuffer syncBuffer = ByteBuffer.wrap(sync);
+      while (syncBuffer.hasRemaining()) {
+        dst.write(syncBuffer);
+      }
+      out.skipped(length + DataFileConstants.SYNC_SIZE);
+      position += length + DataFileConstants.SYNC_SIZE;
+    }
+    // leave the other file at its end
+    reader.seek(end);
+    return true;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, position);
+      if (n < 0) {
+        break;
+      }
+      position += n;
+    }
+  }
+
+  private static long readVarLong(ByteBuffer buffer) throws IOException {
+    long n = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (!buffer.hasRemaining()) {
+        throw new EOFException();
+      }
+      int b = buffer.get() & 0xff;
+      n |= (b & 0x7fL) << shift;
+      if ((b & 0x80) == 0) {
+        return (n >>> 1) ^ -(n & 1); // back to two's-complement
       }
     }
+    throw new IOException("Invalid long encoding");
+  }
+
+  private void writeAppendedBlock(DataBlock block) throws IOException {
+    if (blockIndex != null) {
+      blockIndex.keysUnknown();
+      blockIndex.blockFilled();
+    }
+    writeCompressedBlock(block);
   }
 
   private void writeBlock() throws IOException {
     if (blockCount > 0) {
       try {
         bufOut.flush();
-        ByteBuffer uncompressed = buffer.getByteArrayAsByteBuffer();
-        DataBlock block = new DataBlock(uncompressed, blockCount);
-        block.setFlushOnWrite(flushOnEveryBlock);
-        block.compressUsing(codec);
-        block.writeBlockTo(vout, sync);
+        if (blockIndex != null) {
+          blockIndex.blockFilled();
+        }
+        if (compressor != null) {
+          compressor.submit(buffer.getByteBuffer(), blockCount, flushOnEveryBlock);
+        } else {
+          ByteBuffer uncompressed = buffer.getByteBuffer();
+          DataBlock block = new DataBlock(uncompressed, blockCount);
+          block.setFlushOnWrite(flushOnEveryBlock);
+          block.compressUsing(codec);
+          writeCompressedBlock(block);
+        }
+        if (tuner != null) {
+          long now = System.nanoTime();
+          tuner.blockFilled(buffer.size(), now - blockStart);
+          blockStart = now;
+        }
       } finally {
         buffer.reset();
         blockCount = 0;
@@ -413,6 +726,23 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
+  private void writeCompressedBlock(DataBlock block) throws IOException {
+    if (tuner != null) {
+      tuner.blockCompressed(block.getUncompressedSize(), block.getBlockSize());
+    }
+    if (blockIndex != null) {
+      blockIndex.blockWritten(out.tell() + vout.bytesBuffered(), block.getNumEntries());
+    }
+    block.writeBlockTo(vout, sync);
+  }
+
+  // wait for blocks still being compressed in the background and write them
+  private void writePendingBlocks() throws IOException {
+    if (compressor != null) {
+      compressor.drain();
+    }
+  }
+
   /**
    * Return the current position as a value that may be passed to
    * {@link DataFileReader#seek(long)}. Forces the end of the current block,
@@ -426,6 +756,7 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   public long sync() throws IOException {
     assertOpen();
     writeBlock();
+    writePendingBlocks();
     return out.tell();
   }
 
@@ -457,9 +788,20 @@ public class DataFileWriter<D> implements Closeable, Flushable {
   @Override
   public void close() throws IOException {
     if (isOpen) {
-      flush();
+      try {
+        flush();
+      } finally {
+        if (compressor != null) {
+          compressor.close();
+          compressor = null;
+        }
+        codec.close();
+      }
       out.close();
       isOpen = false;
+      if (blockIndex != null) {
+        blockIndex.write(blockIndexFile);
+      }
     }
   }
 
@@ -487,6 +829,11 @@ public class DataFileWriter<D> implements Closeable, Flushable {
       return position + count;
     }
 
+    /** Account for bytes written directly to the underlying stream. */
+    void skipped(long bytes) {
+      position += bytes;
+    }
+
     @Override
     public synchronized void flush() throws IOException {
       try {
@@ -500,14 +847,4 @@ public class DataFileWriter<D> implements Closeable, Flushable {
     }
   }
 
-  private static class NonCopyingByteArrayOutputStream extends ByteArrayOutputStream {
-    NonCopyingByteArrayOutputStream(int initialSize) {
-      super(initialSize);
-    }
-
-    ByteBuffer getByteArrayAsByteBuffer() {
-      return ByteBuffer.wrap(buf, 0, count);
-    }
-  }
-
 }
@@ -17,7 +17,6 @@
  */
 package org.apache.avro.file;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
@@ -49,7 +48,7 @@ public class DeflateCodec extends Codec {
     }
   }
 
-  private ByteArrayOutputStream outputBuffer;
+  private NonCopyingByteArrayOutputStream outputBuffer;
   private Deflater deflater;
   private Inflater inflater;
   // currently only do 'nowrap' -- RFC 1951, not zlib
@@ -67,20 +66,40 @@ public class DeflateCodec extends Codec {
 
   @Override
   public ByteBuffer compress(ByteBuffer data) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
+    return ByteBuffer.wrap(deflate(data).toByteArray());
+  }
+
+  @Override
+  public ByteBuffer decompress(ByteBuffer data) throws IOException {
+    return ByteBuffer.wrap(inflate(data).toByteArray());
+  }
+
+  @Override
+  protected ByteBuffer compressReusing(ByteBuffer data) throws IOException {
+    return deflate(data).getByteArrayAsByteBuffer();
+  }
+
+  @Override
+  protected ByteBuffer decompressReusing(ByteBuffer data) throws IOException {
+    return inflate(data).getByteArrayAsByteBuffer();
+  }
+
+  private NonCopyingByteArrayOutputStream deflate(ByteBuffer data) throws IOException {
+    data = toHeapBuffer(data);
+    NonCopyingByteArrayOutputStream baos = getOutputBuffer(data.remaining());
     try (OutputStream outputStream = new DeflaterOutputStream(baos, getDeflater())) {
       outputStream.write(data.array(), computeOffset(data), data.remaining());
     }
-    return ByteBuffer.wrap(baos.toByteArray());
+    return baos;
   }
 
-  @Override
-  public ByteBuffer decompress(ByteBuffer data) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
+  private NonCopyingByteArrayOutputStream inflate(ByteBuffer data) throws IOException {
+    data = toHeapBuffer(data);
+    NonCopyingByteArrayOutputStream baos = getOutputBuffer(data.remaining());
     try (OutputStream outputStream = new InflaterOutputStream(baos, getInflater())) {
       outputStream.write(data.array(), computeOffset(data), data.remaining());
     }
-    return ByteBuffer.wrap(baos.toByteArray());
+    return baos;
   }
 
   // get and initialize the inflater for use.
@@ -102,9 +121,9 @@ public class DeflateCodec extends Codec {
   }
 
   // get and initialize the output buffer for use.
-  private ByteArrayOutputStream getOutputBuffer(int suggestedLength) {
+  private NonCopyingByteArrayOutputStream getOutputBuffer(int suggestedLength) {
     if (null == outputBuffer) {
-      outputBuffer = new ByteArrayOutputStream(suggestedLength);
+      outputBuffer = new NonCopyingByteArrayOutputStream(suggestedLength);
     }
     outputBuffer.reset();
     return outputBuffer;
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ByteArrayOutputStream} whose contents may be read without copying.
+ * The returned buffer is only valid until the stream is next written to or
+ * reset.
+ */
+class NonCopyingByteArrayOutputStream extends ByteArrayOutputStream {
+  NonCopyingByteArrayOutputStream(int initialSize) {
+    super(initialSize);
+  }
+
+  ByteBuffer getByteArrayAsByteBuffer() {
+    return ByteBuffer.wrap(buf, 0, count);
+  }
+}
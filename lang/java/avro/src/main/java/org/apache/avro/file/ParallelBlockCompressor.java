@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.DataFileStream.DataBlock;
+
+/**
+ * Compresses the blocks of a data file on a bounded pool of worker threads and
+ * writes them out in the order they were submitted.
+ *
+ * At most two blocks per worker are in flight; submitting another block blocks
+ * the caller until the oldest one has been compressed and written. The buffers
+ * of written blocks are reused for later blocks.
+ */
+final class ParallelBlockCompressor implements Closeable {
+
+  /** Writes compressed blocks to the file. */
+  interface BlockSink {
+    void write(DataBlock block) throws IOException;
+  }
+
+  private final CodecWorkers workers;
+  private final BlockSink sink;
+  private final ArrayDeque<Future<DataBlock>> pending = new ArrayDeque<>();
+  private final int maxPending;
+  private final BlockBufferPool buffers;
+
+  ParallelBlockCompressor(CodecFactory codecFactory, int threads, BlockSink sink) {
+    this.sink = sink;
+    this.workers = new CodecWorkers("block-compressor", codecFactory, threads);
+    this.maxPending = threads * 2;
+    this.buffers = new BlockBufferPool(maxPending + 1);
+  }
+
+  /**
+   * Queue a block for compression. Its data is copied, so the caller may reuse
+   * the buffer once this method returns. Completed blocks are written to the
+   * sink while the queue is full.
+   */
+  void submit(ByteBuffer data, long numEntries, boolean flushOnWrite) throws IOException {
+    while (pending.size() >= maxPending) {
+      writeNext();
+    }
+    int length = data.remaining();
+    byte[] copy = buffers.acquire(length);
+    data.get(copy, 0, length);
+    DataBlock block = new DataBlock(ByteBuffer.wrap(copy, 0, length), numEntries);
+    block.setFlushOnWrite(flushOnWrite);
+    pending.add(workers.compress(block));
+  }
+
+  /** Write all queued blocks to the sink, waiting for their compression. */
+  void drain() throws IOException {
+    while (!pending.isEmpty()) {
+      writeNext();
+    }
+  }
+
+  private void writeNext() throws IOException {
+    DataBlock block = CodecWorkers.await(pending.poll());
+    try {
+      sink.write(block);
+    } finally {
+      workers.release(block);
+      buffers.release(block.getBuffer());
+    }
+  }
+
+  /** Discard any queued blocks and stop the workers. */
+  @Override
+  public void close() {
+    for (Future<DataBlock> f : pending) {
+      f.cancel(true);
+    }
+    pending.clear();
+    workers.close();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Future;
+
+import org.apache.avro.file.DataFileStream.DataBlock;
+
+/**
+ * Holds the blocks of a data file that have been read ahead of the current
+ * block, decompressing them on a pool of worker threads. Blocks are handed out
+ * in the order they were read, and recycled once the reader is done with them.
+ */
+final class ParallelBlockDecompressor implements Closeable {
+
+  /** A block read ahead of the current one. */
+  static final class PendingBlock {
+    private final Future<DataBlock> block;
+    private final int compressedSize;
+    private final long end;
+
+    private PendingBlock(Future<DataBlock> block, int compressedSize, long end) {
+      this.block = block;
+      this.compressedSize = compressedSize;
+      this.end = end;
+    }
+
+    /** Wait for the block to be decompressed. */
+    DataBlock get() throws IOException {
+      return CodecWorkers.await(block);
+    }
+
+    /** The size of the block as stored in the file. */
+    int getCompressedSize() {
+      return compressedSize;
+    }
+
+    /** The input position just past this block's sync marker, or -1. */
+    long getEnd() {
+      return end;
+    }
+  }
+
+  private final CodecWorkers workers;
+  private final ArrayDeque<PendingBlock> pending = new ArrayDeque<>();
+  private final ArrayDeque<DataBlock> spares = new ArrayDeque<>();
+  private final int maxPending;
+
+  ParallelBlockDecompressor(CodecFactory codecFactory, int blocks) {
+    this.workers = new CodecWorkers("block-decompressor", codecFactory,
+        Math.min(blocks, Runtime.getRuntime().availableProcessors()));
+    this.maxPending = blocks;
+  }
+
+  /** True if another block may be read ahead. */
+  boolean needsMore() {
+    return pending.size() < maxPending;
+  }
+
+  boolean isEmpty() {
+    return pending.isEmpty();
+  }
+
+  /**
+   * Queue a raw block, which must own its data, for decompression.
+   *
+   * @param end the input position just past the block, or -1 if unknown
+   */
+  void submit(DataBlock block, long end) {
+    pending.add(new PendingBlock(workers.decompress(block), block.getBlockSize(), end));
+  }
+
+  /**
+   * Return a recycled block whose buffer may be read into, or null if there is
+   * none.
+   */
+  DataBlock spare() {
+    return spares.poll();
+  }
+
+  /** The reader is done with a block taken from this queue. */
+  void recycle(DataBlock block) {
+    workers.release(block);
+    if (spares.size() < maxPending) {
+      spares.add(block);
+    }
+  }
+
+  /** Remove the oldest queued block. */
+  PendingBlock take() {
+    return pending.poll();
+  }
+
+  /**
+   * Discard all queued blocks, e.g. after a seek. Blocks not yet started are
+   * dropped; those being decompressed are waited for, so that their codecs go
+   * back to the pool and their buffers are reused.
+   */
+  void clear() {
+    for (PendingBlock p : pending) {
+      if (!p.block.cancel(false)) {
+        try {
+          recycle(p.get());
+        } catch (IOException | RuntimeException e) {
+          // the block is discarded anyway, and a failed task releases its codec
+        }
+      }
+    }
+    pending.clear();
+  }
+
+  @Override
+  public void close() {
+    clear();
+    workers.close();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link SeekableInput} backed by a read-only memory mapping of a local file.
+ * Reads copy directly from the page cache into the caller's array, without the
+ * intermediate native buffer and system call per read of
+ * {@link SeekableFileInput}. A {@link DataFileReader} reading from it does not
+ * copy blocks larger than its decoder's buffer at all: they are passed to the
+ * codec, or for uncompressed files to the decoder, as slices of the mapping.
+ * Files larger than 1 GB are mapped in several chunks; the few blocks that
+ * span two chunks are copied.
+ *
+ * The mapping is released when this object is garbage collected, not when it
+ * is closed. The file must not be truncated while it is mapped.
+ */
+public class SeekableMappedFileInput implements SeekableInput {
+  static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+
+  private final int chunkSize;
+  private final long length;
+  private MappedByteBuffer[] chunks;
+  private long position;
+
+  public SeekableMappedFileInput(File file) throws IOException {
+    this(file, DEFAULT_CHUNK_SIZE);
+  }
+
+  SeekableMappedFileInput(File file, int chunkSize) throws IOException {
+    this.chunkSize = chunkSize;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      this.length = channel.size();
+      int count = (int) ((length + chunkSize - 1) / chunkSize);
+      this.chunks = new MappedByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long start = (long) i * chunkSize;
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkSize, length - start));
+      }
+    }
+  }
+
+  @Override
+  public void seek(long p) throws IOException {
+    if (p < 0) {
+      throw new IOException("Illegal seek: " + p);
+    }
+    this.position = p;
+  }
+
+  @Override
+  public long tell() throws IOException {
+    return position;
+  }
+
+  @Override
+  public long length() throws IOException {
+    return length;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (chunks == null) {
+      throw new IOException("Stream closed");
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= length) {
+      return -1;
+    }
+    int read = 0;
+    while (read < len && position < length) {
+      ByteBuffer chunk = chunks[(int) (position / chunkSize)];
+      ((Buffer) chunk).position((int) (position % chunkSize));
+      int n = Math.min(len - read, chunk.remaining());
+      chunk.get(b, off + read, n);
+      read += n;
+      position += n;
+    }
+    return read;
+  }
+
+  /**
+   * Returns a read-only view of the bytes at a position, or null if they are not
+   * all mapped in one chunk.
+   */
+  ByteBuffer slice(long p, int len) throws IOException {
+    if (chunks == null) {
+      throw new IOException("Stream closed");
+    }
+    if (p < 0 || len < 0 || p + len > length || p / chunkSize != (p + len - 1) / chunkSize) {
+      return null;
+    }
+    ByteBuffer slice = chunks[(int) (p / chunkSize)].duplicate();
+    ((Buffer) slice).position((int) (p % chunkSize));
+    ((Buffer) slice).limit((int) (p % chunkSize) + len);
+    return slice.slice();
+  }
+
+  @Override
+  public void close() throws IOException {
+    chunks = null;
+  }
+}
@@ -27,6 +27,8 @@ import org.xerial.snappy.Snappy;
 /** * Implements Snappy compression and decompression. */
 public class SnappyCodec extends Codec {
   private CRC32 crc32 = new CRC32();
+  private byte[] outputBuffer;
+  private ByteBuffer directOutputBuffer;
 
   static class Option extends CodecFactory {
     static {
@@ -51,8 +53,31 @@ public class SnappyCodec extends Codec {
 
   @Override
   public ByteBuffer compress(ByteBuffer in) throws IOException {
+    return compress(in, false);
+  }
+
+  @Override
+  public ByteBuffer decompress(ByteBuffer in) throws IOException {
+    return decompress(in, false);
+  }
+
+  @Override
+  protected ByteBuffer compressReusing(ByteBuffer in) throws IOException {
+    return compress(in, true);
+  }
+
+  @Override
+  protected ByteBuffer decompressReusing(ByteBuffer in) throws IOException {
+    return decompress(in, true);
+  }
+
+  private ByteBuffer compress(ByteBuffer in, boolean reuse) throws IOException {
+    if (in.isDirect()) {
+      return compressDirect(in, reuse);
+    }
+    in = toHeapBuffer(in);
     int offset = computeOffset(in);
-    ByteBuffer out = ByteBuffer.allocate(Snappy.maxCompressedLength(in.remaining()) + 4);
+    ByteBuffer out = getOutputBuffer(Snappy.maxCompressedLength(in.remaining()) + 4, reuse);
     int size = Snappy.compress(in.array(), offset, in.remaining(), out.array(), 0);
     crc32.reset();
     crc32.update(in.array(), offset, in.remaining());
@@ -63,10 +88,13 @@ public class SnappyCodec extends Codec {
     return out;
   }
 
-  @Override
-  public ByteBuffer decompress(ByteBuffer in) throws IOException {
+  private ByteBuffer decompress(ByteBuffer in, boolean reuse) throws IOException {
+    if (in.isDirect()) {
+      return decompressDirect(in, reuse);
+    }
+    in = toHeapBuffer(in);
     int offset = computeOffset(in);
-    ByteBuffer out = ByteBuffer.allocate(Snappy.uncompressedLength(in.array(), offset, in.remaining() - 4));
+    ByteBuffer out = getOutputBuffer(Snappy.uncompressedLength(in.array(), offset, in.remaining() - 4), reuse);
     int size = Snappy.uncompress(in.array(), offset, in.remaining() - 4, out.array(), 0);
     ((Buffer) out).limit(size);
 
@@ -78,6 +106,57 @@ public class SnappyCodec extends Codec {
     return out;
   }
 
+  private ByteBuffer compressDirect(ByteBuffer in, boolean reuse) throws IOException {
+    ByteBuffer out = getDirectOutputBuffer(Snappy.maxCompressedLength(in.remaining()) + 4, reuse);
+    int size = Snappy.compress(in.duplicate(), out);
+    crc32.reset();
+    crc32.update(in.duplicate());
+    ((Buffer) out).limit(size + 4);
+    out.putInt(size, (int) crc32.getValue());
+
+    return out;
+  }
+
+  private ByteBuffer decompressDirect(ByteBuffer in, boolean reuse) throws IOException {
+    ByteBuffer compressed = in.duplicate();
+    ((Buffer) compressed).limit(compressed.limit() - 4);
+    ByteBuffer out = getDirectOutputBuffer(Snappy.uncompressedLength(compressed), reuse);
+    int size = Snappy.uncompress(compressed, out);
+    ((Buffer) out).limit(size);
+
+    crc32.reset();
+    crc32.update(out.duplicate());
+    if (in.getInt(((Buffer) in).limit() - 4) != (int) crc32.getValue())
+      throw new IOException("Checksum failure");
+
+    return out;
+  }
+
+  // get an output buffer of at least the given length, limited to it; a new
+  // one unless the result may be reused.
+  private ByteBuffer getOutputBuffer(int length, boolean reuse) {
+    if (!reuse) {
+      return ByteBuffer.allocate(length);
+    }
+    if (null == outputBuffer || outputBuffer.length < length) {
+      outputBuffer = new byte[length];
+    }
+    return ByteBuffer.wrap(outputBuffer, 0, length);
+  }
+
+  // get a direct output buffer of at least the given length, limited to it.
+  private ByteBuffer getDirectOutputBuffer(int length, boolean reuse) {
+    if (!reuse) {
+      return ByteBuffer.allocateDirect(length);
+    }
+    if (null == directOutputBuffer || directOutputBuffer.capacity() < length) {
+      directOutputBuffer = ByteBuffer.allocateDirect(length);
+    }
+    ByteBuffer out = directOutputBuffer.duplicate();
+    ((Buffer) out).limit(length);
+    return out;
+  }
+
   @Override
   public int hashCode() {
     return getName().hashCode();
@@ -18,17 +18,22 @@
 package org.apache.avro.file;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
-import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
-import org.apache.commons.compress.compressors.xz.XZCompressorOutputStream;
 import org.apache.commons.compress.utils.IOUtils;
-
-/** * Implements xz compression and decompression. */
+import org.tukaani.xz.ArrayCache;
+import org.tukaani.xz.BasicArrayCache;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+/**
+ * Implements xz compression and decompression. The large LZMA2 dictionary and
+ * match finder arrays are reused across blocks through {@link ArrayCache}.
+ */
 public class XZCodec extends Codec {
   public final static int DEFAULT_COMPRESSION = 6;
 
@@ -45,7 +50,8 @@ public class XZCodec extends Codec {
     }
   }
 
-  private ByteArrayOutputStream outputBuffer;
+  private NonCopyingByteArrayOutputStream outputBuffer;
+  private LZMA2Options options;
   private int compressionLevel;
 
   public XZCodec(int compressionLevel) {
@@ -59,28 +65,55 @@ public class XZCodec extends Codec {
 
   @Override
   public ByteBuffer compress(ByteBuffer data) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
-    try (OutputStream outputStream = new XZCompressorOutputStream(baos, compressionLevel)) {
-      outputStream.write(data.array(), computeOffset(data), data.remaining());
-    }
-    return ByteBuffer.wrap(baos.toByteArray());
+    return ByteBuffer.wrap(compressToBuffer(data).toByteArray());
   }
 
   @Override
   public ByteBuffer decompress(ByteBuffer data) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
+    return ByteBuffer.wrap(decompressToBuffer(data).toByteArray());
+  }
+
+  @Override
+  protected ByteBuffer compressReusing(ByteBuffer data) throws IOException {
+    return compressToBuffer(data).getByteArrayAsByteBuffer();
+  }
+
+  @Override
+  protected ByteBuffer decompressReusing(ByteBuffer data) throws IOException {
+    return decompressToBuffer(data).getByteArrayAsByteBuffer();
+  }
+
+  private NonCopyingByteArrayOutputStream compressToBuffer(ByteBuffer data) throws IOException {
+    data = toHeapBuffer(data);
+    NonCopyingByteArrayOutputStream baos = getOutputBuffer(data.remaining());
+    try (OutputStream outputStream = new XZOutputStream(baos, getOptions(), BasicArrayCache.getInstance())) {
+      outputStream.write(data.array(), computeOffset(data), data.remaining());
+    }
+    return baos;
+  }
+
+  private NonCopyingByteArrayOutputStream decompressToBuffer(ByteBuffer data) throws IOException {
+    data = toHeapBuffer(data);
+    NonCopyingByteArrayOutputStream baos = getOutputBuffer(data.remaining());
     InputStream bytesIn = new ByteArrayInputStream(data.array(), computeOffset(data), data.remaining());
 
-    try (InputStream ios = new XZCompressorInputStream(bytesIn)) {
+    try (InputStream ios = new XZInputStream(bytesIn, -1, BasicArrayCache.getInstance())) {
       IOUtils.copy(ios, baos);
     }
-    return ByteBuffer.wrap(baos.toByteArray());
+    return baos;
+  }
+
+  private LZMA2Options getOptions() throws IOException {
+    if (null == options) {
+      options = new LZMA2Options(compressionLevel);
+    }
+    return options;
   }
 
   // get and initialize the output buffer for use.
-  private ByteArrayOutputStream getOutputBuffer(int suggestedLength) {
+  private NonCopyingByteArrayOutputStream getOutputBuffer(int suggestedLength) {
     if (null == outputBuffer) {
-      outputBuffer = new ByteArrayOutputStream(suggestedLength);
+      outputBuffer = new NonCopyingByteArrayOutputStream(suggestedLength);
     }
     outputBuffer.reset();
     return outputBuffer;
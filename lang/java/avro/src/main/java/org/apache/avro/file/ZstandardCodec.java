@@ -17,43 +17,114 @@
  */
 package org.apache.avro.file;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
-
-import org.apache.commons.compress.utils.IOUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class ZstandardCodec extends Codec {
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
 
   static class Option extends CodecFactory {
     private final int compressionLevel;
     private final boolean useChecksum;
+    private final byte[] dictionary;
 
-    Option(int compressionLevel, boolean useChecksum) {
+    Option(int compressionLevel, boolean useChecksum, byte[] dictionary) {
       this.compressionLevel = compressionLevel;
       this.useChecksum = useChecksum;
+      this.dictionary = dictionary;
+    }
+
+    int getCompressionLevel() {
+      return compressionLevel;
+    }
+
+    byte[] getDictionary() {
+      return dictionary;
     }
 
     @Override
     protected Codec createInstance() {
-      return new ZstandardCodec(compressionLevel, useChecksum);
+      return new ZstandardCodec(compressionLevel, useChecksum, dictionary);
     }
   }
 
   private final int compressionLevel;
   private final boolean useChecksum;
-  private ByteArrayOutputStream outputBuffer;
+  private final byte[] dictionary;
+  private ZstandardLoader.Compressor compressor;
+  private ZstandardLoader.Decompressor decompressor;
+  private byte[] outputBuffer;
+  private ByteBuffer directOutputBuffer;
 
   /**
    * Create a ZstandardCodec instance with the given compressionLevel and checksum
    * option
    **/
   public ZstandardCodec(int compressionLevel, boolean useChecksum) {
+    this(compressionLevel, useChecksum, null);
+  }
+
+  /**
+   * Create a ZstandardCodec instance that compresses every block with a
+   * dictionary, such as one returned by {@link #trainDictionary(Iterable, int)}.
+   * The same dictionary is needed to decompress the blocks.
+   **/
+  public ZstandardCodec(int compressionLevel, boolean useChecksum, byte[] dictionary) {
     this.compressionLevel = compressionLevel;
     this.useChecksum = useChecksum;
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Train a dictionary from sample blocks, e.g. the uncompressed blocks of an
+   * existing file (see {@link #trainDictionary(DataFileStream, int)}).
+   * Dictionaries help most when blocks are small and similar to each other, as
+   * each block otherwise starts with no history to match against. Training
+   * works best with a few hundred samples holding about a hundred times the
+   * dictionary size in total.
+   *
+   * @param samples        the sample blocks
+   * @param dictionarySize the maximum size of the dictionary, in bytes
+   * @throws IOException if there are too few samples to train from
+   */
+  public static byte[] trainDictionary(Iterable<ByteBuffer> samples, int dictionarySize) throws IOException {
+    List<byte[]> sampleArrays = new ArrayList<>();
+    for (ByteBuffer sample : samples) {
+      byte[] bytes = new byte[sample.remaining()];
+      sample.duplicate().get(bytes);
+      sampleArrays.add(bytes);
+    }
+    return ZstandardLoader.trainDictionary(sampleArrays, dictionarySize);
+  }
+
+  /**
+   * Train a dictionary from the blocks of a data file, reading at most a hundred
+   * times the dictionary size of uncompressed data.
+   *
+   * @see #trainDictionary(Iterable, int)
+   */
+  public static byte[] trainDictionary(DataFileStream<?> file, int dictionarySize) throws IOException {
+    List<ByteBuffer> samples = new ArrayList<>();
+    long remaining = dictionarySize * 100L;
+    while (remaining > 0 && file.hasNext()) {
+      ByteBuffer block = file.nextBlock();
+      // blocks are reused, so copy them
+      ByteBuffer copy = ByteBuffer.allocate(block.remaining());
+      copy.put(block.duplicate());
+      ((Buffer) copy).flip();
+      samples.add(copy);
+      remaining -= copy.remaining();
+    }
+    return trainDictionary(samples, dictionarySize);
+  }
+
+  /** The dictionary used by this codec, or null if none. */
+  public byte[] getDictionary() {
+    return dictionary;
   }
 
   @Override
@@ -63,33 +134,122 @@ public class ZstandardCodec extends Codec {
 
   @Override
   public ByteBuffer compress(ByteBuffer data) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(data.remaining());
-    try (OutputStream outputStream = ZstandardLoader.output(baos, compressionLevel, useChecksum)) {
-      outputStream.write(data.array(), computeOffset(data), data.remaining());
-    }
-    return ByteBuffer.wrap(baos.toByteArray());
+    return compress(data, false);
   }
 
   @Override
   public ByteBuffer decompress(ByteBuffer compressedData) throws IOException {
-    ByteArrayOutputStream baos = getOutputBuffer(compressedData.remaining());
-    InputStream bytesIn = new ByteArrayInputStream(compressedData.array(), computeOffset(compressedData),
-        compressedData.remaining());
-    try (InputStream ios = ZstandardLoader.input(bytesIn)) {
-      IOUtils.copy(ios, baos);
+    return decompress(compressedData, false);
+  }
+
+  @Override
+  protected ByteBuffer compressReusing(ByteBuffer data) throws IOException {
+    return compress(data, true);
+  }
+
+  @Override
+  protected ByteBuffer decompressReusing(ByteBuffer compressedData) throws IOException {
+    return decompress(compressedData, true);
+  }
+
+  private ByteBuffer compress(ByteBuffer data, boolean reuse) throws IOException {
+    if (compressor == null) {
+      compressor = ZstandardLoader.compressor(compressionLevel, useChecksum, dictionary);
+    }
+    if (data.isDirect()) {
+      ByteBuffer out = getDirectOutputBuffer(compressor.maxCompressedLength(data.remaining()), reuse);
+      ((Buffer) out).limit(compressor.compress(data, out));
+      return out;
     }
-    return ByteBuffer.wrap(baos.toByteArray());
+    data = toHeapBuffer(data);
+    byte[] out = getOutputBuffer(compressor.maxCompressedLength(data.remaining()), reuse);
+    int size = compressor.compress(data.array(), computeOffset(data), data.remaining(), out);
+    return ByteBuffer.wrap(out, 0, size);
   }
 
-  // get and initialize the output buffer for use.
-  private ByteArrayOutputStream getOutputBuffer(int suggestedLength) {
-    if (outputBuffer == null) {
-      outputBuffer = new ByteArrayOutputStream(suggestedLength);
+  private ByteBuffer decompress(ByteBuffer compressedData, boolean reuse) throws IOException {
+    if (decompressor == null) {
+      decompressor = ZstandardLoader.decompressor(dictionary);
+    }
+    // blocks compressed by this codec record their decompressed size, but those
+    // written by the streaming encoder do not, so grow the output buffer until
+    // it fits
+    if (compressedData.isDirect()) {
+      ByteBuffer out = getDirectOutputBuffer(
+          initialSize(compressedData, decompressor.decompressedSize(compressedData)), reuse);
+      int size;
+      while ((size = decompressor.decompress(compressedData, out)) < 0) {
+        out = getDirectOutputBuffer(grow(out.limit()), reuse);
+      }
+      ((Buffer) out).limit(size);
+      return out;
+    }
+    compressedData = toHeapBuffer(compressedData);
+    byte[] src = compressedData.array();
+    int offset = computeOffset(compressedData);
+    int length = compressedData.remaining();
+    byte[] out = getOutputBuffer(initialSize(compressedData, decompressor.decompressedSize(src, offset, length)),
+        reuse);
+    int size;
+    while ((size = decompressor.decompress(src, offset, length, out)) < 0) {
+      out = getOutputBuffer(grow(out.length), reuse);
+    }
+    return ByteBuffer.wrap(out, 0, size);
+  }
+
+  // the recorded decompressed size if any, else a guess
+  private static int initialSize(ByteBuffer compressedData, long recordedSize) {
+    if (recordedSize > 0) {
+      return (int) Math.min(recordedSize, MAX_BUFFER_SIZE);
+    }
+    return (int) Math.min(Math.max(compressedData.remaining() * 4L, 1024), MAX_BUFFER_SIZE);
+  }
+
+  private static int grow(int size) throws IOException {
+    if (size >= MAX_BUFFER_SIZE) {
+      throw new IOException("Decompressed block too large for this implementation");
+    }
+    return (int) Math.min(size * 2L, MAX_BUFFER_SIZE);
+  }
+
+  // get an output buffer of at least the given length; a new one unless the
+  // result may be reused.
+  private byte[] getOutputBuffer(int length, boolean reuse) {
+    if (!reuse) {
+      return new byte[length];
+    }
+    if (outputBuffer == null || outputBuffer.length < length) {
+      outputBuffer = new byte[length];
     }
-    outputBuffer.reset();
     return outputBuffer;
   }
 
+  // get a direct output buffer of at least the given length, limited to it.
+  private ByteBuffer getDirectOutputBuffer(int length, boolean reuse) {
+    if (!reuse) {
+      return ByteBuffer.allocateDirect(length);
+    }
+    if (directOutputBuffer == null || directOutputBuffer.capacity() < length) {
+      directOutputBuffer = ByteBuffer.allocateDirect(length);
+    }
+    ByteBuffer out = directOutputBuffer.duplicate();
+    ((Buffer) out).limit(length);
+    return out;
+  }
+
+  /** Frees the native compression and decompression contexts and dictionaries. */
+  @Override
+  public void close() {
+    if (compressor != null) {
+      compressor.close();
+      compressor = null;
+    }
+    if (decompressor != null) {
+      decompressor.close();
+      decompressor = null;
+    }
+  }
+
   @Override
   public int hashCode() {
     return getName().hashCode();
@@ -97,7 +257,9 @@ public class ZstandardCodec extends Codec {
 
   @Override
   public boolean equals(Object obj) {
-    return (this == obj) || (obj != null && obj.getClass() == this.getClass());
+    // blocks compressed with a dictionary can only be read with the same one
+    return (this == obj) || (obj != null && obj.getClass() == this.getClass()
+        && Arrays.equals(dictionary, ((ZstandardCodec) obj).dictionary));
   }
 
   @Override
@@ -18,27 +18,148 @@
 package org.apache.avro.file;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
 
 import com.github.luben.zstd.Zstd;
-import com.github.luben.zstd.ZstdInputStream;
-import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
 
 /* causes lazier classloader initialization of ZStandard libraries, so that
  * we get NoClassDefFoundError when we try and use the Codec's compress
  * or decompress methods rather than when we instantiate it */
 final class ZstandardLoader {
 
-  static InputStream input(InputStream compressed) throws IOException {
-    return new ZstdInputStream(compressed);
+  static Compressor compressor(int level, boolean checksum, byte[] dictionary) {
+    return new Compressor(level, checksum, dictionary);
   }
 
-  static OutputStream output(OutputStream compressed, int level, boolean checksum) throws IOException {
-    int bounded = Math.max(Math.min(level, Zstd.maxCompressionLevel()), Zstd.minCompressionLevel());
-    ZstdOutputStream zstdOutputStream = new ZstdOutputStream(compressed, bounded);
-    zstdOutputStream.setCloseFrameOnFlush(false);
-    zstdOutputStream.setChecksum(checksum);
-    return zstdOutputStream;
+  static Decompressor decompressor(byte[] dictionary) {
+    return new Decompressor(dictionary);
+  }
+
+  static byte[] trainDictionary(List<byte[]> samples, int dictionarySize) throws IOException {
+    byte[] dictionary = new byte[dictionarySize];
+    long size = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictionary);
+    if (Zstd.isError(size)) {
+      throw new IOException("Could not train dictionary: " + Zstd.getErrorName(size));
+    }
+    return size == dictionarySize ? dictionary : Arrays.copyOf(dictionary, (int) size);
+  }
+
+  private static int boundedLevel(int level) {
+    return Math.max(Math.min(level, Zstd.maxCompressionLevel()), Zstd.minCompressionLevel());
+  }
+
+  /** A compression context, reused for every block until closed. */
+  static final class Compressor {
+    private final ZstdCompressCtx ctx = new ZstdCompressCtx();
+    private final ZstdDictCompress dict;
+
+    private Compressor(int level, boolean checksum, byte[] dictionary) {
+      ctx.setLevel(boundedLevel(level));
+      ctx.setChecksum(checksum);
+      dict = dictionary == null ? null : new ZstdDictCompress(dictionary, boundedLevel(level));
+      if (dict != null) {
+        ctx.loadDict(dict);
+      }
+    }
+
+    int maxCompressedLength(int length) {
+      return (int) Zstd.compressBound(length);
+    }
+
+    /** Compress into a single frame, returning its size. */
+    int compress(byte[] src, int srcOffset, int srcLength, byte[] dst) throws IOException {
+      try {
+        return ctx.compressByteArray(dst, 0, dst.length, src, srcOffset, srcLength);
+      } catch (ZstdException e) {
+        throw new IOException(e);
+      }
+    }
+
+    /** Compress between direct buffers, returning the compressed size. */
+    int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      try {
+        return ctx.compressDirectByteBuffer(dst, dst.position(), dst.remaining(), src, src.position(), src.remaining());
+      } catch (ZstdException e) {
+        throw new IOException(e);
+      }
+    }
+
+    /** Free the native context and dictionary. */
+    void close() {
+      ctx.close();
+      if (dict != null) {
+        dict.close();
+      }
+    }
+  }
+
+  /** A decompression context, reused for every block until closed. */
+  static final class Decompressor {
+    private final ZstdDecompressCtx ctx = new ZstdDecompressCtx();
+    private final ZstdDictDecompress dict;
+
+    private Decompressor(byte[] dictionary) {
+      dict = dictionary == null ? null : new ZstdDictDecompress(dictionary);
+      if (dict != null) {
+        ctx.loadDict(dict);
+      }
+    }
+
+    /**
+     * The decompressed size recorded in the first frame of the source, or 0 if it
+     * is not recorded.
+     */
+    long decompressedSize(byte[] src, int srcOffset, int srcLength) {
+      return Zstd.decompressedSize(src, srcOffset, srcLength);
+    }
+
+    /** Like the array version, for a direct buffer. */
+    long decompressedSize(ByteBuffer src) {
+      return Zstd.decompressedDirectByteBufferSize(src, src.position(), src.remaining());
+    }
+
+    /**
+     * Decompress all frames in the source, returning the decompressed size, or -1
+     * if the destination is too small.
+     */
+    int decompress(byte[] src, int srcOffset, int srcLength, byte[] dst) throws IOException {
+      try {
+        return ctx.decompressByteArray(dst, 0, dst.length, src, srcOffset, srcLength);
+      } catch (ZstdException e) {
+        return checkDstSize(e);
+      }
+    }
+
+    /** Decompress between direct buffers, like the array version. */
+    int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      try {
+        return ctx.decompressDirectByteBuffer(dst, dst.position(), dst.remaining(), src, src.position(),
+            src.remaining());
+      } catch (ZstdException e) {
+        return checkDstSize(e);
+      }
+    }
+
+    private static int checkDstSize(ZstdException e) throws IOException {
+      if (e.getErrorCode() == Zstd.errDstSizeTooSmall()) {
+        return -1;
+      }
+      throw new IOException(e);
+    }
+
+    /** Free the native context and dictionary. */
+    void close() {
+      ctx.close();
+      if (dict != null) {
+        dict.close();
+      }
+    }
   }
 }
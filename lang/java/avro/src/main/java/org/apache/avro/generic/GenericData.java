@@ -33,6 +33,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.avro.AvroMissingFieldException;
 import org.apache.avro.AvroRuntimeException;
@@ -53,6 +54,8 @@ import org.apache.avro.io.DatumWriter;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.FastWriterBuilder;
+import org.apache.avro.io.parsing.ResolutionCache;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.internal.Accessor;
 
@@ -66,6 +69,9 @@ import com.fasterxml.jackson.databind.JsonNode;
  */
 public class GenericData {
 
+  // ahead of INSTANCE, which takes a stamp when constructed
+  private static final AtomicLong CONVERSION_STAMPS = new AtomicLong();
+
   private static final GenericData INSTANCE = new GenericData();
 
   /** Used to specify the Java type for a string schema. */
@@ -76,6 +82,20 @@ public class GenericData {
   public static final String STRING_PROP = "avro.java.string";
   protected static final String STRING_TYPE_STRING = "String";
 
+  /**
+   * When true on a string schema, or on a map schema for its keys, readers
+   * return the strings of that field as {@link String}s cached by a
+   * {@link org.apache.avro.util.StringInterner}, so that repeated values are
+   * neither decoded nor allocated again.
+   */
+  public static final String STRING_INTERN_PROP = "avro.java.string.intern";
+
+  /** Return true if {@link #STRING_INTERN_PROP} is set on a schema. */
+  public static boolean isStringInterned(Schema schema) {
+    Object value = schema.getObjectProp(STRING_INTERN_PROP);
+    return Boolean.TRUE.equals(value) || "true".equals(value);
+  }
+
   private final ClassLoader classLoader;
 
   /**
@@ -124,7 +144,18 @@ public class GenericData {
    * @param conversion a logical type Conversion.
    */
   public void addLogicalTypeConversion(Conversion<?> conversion) {
+    // union branches are chosen by conversion first, so forget earlier choices
+    conversionStamp = CONVERSION_STAMPS.incrementAndGet();
     conversions.put(conversion.getLogicalTypeName(), conversion);
+    // resolved actions and compiled readers and writers carry the conversion
+    // chosen for each schema
+    ResolutionCache.forget(this);
+    if (fastReaderBuilder != null) {
+      fastReaderBuilder.clearCompiledReaders();
+    }
+    if (fastWriterBuilder != null) {
+      fastWriterBuilder.clearCompiledWriters();
+    }
     Class<?> type = conversion.getConvertedType();
     if (conversionsByClass.containsKey(type)) {
       conversionsByClass.get(type).put(conversion.getLogicalTypeName(), conversion);
@@ -190,16 +221,72 @@ public class GenericData {
   }
 
   public boolean isFastReaderEnabled() {
-    return fastReaderEnabled && FastReaderBuilder.isSupportedData(this);
+    return fastReaderEnabled && isFastReaderSupported();
+  }
+
+  /**
+   * Whether this data model can be read by {@link FastReaderBuilder}. Subclasses
+   * whose customizations are honored by the builder returned from
+   * {@link #createFastReaderBuilder()} may override this to return true.
+   */
+  protected boolean isFastReaderSupported() {
+    return FastReaderBuilder.isSupportedData(this);
+  }
+
+  /**
+   * Called once to create the {@link FastReaderBuilder} for this data model.
+   * Subclasses may override this to return a builder that reads their own value
+   * representations.
+   */
+  protected FastReaderBuilder createFastReaderBuilder() {
+    return new FastReaderBuilder(this);
   }
 
   public FastReaderBuilder getFastReaderBuilder() {
     if (fastReaderBuilder == null) {
-      fastReaderBuilder = new FastReaderBuilder(this);
+      fastReaderBuilder = createFastReaderBuilder();
     }
     return this.fastReaderBuilder;
   }
 
+  public static final String FAST_WRITER_PROP = "org.apache.avro.fastwrite";
+  private boolean fastWriterEnabled = "true".equalsIgnoreCase(System.getProperty(FAST_WRITER_PROP));
+  private FastWriterBuilder fastWriterBuilder = null;
+
+  public GenericData setFastWriterEnabled(boolean flag) {
+    this.fastWriterEnabled = flag;
+    return this;
+  }
+
+  public boolean isFastWriterEnabled() {
+    return fastWriterEnabled && isFastWriterSupported();
+  }
+
+  /**
+   * Whether this data model can be written by {@link FastWriterBuilder}.
+   * Subclasses whose customizations are honored by the builder returned from
+   * {@link #createFastWriterBuilder()} may override this to return true.
+   */
+  protected boolean isFastWriterSupported() {
+    return FastWriterBuilder.isSupportedData(this);
+  }
+
+  /**
+   * Called once to create the {@link FastWriterBuilder} for this data model.
+   * Subclasses may override this to return a builder that writes their own value
+   * representations.
+   */
+  protected FastWriterBuilder createFastWriterBuilder() {
+    return new FastWriterBuilder(this);
+  }
+
+  public FastWriterBuilder getFastWriterBuilder() {
+    if (fastWriterBuilder == null) {
+      fastWriterBuilder = createFastWriterBuilder();
+    }
+    return this.fastWriterBuilder;
+  }
+
   /**
    * Default implementation of {@link GenericRecord}. Note that this
    * implementation does not fill in default values for fields if they are not
@@ -292,30 +379,19 @@ public class GenericData {
     }
   }
 
-  /** Default implementation of an array. */
-  @SuppressWarnings(value = "unchecked")
-  public static class Array<T> extends AbstractList<T> implements GenericArray<T>, Comparable<GenericArray<T>> {
-    private static final Object[] EMPTY = new Object[0];
+  /**
+   * Base class of the array implementations: {@link Array} and the arrays of
+   * numbers in {@link PrimitivesArrays}.
+   */
+  public static abstract class AbstractArray<T> extends AbstractList<T>
+      implements GenericArray<T>, Comparable<GenericArray<T>> {
     private final Schema schema;
-    private int size;
-    private Object[] elements = EMPTY;
-
-    public Array(int capacity, Schema schema) {
-      if (schema == null || !Type.ARRAY.equals(schema.getType()))
-        throw new AvroRuntimeException("Not an array schema: " + schema);
-      this.schema = schema;
-      if (capacity != 0)
-        elements = new Object[capacity];
-    }
+    protected int size;
 
-    public Array(Schema schema, Collection<T> c) {
+    protected AbstractArray(Schema schema) {
       if (schema == null || !Type.ARRAY.equals(schema.getType()))
         throw new AvroRuntimeException("Not an array schema: " + schema);
       this.schema = schema;
-      if (c != null) {
-        elements = new Object[c.size()];
-        addAll(c);
-      }
     }
 
     @Override
@@ -329,14 +405,40 @@ public class GenericData {
     }
 
     @Override
-    public void clear() {
-      // Let GC do its work
-      Arrays.fill(elements, 0, size, null);
+    public void reset() {
       size = 0;
     }
 
     @Override
-    public void reset() {
+    public int compareTo(GenericArray<T> that) {
+      return GenericData.get().compare(this, that, this.getSchema());
+    }
+  }
+
+  /** Default implementation of an array. */
+  @SuppressWarnings(value = "unchecked")
+  public static class Array<T> extends AbstractArray<T> {
+    private static final Object[] EMPTY = new Object[0];
+    private Object[] elements = EMPTY;
+
+    public Array(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new Object[capacity];
+    }
+
+    public Array(Schema schema, Collection<T> c) {
+      super(schema);
+      if (c != null) {
+        elements = new Object[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public void clear() {
+      // Let GC do its work
+      Arrays.fill(elements, 0, size, null);
       size = 0;
     }
 
@@ -416,11 +518,6 @@ public class GenericData {
       return (size < elements.length) ? (T) elements[size] : null;
     }
 
-    @Override
-    public int compareTo(GenericArray<T> that) {
-      return GenericData.get().compare(this, that, this.getSchema());
-    }
-
     @Override
     public void reverse() {
       int left = 0;
@@ -847,11 +944,91 @@ public class GenericData {
     return getField(record, name, pos);
   }
 
+  /**
+   * Tells the union branches chosen by this model apart from those chosen by
+   * others, or by this one before a conversion was added.
+   */
+  private volatile long conversionStamp = CONVERSION_STAMPS.incrementAndGet();
+
+  /** Most models in use at once share a union; beyond that, older choices are dropped. */
+  private static final int MAX_UNION_BRANCHES = 4;
+
+  /** The branch chosen for a class of datum by a model, then those of other models. */
+  private static final class UnionBranch {
+    final long stamp;
+    final int index;
+    final UnionBranch next;
+    final int depth;
+
+    UnionBranch(long stamp, int index, UnionBranch next) {
+      this.stamp = stamp;
+      this.index = index;
+      this.next = next == null || next.depth >= MAX_UNION_BRANCHES ? null : next;
+      this.depth = this.next == null ? 1 : this.next.depth + 1;
+    }
+  }
+
+  private static final class UnionBranchSlot {
+    volatile UnionBranch branch;
+  }
+
+  /** Kept on each union schema, per class of datum. */
+  private static final class UnionBranches extends ClassValue<UnionBranchSlot> {
+    @Override
+    protected UnionBranchSlot computeValue(Class<?> type) {
+      return new UnionBranchSlot();
+    }
+  }
+
   /**
    * Return the index for a datum within a union. Implemented with
    * {@link Schema#getIndexNamed(String)} and {@link #getSchemaName(Object)}.
+   * When {@link #isUnionBranchPerClass(Object)} holds for the datum, the index is
+   * remembered on the union per class of datum.
    */
   public int resolveUnion(Schema union, Object datum) {
+    if ((datum != null && !isUnionBranchPerClass(datum)) || union.getType() != Schema.Type.UNION) {
+      return resolveUnionUncached(union, datum);
+    }
+    UnionBranches branches = (UnionBranches) Accessor.getUnionBranchCache(union);
+    if (branches == null) {
+      branches = new UnionBranches();
+      Accessor.setUnionBranchCache(union, branches);
+    }
+    UnionBranchSlot slot = branches.get(datum == null ? Void.class : datum.getClass());
+    UnionBranch first = slot.branch;
+    long stamp = conversionStamp;
+    for (UnionBranch branch = first; branch != null; branch = branch.next) {
+      if (branch.stamp == stamp) {
+        return branch.index;
+      }
+    }
+    int index = resolveUnionUncached(union, datum);
+    slot.branch = new UnionBranch(stamp, index, first);
+    return index;
+  }
+
+  /**
+   * Whether every datum of this datum's class resolves to the same branch of a
+   * given union, so that {@link #resolveUnion(Schema, Object)} may remember the
+   * branch by class. Subclasses may tell data apart by more than their class,
+   * e.g. by a schema held in each instance, so this is false unless a model
+   * opts in by overriding it. GenericData itself does so for data other than
+   * records, enums and fixed values.
+   */
+  protected boolean isUnionBranchPerClass(Object datum) {
+    return getClass() == GenericData.class && hasSchemaPerClass(datum);
+  }
+
+  /**
+   * Whether GenericData derives the schema of a datum from its class alone:
+   * false for containers such as records, whose schema is held by the instance.
+   */
+  protected static boolean hasSchemaPerClass(Object datum) {
+    return !(datum instanceof GenericContainer) || datum instanceof GenericArray;
+  }
+
+  private int resolveUnionUncached(Schema union, Object datum) {
     // if there is a logical type that works, use it first
     // this allows logical type concrete classes to overlap with supported ones
     // for example, a conversion could return a map
@@ -1365,7 +1542,8 @@ public class GenericData {
   /*
    * Called to create new array instances. Subclasses may override to use a
    * different array implementation. By default, this returns a {@link
-   * GenericData.Array}.
+   * GenericData.Array}, or for arrays of unconverted ints, longs, floats or
+   * doubles one of the unboxed arrays in {@link PrimitivesArrays}.
    */
   public Object newArray(Object old, int size, Schema schema) {
     if (old instanceof GenericArray) {
@@ -1374,8 +1552,23 @@ public class GenericData {
     } else if (old instanceof Collection) {
       ((Collection<?>) old).clear();
       return old;
-    } else
-      return new GenericData.Array<Object>(size, schema);
+    }
+    Schema elementType = schema.getElementType();
+    if (getConversionFor(elementType.getLogicalType()) == null) {
+      switch (elementType.getType()) {
+      case INT:
+        return new PrimitivesArrays.IntArray(size, schema);
+      case LONG:
+        return new PrimitivesArrays.LongArray(size, schema);
+      case FLOAT:
+        return new PrimitivesArrays.FloatArray(size, schema);
+      case DOUBLE:
+        return new PrimitivesArrays.DoubleArray(size, schema);
+      default:
+        break;
+      }
+    }
+    return new GenericData.Array<Object>(size, schema);
   }
 
   /**
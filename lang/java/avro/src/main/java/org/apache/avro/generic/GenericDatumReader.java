@@ -36,6 +36,7 @@ import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.ResolvingDecoder;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.WeakIdentityHashMap;
 
@@ -111,7 +112,8 @@ public class GenericDatumReader<D> implements DatumReader<D> {
   /**
    * Gets a resolving decoder for use by this GenericDatumReader. Unstable API.
    * Currently uses a thread local cache to prevent constructing the resolvers too
-   * often, because that is very expensive.
+   * often, because that is very expensive. The resolving grammar they share is
+   * cached across threads by {@link org.apache.avro.io.parsing.ResolutionCache}.
    */
   protected final ResolvingDecoder getResolver(Schema actual, Schema expected) throws IOException {
     Thread currThread = Thread.currentThread();
@@ -287,6 +289,15 @@ public class GenericDatumReader<D> implements DatumReader<D> {
       LogicalType logicalType = expectedType.getLogicalType();
       Conversion<?> conversion = getData().getConversionFor(logicalType);
       Object array = newArray(old, (int) l, expected);
+      if (conversion == null && array instanceof PrimitivesArrays.PrimitiveArray
+          && ((PrimitivesArrays.PrimitiveArray<?>) array).getElementType() == expectedType.getType()) {
+        // read unboxed numbers in bulk
+        PrimitivesArrays.PrimitiveArray<?> primitives = (PrimitivesArrays.PrimitiveArray<?>) array;
+        do {
+          primitives.readItems(in, (int) l);
+        } while ((l = in.arrayNext()) > 0);
+        return array;
+      }
       do {
         if (logicalType != null && conversion != null) {
           for (long i = 0; i < l; i++) {
@@ -452,6 +463,12 @@ public class GenericDatumReader<D> implements DatumReader<D> {
    */
   protected Object readString(Object old, Schema expected, Decoder in) throws IOException {
     Class stringClass = getStringClass(expected);
+    StringInterner interner = getStringInterner(expected);
+    if (interner != null) {
+      String s = in.readInternedString(interner);
+      return stringClass == String.class || stringClass == CharSequence.class ? s
+          : newInstanceFromString(stringClass, s);
+    }
     if (stringClass == String.class) {
       return in.readString();
     }
@@ -508,6 +525,18 @@ public class GenericDatumReader<D> implements DatumReader<D> {
     return c;
   }
 
+  private Map<Schema, StringInterner> stringInternerCache = new IdentityHashMap<>();
+
+  // null unless strings of the schema are interned
+  private StringInterner getStringInterner(Schema s) {
+    StringInterner interner = stringInternerCache.get(s);
+    if (interner == null && !stringInternerCache.containsKey(s)) {
+      interner = GenericData.isStringInterned(s) ? new StringInterner() : null;
+      stringInternerCache.put(s, interner);
+    }
+    return interner;
+  }
+
   private final Map<Class, Constructor> stringCtorCache = new HashMap<>();
 
   @SuppressWarnings("unchecked")
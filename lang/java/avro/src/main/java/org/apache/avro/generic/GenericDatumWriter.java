@@ -40,6 +40,7 @@ import org.apache.avro.io.Encoder;
 public class GenericDatumWriter<D> implements DatumWriter<D> {
   private final GenericData data;
   private Schema root;
+  private DatumWriter<D> fastDatumWriter = null;
 
   public GenericDatumWriter() {
     this(GenericData.get());
@@ -66,10 +67,18 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
 
   public void setSchema(Schema root) {
     this.root = root;
+    this.fastDatumWriter = null;
   }
 
   public void write(D datum, Encoder out) throws IOException {
     Objects.requireNonNull(out, "Encoder cannot be null");
+    if (data.isFastWriterEnabled()) {
+      if (this.fastDatumWriter == null) {
+        this.fastDatumWriter = data.getFastWriterBuilder().createDatumWriter(root);
+      }
+      fastDatumWriter.write(datum, out);
+      return;
+    }
     write(root, datum, out);
   }
 
@@ -252,6 +261,14 @@ public class GenericDatumWriter<D> implements DatumWriter<D> {
     long actualSize = 0;
     out.writeArrayStart();
     out.setItemCount(size);
+    if (datum instanceof PrimitivesArrays.PrimitiveArray
+        && ((PrimitivesArrays.PrimitiveArray<?>) datum).getElementType() == element.getType()
+        && getData().getConversionFor(element.getLogicalType()) == null) {
+      // write unboxed numbers in bulk
+      ((PrimitivesArrays.PrimitiveArray<?>) datum).writeItems(out);
+      out.writeArrayEnd();
+      return;
+    }
     for (Iterator<? extends Object> it = getArrayElements(datum); it.hasNext();) {
       out.startItem();
       write(element, it.next(), out);
@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Resolver;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.io.BinaryData;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.SchemaSkipper;
+import org.apache.avro.io.parsing.ResolutionCache;
+
+/**
+ * A record that decodes its fields from their binary encoding only when they
+ * are first accessed, for reading a few fields of wide records.
+ *
+ * The bytes of each record are scanned, by skipping the writer's fields, only
+ * as far as the fields accessed so far, and each field is decoded and resolved
+ * to the reader's schema on its first {@link #get(int)}. Records are created by
+ * a {@link Reader}, which does the schema resolution once for all records.
+ *
+ * A record refers to the bytes it was read from, which must not change while it
+ * is in use. Like datum readers, records and their reader are not thread safe.
+ */
+public class LazyGenericRecord implements GenericRecord, Comparable<LazyGenericRecord> {
+
+  /** Reads {@link LazyGenericRecord}s written with a schema. */
+  public static class Reader {
+    private final Schema reader;
+    private final GenericData data;
+    private final Schema[] writerSchemas;
+    private final SchemaSkipper[] skippers;
+    // the writer field of each reader field, or -1 if it takes its default
+    private final int[] writerPos;
+    private final DatumReader<?>[] fieldReaders;
+    private int[] projection = new int[0];
+    private BinaryDecoder decoder;
+
+    public Reader(Schema schema) {
+      this(schema, schema, GenericData.get());
+    }
+
+    public Reader(Schema writer, Schema reader) {
+      this(writer, reader, GenericData.get());
+    }
+
+    public Reader(Schema writer, Schema reader, GenericData data) {
+      Resolver.Action action = ResolutionCache.getAction(writer, reader, data);
+      if (!(action instanceof Resolver.RecordAdjust)) {
+        throw new AvroTypeException("Cannot read " + writer.getFullName() + " as a record: " + action);
+      }
+      Resolver.RecordAdjust adjust = (Resolver.RecordAdjust) action;
+      this.reader = reader;
+      this.data = data;
+      List<Field> writerFields = writer.getFields();
+      this.writerSchemas = new Schema[writerFields.size()];
+      this.skippers = new SchemaSkipper[writerSchemas.length];
+      for (int i = 0; i < writerSchemas.length; i++) {
+        writerSchemas[i] = writerFields.get(i).schema();
+        skippers[i] = SchemaSkipper.get(writerSchemas[i]);
+      }
+      this.writerPos = new int[reader.getFields().size()];
+      Arrays.fill(writerPos, -1);
+      this.fieldReaders = new DatumReader<?>[writerPos.length];
+      int next = 0;
+      for (int i = 0; i < adjust.fieldActions.length; i++) {
+        if (!(adjust.fieldActions[i] instanceof Resolver.Skip)) {
+          Field readerField = adjust.readerOrder[next++];
+          writerPos[readerField.pos()] = i;
+          fieldReaders[readerField.pos()] = fieldReader(writerSchemas[i], readerField.schema(), data);
+        }
+      }
+    }
+
+    /**
+     * A reader compiled by the model's {@link FastReaderBuilder}, so that fields
+     * are not each read through a resolving decoder set up again per value.
+     * Models the builder does not support are read as by
+     * {@link GenericDatumReader}.
+     */
+    private static DatumReader<?> fieldReader(Schema writer, Schema reader, GenericData data) {
+      if (!data.isFastReaderSupported()) {
+        return new GenericDatumReader<>(writer, reader, data);
+      }
+      try {
+        return data.getFastReaderBuilder().createDatumReader(writer, reader);
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+
+    /** The schema of the records read. */
+    public Schema getSchema() {
+      return reader;
+    }
+
+    /**
+     * Set the fields that are decoded as soon as a record is read, in a single
+     * pass over its bytes, rather than on first access. Other fields remain
+     * available on demand. The default is none.
+     */
+    public Reader setProjection(Collection<String> fieldNames) {
+      // decoded in the order of the writer's fields, so the bytes are scanned once
+      this.projection = fieldNames.stream().map(name -> {
+        Field field = reader.getField(name);
+        if (field == null) {
+          throw new AvroRuntimeException("Not a valid schema field: " + name);
+        }
+        return field.pos();
+      }).sorted(Comparator.comparingInt(pos -> writerPos[pos])).mapToInt(Integer::intValue).toArray();
+      return this;
+    }
+
+    /** Read a record from its binary encoding. */
+    public LazyGenericRecord read(byte[] bytes, int start, int length) {
+      LazyGenericRecord record = new LazyGenericRecord(this, bytes, start, start + length);
+      for (int pos : projection) {
+        record.get(pos);
+      }
+      return record;
+    }
+
+    /** Read a record from its binary encoding. */
+    public LazyGenericRecord read(byte[] bytes) {
+      return read(bytes, 0, bytes.length);
+    }
+
+    private Object decode(int field, byte[] bytes, int start, int end) {
+      decoder = DecoderFactory.get().binaryDecoder(bytes, start, end - start, decoder);
+      try {
+        return fieldReaders[field].read(null, decoder);
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+
+    /** The position after the value last decoded, in bytes ending at end. */
+    private int decodedEnd(int end) {
+      try {
+        // the decoder buffers exactly the bytes it has not read yet
+        return end - decoder.inputStream().available();
+      } catch (IOException e) {
+        throw new AvroRuntimeException(e);
+      }
+    }
+  }
+
+  // marks fields that have not been decoded yet
+  private static final Object UNREAD = new Object();
+
+  private final Reader reader;
+  private final byte[] bytes;
+  private final int end;
+  private final Object[] values;
+  // the start of each writer field, known up to the field at scanned
+  private final int[] offsets;
+  private int scanned;
+
+  private LazyGenericRecord(Reader reader, byte[] bytes, int start, int end) {
+    this.reader = reader;
+    this.bytes = bytes;
+    this.end = end;
+    this.values = new Object[reader.writerPos.length];
+    Arrays.fill(values, UNREAD);
+    this.offsets = new int[reader.writerSchemas.length + 1];
+    this.offsets[0] = start;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return reader.reader;
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    values[fieldPos(key)] = value;
+  }
+
+  @Override
+  public void put(int i, Object v) {
+    values[i] = v;
+  }
+
+  @Override
+  public Object get(String key) {
+    return get(fieldPos(key));
+  }
+
+  @Override
+  public Object get(int i) {
+    Object value = values[i];
+    if (value == UNREAD) {
+      value = values[i] = decode(i);
+    }
+    return value;
+  }
+
+  private int fieldPos(String key) {
+    Field field = reader.reader.getField(key);
+    if (field == null) {
+      throw new AvroRuntimeException("Not a valid schema field: " + key);
+    }
+    return field.pos();
+  }
+
+  private Object decode(int i) {
+    int w = reader.writerPos[i];
+    if (w < 0) {
+      Field field = reader.reader.getFields().get(i);
+      return reader.data.deepCopy(field.schema(), reader.data.getDefaultValue(field));
+    }
+    while (scanned < w) {
+      int start = offsets[scanned];
+      offsets[scanned + 1] = BinaryData.skip(reader.skippers[scanned], bytes, start, end - start);
+      scanned++;
+    }
+    Object value = reader.decode(i, bytes, offsets[w], end);
+    if (scanned == w) {
+      // decoding stopped where the next field starts, so it need not be skipped
+      offsets[++scanned] = reader.decodedEnd(end);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this)
+      return true; // identical object
+    if (!(o instanceof IndexedRecord))
+      return false; // not a record
+    IndexedRecord that = (IndexedRecord) o;
+    if (!getSchema().equals(that.getSchema()))
+      return false; // not the same schema
+    return reader.data.compare(this, that, getSchema(), true) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return reader.data.hashCode(this, getSchema());
+  }
+
+  @Override
+  public int compareTo(LazyGenericRecord that) {
+    return reader.data.compare(this, that, getSchema());
+  }
+
+  @Override
+  public String toString() {
+    return reader.data.toString(this);
+  }
+}
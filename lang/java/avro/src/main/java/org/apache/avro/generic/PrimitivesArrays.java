@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.Encoder;
+
+/**
+ * Arrays of ints, longs, floats and doubles that hold their elements unboxed.
+ * {@link GenericData#newArray(Object, int, Schema)} creates them for arrays of
+ * numbers, and the generic datum reader and writer transfer their elements with
+ * the bulk methods of {@link Decoder} and {@link Encoder}.
+ */
+public class PrimitivesArrays {
+
+  private PrimitivesArrays() {
+  }
+
+  /** Base class of the unboxed arrays. */
+  public static abstract class PrimitiveArray<T> extends GenericData.AbstractArray<T> {
+    protected PrimitiveArray(Schema schema) {
+      super(schema);
+    }
+
+    /** The type of the elements of this array. */
+    public abstract Schema.Type getElementType();
+
+    /** Reads <tt>count</tt> items and appends them to this array. */
+    public abstract void readItems(Decoder in, int count) throws IOException;
+
+    /** Writes the items of this array, see {@link Encoder#writeInts}. */
+    public abstract void writeItems(Encoder out) throws IOException;
+
+    @Override
+    public void clear() {
+      size = 0;
+    }
+
+    @Override
+    public void prune() {
+    }
+
+    /** Unboxed arrays have no elements to reuse, so this returns null. */
+    @Override
+    public T peek() {
+      return null;
+    }
+
+    protected final void checkIndex(int i) {
+      if (i >= size || i < 0)
+        throw new IndexOutOfBoundsException("Index " + i + " out of bounds.");
+    }
+
+    // the capacity to grow to so that another n elements fit
+    protected final int grownCapacity(int capacity, int n) {
+      // Increase size by 1.5x + 1, or more if needed
+      return Math.max(size + n, capacity + (capacity >> 1) + 1);
+    }
+  }
+
+  /** An array of ints. */
+  public static class IntArray extends PrimitiveArray<Integer> {
+    private static final int[] EMPTY = new int[0];
+    private int[] elements = EMPTY;
+
+    public IntArray(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new int[capacity];
+    }
+
+    public IntArray(Schema schema, Collection<Integer> c) {
+      super(schema);
+      if (c != null) {
+        elements = new int[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public Schema.Type getElementType() {
+      return Schema.Type.INT;
+    }
+
+    private void ensureCapacity(int n) {
+      if (size + n > elements.length) {
+        elements = Arrays.copyOf(elements, grownCapacity(elements.length, n));
+      }
+    }
+
+    @Override
+    public void readItems(Decoder in, int count) throws IOException {
+      ensureCapacity(count);
+      in.readInts(elements, size, count);
+      size += count;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      out.writeInts(elements, 0, size);
+    }
+
+    public int getInt(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Integer get(int i) {
+      return getInt(i);
+    }
+
+    public void addInt(int o) {
+      ensureCapacity(1);
+      elements[size++] = o;
+    }
+
+    @Override
+    public void add(int location, Integer o) {
+      if (location > size || location < 0) {
+        throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
+      }
+      ensureCapacity(1);
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = o;
+      size++;
+    }
+
+    public int setInt(int i, int o) {
+      checkIndex(i);
+      int response = elements[i];
+      elements[i] = o;
+      return response;
+    }
+
+    @Override
+    public Integer set(int i, Integer o) {
+      return setInt(i, o);
+    }
+
+    @Override
+    public Integer remove(int i) {
+      checkIndex(i);
+      int result = elements[i];
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      return result;
+    }
+
+    @Override
+    public void reverse() {
+      for (int left = 0, right = size - 1; left < right; left++, right--) {
+        int tmp = elements[left];
+        elements[left] = elements[right];
+        elements[right] = tmp;
+      }
+    }
+  }
+
+  /** An array of longs. */
+  public static class LongArray extends PrimitiveArray<Long> {
+    private static final long[] EMPTY = new long[0];
+    private long[] elements = EMPTY;
+
+    public LongArray(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new long[capacity];
+    }
+
+    public LongArray(Schema schema, Collection<Long> c) {
+      super(schema);
+      if (c != null) {
+        elements = new long[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public Schema.Type getElementType() {
+      return Schema.Type.LONG;
+    }
+
+    private void ensureCapacity(int n) {
+      if (size + n > elements.length) {
+        elements = Arrays.copyOf(elements, grownCapacity(elements.length, n));
+      }
+    }
+
+    @Override
+    public void readItems(Decoder in, int count) throws IOException {
+      ensureCapacity(count);
+      in.readLongs(elements, size, count);
+      size += count;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      out.writeLongs(elements, 0, size);
+    }
+
+    public long getLong(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Long get(int i) {
+      return getLong(i);
+    }
+
+    public void addLong(long o) {
+      ensureCapacity(1);
+      elements[size++] = o;
+    }
+
+    @Override
+    public void add(int location, Long o) {
+      if (location > size || location < 0) {
+        throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
+      }
+      ensureCapacity(1);
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = o;
+      size++;
+    }
+
+    public long setLong(int i, long o) {
+      checkIndex(i);
+      long response = elements[i];
+      elements[i] = o;
+      return response;
+    }
+
+    @Override
+    public Long set(int i, Long o) {
+      return setLong(i, o);
+    }
+
+    @Override
+    public Long remove(int i) {
+      checkIndex(i);
+      long result = elements[i];
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      return result;
+    }
+
+    @Override
+    public void reverse() {
+      for (int left = 0, right = size - 1; left < right; left++, right--) {
+        long tmp = elements[left];
+        elements[left] = elements[right];
+        elements[right] = tmp;
+      }
+    }
+  }
+
+  /** An array of floats. */
+  public static class FloatArray extends PrimitiveArray<Float> {
+    private static final float[] EMPTY = new float[0];
+    private float[] elements = EMPTY;
+
+    public FloatArray(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new float[capacity];
+    }
+
+    public FloatArray(Schema schema, Collection<Float> c) {
+      super(schema);
+      if (c != null) {
+        elements = new float[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public Schema.Type getElementType() {
+      return Schema.Type.FLOAT;
+    }
+
+    private void ensureCapacity(int n) {
+      if (size + n > elements.length) {
+        elements = Arrays.copyOf(elements, grownCapacity(elements.length, n));
+      }
+    }
+
+    @Override
+    public void readItems(Decoder in, int count) throws IOException {
+      ensureCapacity(count);
+      in.readFloats(elements, size, count);
+      size += count;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      out.writeFloats(elements, 0, size);
+    }
+
+    public float getFloat(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Float get(int i) {
+      return getFloat(i);
+    }
+
+    public void addFloat(float o) {
+      ensureCapacity(1);
+      elements[size++] = o;
+    }
+
+    @Override
+    public void add(int location, Float o) {
+      if (location > size || location < 0) {
+        throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
+      }
+      ensureCapacity(1);
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = o;
+      size++;
+    }
+
+    public float setFloat(int i, float o) {
+      checkIndex(i);
+      float response = elements[i];
+      elements[i] = o;
+      return response;
+    }
+
+    @Override
+    public Float set(int i, Float o) {
+      return setFloat(i, o);
+    }
+
+    @Override
+    public Float remove(int i) {
+      checkIndex(i);
+      float result = elements[i];
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      return result;
+    }
+
+    @Override
+    public void reverse() {
+      for (int left = 0, right = size - 1; left < right; left++, right--) {
+        float tmp = elements[left];
+        elements[left] = elements[right];
+        elements[right] = tmp;
+      }
+    }
+  }
+
+  /** An array of doubles. */
+  public static class DoubleArray extends PrimitiveArray<Double> {
+    private static final double[] EMPTY = new double[0];
+    private double[] elements = EMPTY;
+
+    public DoubleArray(int capacity, Schema schema) {
+      super(schema);
+      if (capacity != 0)
+        elements = new double[capacity];
+    }
+
+    public DoubleArray(Schema schema, Collection<Double> c) {
+      super(schema);
+      if (c != null) {
+        elements = new double[c.size()];
+        addAll(c);
+      }
+    }
+
+    @Override
+    public Schema.Type getElementType() {
+      return Schema.Type.DOUBLE;
+    }
+
+    private void ensureCapacity(int n) {
+      if (size + n > elements.length) {
+        elements = Arrays.copyOf(elements, grownCapacity(elements.length, n));
+      }
+    }
+
+    @Override
+    public void readItems(Decoder in, int count) throws IOException {
+      ensureCapacity(count);
+      in.readDoubles(elements, size, count);
+      size += count;
+    }
+
+    @Override
+    public void writeItems(Encoder out) throws IOException {
+      out.writeDoubles(elements, 0, size);
+    }
+
+    public double getDouble(int i) {
+      checkIndex(i);
+      return elements[i];
+    }
+
+    @Override
+    public Double get(int i) {
+      return getDouble(i);
+    }
+
+    public void addDouble(double o) {
+      ensureCapacity(1);
+      elements[size++] = o;
+    }
+
+    @Override
+    public void add(int location, Double o) {
+      if (location > size || location < 0) {
+        throw new IndexOutOfBoundsException("Index " + location + " out of bounds.");
+      }
+      ensureCapacity(1);
+      System.arraycopy(elements, location, elements, location + 1, size - location);
+      elements[location] = o;
+      size++;
+    }
+
+    public double setDouble(int i, double o) {
+      checkIndex(i);
+      double response = elements[i];
+      elements[i] = o;
+      return response;
+    }
+
+    @Override
+    public Double set(int i, Double o) {
+      return setDouble(i, o);
+    }
+
+    @Override
+    public Double remove(int i) {
+      checkIndex(i);
+      double result = elements[i];
+      --size;
+      System.arraycopy(elements, i + 1, elements, i, (size - i));
+      return result;
+    }
+
+    @Override
+    public void reverse() {
+      for (int left = 0, right = size - 1; left < right; left++, right--) {
+        double tmp = elements[left];
+        elements[left] = elements[right];
+        elements[right] = tmp;
+      }
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.avro.io;
 
+import java.io.EOFException;
 import java.io.IOException;
 
 import org.apache.avro.Schema;
@@ -287,6 +288,40 @@ public class BinaryData {
     return hashCode;
   }
 
+  /**
+   * Skip a binary-encoded value of a schema, returning the position after it.
+   *
+   * @param start  the position of the value
+   * @param length the number of bytes after <i>start</i> that may be read
+   */
+  public static int skip(Schema schema, byte[] bytes, int start, int length) {
+    return skip(SchemaSkipper.get(schema), bytes, start, length);
+  }
+
+  /**
+   * Skip binary-encoded values with a {@link SchemaSkipper}, returning the
+   * position after them.
+   *
+   * @param start  the position of the first value
+   * @param length the number of bytes after <i>start</i> that may be read
+   */
+  public static int skip(SchemaSkipper skipper, byte[] bytes, int start, int length) {
+    HashData data = HASH_DATA.get();
+    data.set(bytes, start, length);
+    try {
+      skipper.skip(data.decoder);
+      // count back from the end: reading near it may move the unread bytes
+      // into a buffer of the decoder's own
+      int remaining = data.decoder.getLimit() - data.decoder.getPos();
+      if (remaining < 0) {
+        throw new EOFException();
+      }
+      return start + length - remaining;
+    } catch (IOException e) {
+      throw new AvroRuntimeException(e);
+    }
+  }
+
   /** Skip a binary-encoded long, returning the position after it. */
   public static int skipLong(final byte[] bytes, int start) {
     while ((bytes[start++] & 0x80) != 0) {
@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 
 /**
@@ -109,6 +112,11 @@ public class BinaryDecoder extends Decoder {
     return this;
   }
 
+  BinaryDecoder configure(List<ByteBuffer> buffers, int bufferSize) {
+    configureSource(bufferSize, new ByteBufferByteSource(buffers));
+    return this;
+  }
+
   /**
    * Initializes this decoder with a new ByteSource. Detaches the old source (if
    * it exists) from this Decoder. The old source's state no longer depends on
@@ -247,6 +255,136 @@ public class BinaryDecoder extends Decoder {
     return l;
   }
 
+  private static final long STOP_BITS = 0x8080808080808080L;
+
+  // a little-endian view of buf, for loading eight bytes at a time
+  private ByteBuffer words;
+
+  private ByteBuffer words() {
+    ByteBuffer w = words;
+    if (w == null || w.array() != buf) {
+      w = words = ByteBuffer.wrap(buf).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    return w;
+  }
+
+  /**
+   * While at least eight bytes are buffered they are loaded as one word. The
+   * bytes with a clear high bit end the varints in it: when all eight do, eight
+   * ints are decoded at once, otherwise the first varint in the word is decoded
+   * without a branch per byte.
+   */
+  @Override
+  public void readInts(int[] dst, int start, int length) throws IOException {
+    int i = start;
+    final int end = start + length;
+    while (i < end) {
+      if (limit - pos < 8) {
+        dst[i++] = readInt(); // refills the buffer
+        continue;
+      }
+      ByteBuffer w = words();
+      while (i < end && limit - pos >= 8) {
+        long word = w.getLong(pos);
+        long stops = ~word & STOP_BITS;
+        if (stops == STOP_BITS && end - i >= 8) {
+          for (int k = 0; k < 8; k++) {
+            int n = (int) (word >>> (k << 3)) & 0x7f;
+            dst[i + k] = (n >>> 1) ^ -(n & 1);
+          }
+          pos += 8;
+          i += 8;
+          continue;
+        }
+        int bits = Long.numberOfTrailingZeros(stops);
+        if (bits > 39) {
+          dst[i++] = readInt(); // longer than five bytes: invalid
+          continue;
+        }
+        pos += (bits + 1) >>> 3;
+        int n = (int) varintValue(word & ((2L << bits) - 1));
+        dst[i++] = (n >>> 1) ^ -(n & 1);
+      }
+    }
+  }
+
+  /** See {@link #readInts(int[], int, int)}. */
+  @Override
+  public void readLongs(long[] dst, int start, int length) throws IOException {
+    int i = start;
+    final int end = start + length;
+    while (i < end) {
+      if (limit - pos < 8) {
+        dst[i++] = readLong(); // refills the buffer
+        continue;
+      }
+      ByteBuffer w = words();
+      while (i < end && limit - pos >= 8) {
+        long word = w.getLong(pos);
+        long stops = ~word & STOP_BITS;
+        if (stops == STOP_BITS && end - i >= 8) {
+          for (int k = 0; k < 8; k++) {
+            long n = (word >>> (k << 3)) & 0x7f;
+            dst[i + k] = (n >>> 1) ^ -(n & 1);
+          }
+          pos += 8;
+          i += 8;
+          continue;
+        }
+        if (stops == 0) {
+          dst[i++] = readLong(); // longer than eight bytes
+          continue;
+        }
+        int bits = Long.numberOfTrailingZeros(stops);
+        pos += (bits + 1) >>> 3;
+        long l = varintValue(word & ((2L << bits) - 1));
+        dst[i++] = (l >>> 1) ^ -(l & 1);
+      }
+    }
+  }
+
+  @Override
+  public void readFloats(float[] dst, int start, int length) throws IOException {
+    int i = start;
+    final int end = start + length;
+    while (i < end) {
+      int n = Math.min(end - i, (limit - pos) >> 2);
+      if (n == 0) {
+        dst[i++] = readFloat(); // refills the buffer
+        continue;
+      }
+      ByteBuffer w = words();
+      for (int stop = i + n; i < stop; i++, pos += 4) {
+        dst[i] = w.getFloat(pos);
+      }
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] dst, int start, int length) throws IOException {
+    int i = start;
+    final int end = start + length;
+    while (i < end) {
+      int n = Math.min(end - i, (limit - pos) >> 3);
+      if (n == 0) {
+        dst[i++] = readDouble(); // refills the buffer
+        continue;
+      }
+      ByteBuffer w = words();
+      for (int stop = i + n; i < stop; i++, pos += 8) {
+        dst[i] = w.getDouble(pos);
+      }
+    }
+  }
+
+  // gathers the low seven bits of each byte of a varint of up to eight bytes
+  private static long varintValue(long word) {
+    long x = word & 0x7f7f7f7f7f7f7f7fL;
+    x = (x & 0x007f007f007f007fL) | ((x & 0x7f007f007f007f00L) >>> 1);
+    x = (x & 0x00003fff00003fffL) | ((x & 0x3fff00003fff0000L) >>> 2);
+    return (x & 0x000000000fffffffL) | ((x & 0x0fffffff00000000L) >>> 4);
+  }
+
   @Override
   public float readFloat() throws IOException {
     ensureBounds(4);
@@ -299,6 +437,27 @@ public class BinaryDecoder extends Decoder {
     return readString(scratchUtf8).toString();
   }
 
+  @Override
+  public String readInternedString(StringInterner interner) throws IOException {
+    long length = readLong();
+    if (length > MAX_ARRAY_SIZE) {
+      throw new UnsupportedOperationException("Cannot read strings longer than " + MAX_ARRAY_SIZE + " bytes");
+    }
+    if (length < 0L) {
+      throw new AvroRuntimeException("Malformed data. Length is negative: " + length);
+    }
+    int len = (int) length;
+    if (len <= limit - pos) {
+      // intern straight from the buffer
+      String result = interner.intern(buf, pos, len);
+      pos += len;
+      return result;
+    }
+    scratchUtf8.setByteLength(len);
+    doReadBytes(scratchUtf8.getBytes(), 0, len);
+    return interner.intern(scratchUtf8.getBytes(), 0, len);
+  }
+
   @Override
   public void skipString() throws IOException {
     doSkipBytes(readLong());
@@ -1011,4 +1170,179 @@ public class BinaryDecoder extends Decoder {
       return (remaining == 0);
     }
   }
+
+  /**
+   * A source over a sequence of buffers, which may be direct. Buffers backed by
+   * an accessible array are decoded in place, as {@link ByteArrayByteSource}
+   * does: varints are read from, and strings copied or interned straight out of,
+   * the buffer's own array. Only values that span two buffers are stitched
+   * together in the decoder's own buffer, a few bytes at a time.
+   * <p/>
+   * Direct buffers have no array to decode from, so their bytes are copied in
+   * bulk into the decoder's buffer, or straight into the destination of large
+   * reads. That single copy costs less than decoding each varint a byte at a
+   * time through {@link ByteBuffer#get(int)}. Skipped bytes are never copied.
+   * The positions of the given buffers are not changed.
+   */
+  private static class ByteBufferByteSource extends ByteSource {
+    // as for ByteArrayByteSource, the decoder may look this far ahead in its
+    // buffer, so smaller buffers are not decoded in place
+    private static final int MIN_IN_PLACE = 16;
+    private final ByteBuffer[] buffers;
+    private int current;
+    private long remaining;
+    // the decoder's own buffer, used for bytes that are not decoded in place
+    private byte[] scratch;
+    // how many of the last bytes given to the decoder are still in the buffer
+    // at tailIndex, just before its position, so that they can be given back
+    private int tail;
+    private int tailIndex;
+
+    private ByteBufferByteSource(List<ByteBuffer> buffers) {
+      super();
+      this.buffers = new ByteBuffer[buffers.size()];
+      for (int i = 0; i < this.buffers.length; i++) {
+        ByteBuffer buffer = buffers.get(i).duplicate();
+        this.buffers[i] = buffer;
+        remaining += buffer.remaining();
+      }
+    }
+
+    @Override
+    protected void attach(int bufferSize, BinaryDecoder decoder) {
+      // small inputs need no more than a small buffer
+      super.attach((int) Math.min(bufferSize, remaining + 16), decoder);
+      this.scratch = decoder.buf;
+    }
+
+    // the buffer holding the next byte, or null at the end
+    private ByteBuffer next() {
+      while (current < buffers.length) {
+        ByteBuffer buffer = buffers[current];
+        if (buffer.hasRemaining()) {
+          return buffer;
+        }
+        current++;
+      }
+      return null;
+    }
+
+    @Override
+    protected void compactAndFill(byte[] buf, int pos, int minPos, int buffered) throws IOException {
+      if (tail > 0 && buffered <= tail) {
+        // the bytes left are still in the buffer they came from
+        ByteBuffer last = buffers[tailIndex];
+        ((Buffer) last).position(last.position() - buffered);
+        current = tailIndex;
+        remaining += buffered;
+        buffered = 0;
+      }
+      tail = 0;
+      ByteBuffer buffer = next();
+      if (buffered == 0 && buffer != null && buffer.hasArray() && buffer.remaining() >= MIN_IN_PLACE) {
+        int n = buffer.remaining();
+        ba.setBuf(buffer.array(), buffer.arrayOffset() + buffer.position(), n);
+        ((Buffer) buffer).position(buffer.limit());
+        remaining -= n;
+        tail = n;
+        tailIndex = current;
+        return;
+      }
+      System.arraycopy(buf, pos, scratch, 0, buffered);
+      int len = scratch.length - buffered;
+      if (buffer != null && buffer.hasArray()) {
+        // just enough to reach the next buffer, which is then decoded in place
+        len = Math.min(len, MIN_IN_PLACE);
+      }
+      ba.setBuf(scratch, 0, buffered + copy(scratch, buffered, len));
+    }
+
+    // copies bytes from the buffers, noting how many came from the last one
+    private int copy(byte[] data, int off, int len) {
+      int read = 0;
+      ByteBuffer buffer;
+      while (read < len && (buffer = next()) != null) {
+        int n = Math.min(buffer.remaining(), len - read);
+        buffer.get(data, off + read, n);
+        read += n;
+        tail = n;
+        tailIndex = current;
+      }
+      remaining -= read;
+      return read;
+    }
+
+    @Override
+    protected void skipSourceBytes(long length) throws IOException {
+      if (trySkipBytes(length) < length) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    protected long trySkipBytes(long length) throws IOException {
+      tail = 0;
+      long skipped = 0;
+      ByteBuffer buffer;
+      while (skipped < length && (buffer = next()) != null) {
+        int n = (int) Math.min(buffer.remaining(), length - skipped);
+        ((Buffer) buffer).position(buffer.position() + n);
+        skipped += n;
+      }
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    protected void readRaw(byte[] data, int off, int len) throws IOException {
+      if (tryReadRaw(data, off, len) < len) {
+        throw new EOFException();
+      }
+    }
+
+    @Override
+    protected int tryReadRaw(byte[] data, int off, int len) throws IOException {
+      tail = 0;
+      if (data == ba.getBuf() && data != scratch) {
+        // the decoder refills a buffer it is decoding in place: give it its own
+        int read = copy(scratch, 0, scratch.length);
+        ba.setBuf(scratch, 0, read);
+        return read;
+      }
+      int read = copy(data, off, len);
+      if (data != scratch) {
+        tail = 0;
+      }
+      return read;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (ba.getLim() - ba.getPos() == 0) {
+        tail = 0;
+        ByteBuffer buffer = next();
+        if (buffer == null) {
+          return -1;
+        }
+        remaining--;
+        return buffer.get() & 0xff;
+      } else {
+        int position = ba.getPos();
+        int result = ba.getBuf()[position] & 0xff;
+        ba.setPos(position + 1);
+        return result;
+      }
+    }
+
+    @Override
+    public boolean isEof() {
+      return remaining == 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      ba.setPos(ba.getLim());
+      trySkipBytes(remaining);
+    }
+  }
 }
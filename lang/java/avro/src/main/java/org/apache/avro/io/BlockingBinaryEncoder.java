@@ -277,6 +277,40 @@ public class BlockingBinaryEncoder extends BufferedBinaryEncoder {
     pos += BinaryData.encodeDouble(d, buf, pos);
   }
 
+  // unlike the superclass, items must be counted by startItem()
+
+  @Override
+  public void writeInts(int[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeInt(src[i]);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeLong(src[i]);
+    }
+  }
+
+  @Override
+  public void writeFloats(float[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeFloat(src[i]);
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeDouble(src[i]);
+    }
+  }
+
   @Override
   public void writeFixed(byte[] bytes, int start, int len) throws IOException {
     doWriteBytes(bytes, start, len);
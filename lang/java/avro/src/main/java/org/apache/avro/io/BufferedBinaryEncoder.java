@@ -149,6 +149,40 @@ public class BufferedBinaryEncoder extends BinaryEncoder {
     pos += BinaryData.encodeDouble(d, buf, pos);
   }
 
+  // startItem() does nothing, so runs of array items are encoded in one loop
+
+  @Override
+  public void writeInts(int[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      ensureBounds(5);
+      pos += BinaryData.encodeInt(src[i], buf, pos);
+    }
+  }
+
+  @Override
+  public void writeLongs(long[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      ensureBounds(10);
+      pos += BinaryData.encodeLong(src[i], buf, pos);
+    }
+  }
+
+  @Override
+  public void writeFloats(float[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      ensureBounds(4);
+      pos += BinaryData.encodeFloat(src[i], buf, pos);
+    }
+  }
+
+  @Override
+  public void writeDoubles(double[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      ensureBounds(8);
+      pos += BinaryData.encodeDouble(src[i], buf, pos);
+    }
+  }
+
   @Override
   public void writeFixed(byte[] bytes, int start, int len) throws IOException {
     if (len > bulkLimit) {
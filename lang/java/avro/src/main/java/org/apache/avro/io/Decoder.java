@@ -20,6 +20,7 @@ package org.apache.avro.io;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 
 /**
@@ -76,6 +77,57 @@ public abstract class Decoder {
    */
   public abstract long readLong() throws IOException;
 
+  /**
+   * Reads a run of consecutive integers, each written by
+   * {@link Encoder#writeInt}, such as the items of an array block or adjacent
+   * int fields of a record. Equivalent to calling {@link #readInt()} for each,
+   * which is what this implementation does; decoders may decode the run faster.
+   *
+   * @param dst    The array to store the integers in.
+   * @param start  The position where the first integer is stored.
+   * @param length The number of integers to read.
+   * @throws AvroTypeException If this is a stateful reader and the next values
+   *                           to be read are not ints
+   * @throws IOException
+   */
+  public void readInts(int[] dst, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      dst[i] = readInt();
+    }
+  }
+
+  /**
+   * A shorthand for <tt>readInts(dst, 0, n)</tt>.
+   */
+  public void readInts(int[] dst, int n) throws IOException {
+    readInts(dst, 0, n);
+  }
+
+  /**
+   * Reads a run of consecutive longs, each written by {@link Encoder#writeLong}.
+   * Equivalent to calling {@link #readLong()} for each, which is what this
+   * implementation does; decoders may decode the run faster.
+   *
+   * @param dst    The array to store the longs in.
+   * @param start  The position where the first long is stored.
+   * @param length The number of longs to read.
+   * @throws AvroTypeException If this is a stateful reader and the next values
+   *                           to be read are not longs
+   * @throws IOException
+   */
+  public void readLongs(long[] dst, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      dst[i] = readLong();
+    }
+  }
+
+  /**
+   * A shorthand for <tt>readLongs(dst, 0, n)</tt>.
+   */
+  public void readLongs(long[] dst, int n) throws IOException {
+    readLongs(dst, 0, n);
+  }
+
   /**
    * Reads a float written by {@link Encoder#writeFloat}.
    * 
@@ -92,6 +144,24 @@ public abstract class Decoder {
    */
   public abstract double readDouble() throws IOException;
 
+  /**
+   * Reads a run of consecutive floats. See {@link #readInts(int[], int, int)}.
+   */
+  public void readFloats(float[] dst, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      dst[i] = readFloat();
+    }
+  }
+
+  /**
+   * Reads a run of consecutive doubles. See {@link #readInts(int[], int, int)}.
+   */
+  public void readDoubles(double[] dst, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      dst[i] = readDouble();
+    }
+  }
+
   /**
    * Reads a char-string written by {@link Encoder#writeString}.
    * 
@@ -108,6 +178,19 @@ public abstract class Decoder {
    */
   public abstract String readString() throws IOException;
 
+  /**
+   * Reads a char-string written by {@link Encoder#writeString}, returning the
+   * string cached by an interner for its bytes if there is one. Decoders that
+   * can look at the encoded bytes in place do so without allocating.
+   *
+   * @throws AvroTypeException If this is a stateful reader and char-string is not
+   *                           the type of the next value to be read
+   */
+  public String readInternedString(StringInterner interner) throws IOException {
+    Utf8 utf8 = readString((Utf8) null);
+    return interner.intern(utf8.getBytes(), 0, utf8.getByteLength());
+  }
+
   /**
    * Discards a char-string written by {@link Encoder#writeString}.
    * 
@@ -19,6 +19,9 @@ package org.apache.avro.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.avro.Schema;
 
@@ -238,6 +241,56 @@ public class DecoderFactory {
     return binaryDecoder(bytes, 0, bytes.length, reuse);
   }
 
+  /**
+   * Creates or reinitializes a {@link BinaryDecoder} with the remaining bytes of
+   * a buffer as the source of data. The position of the buffer is not changed.
+   * <p/>
+   * A heap buffer's array is used as the decoder's buffer, as with
+   * {@link #binaryDecoder(byte[], int, int, BinaryDecoder)}. Other buffers, such
+   * as direct buffers, are read without first being copied to the heap whole:
+   * see {@link #binaryDecoder(List, BinaryDecoder)}.
+   *
+   * @param buffer The buffer to read from
+   * @param reuse  The BinaryDecoder to attempt to reinitialize. if null a new
+   *               BinaryDecoder is created.
+   * @return A BinaryDecoder that uses <i>buffer</i> as its source of data.
+   *         Clients must not assume that <i>reuse</i> is reinitialized and
+   *         returned.
+   */
+  public BinaryDecoder binaryDecoder(ByteBuffer buffer, BinaryDecoder reuse) {
+    if (buffer.hasArray()) {
+      return binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), reuse);
+    }
+    return binaryDecoder(Collections.singletonList(buffer), reuse);
+  }
+
+  /**
+   * Creates or reinitializes a {@link BinaryDecoder} with the remaining bytes of
+   * a sequence of buffers, which may be direct, as the source of data, e.g. the
+   * components of a composite network buffer. The positions of the buffers are
+   * not changed.
+   * <p/>
+   * Heap buffers are decoded in place from their arrays, so only values that
+   * span two buffers are copied. Direct buffers are copied in bulk into the
+   * decoder's buffer of up to {@link #getConfiguredBufferSize()} bytes as they
+   * are decoded, and strings or bytes larger than that straight from the buffers
+   * into the result, so the data is never staged in a heap copy of its own.
+   * Skipped data is not copied.
+   *
+   * @param buffers The buffers to read from, in order
+   * @param reuse   The BinaryDecoder to attempt to reinitialize. if null a new
+   *                BinaryDecoder is created.
+   * @return A BinaryDecoder that uses <i>buffers</i> as its source of data.
+   *         Clients must not assume that <i>reuse</i> is reinitialized and
+   *         returned.
+   */
+  public BinaryDecoder binaryDecoder(List<ByteBuffer> buffers, BinaryDecoder reuse) {
+    if (null == reuse || !reuse.getClass().equals(BinaryDecoder.class)) {
+      reuse = new BinaryDecoder();
+    }
+    return reuse.configure(buffers, binaryDecoderBufferSize);
+  }
+
   /**
    * Creates a {@link JsonDecoder} using the InputStream provided for reading data
    * that conforms to the Schema provided.
@@ -253,6 +253,57 @@ public abstract class Encoder implements Flushable {
    */
   public abstract void startItem() throws IOException;
 
+  /**
+   * Writes a run of ints as items of an array. Equivalent to calling
+   * {@link #startItem()} followed by {@link #writeInt(int)} for each, which is
+   * what this implementation does; encoders may write the run faster.
+   *
+   * @param src    The array holding the integers.
+   * @param start  The position of the first integer to write.
+   * @param length The number of integers to write.
+   * @throws AvroTypeException If this is a stateful writer and an array of ints
+   *                           is not being written
+   */
+  public void writeInts(int[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeInt(src[i]);
+    }
+  }
+
+  /**
+   * Writes a run of longs as items of an array. See
+   * {@link #writeInts(int[], int, int)}.
+   */
+  public void writeLongs(long[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeLong(src[i]);
+    }
+  }
+
+  /**
+   * Writes a run of floats as items of an array. See
+   * {@link #writeInts(int[], int, int)}.
+   */
+  public void writeFloats(float[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeFloat(src[i]);
+    }
+  }
+
+  /**
+   * Writes a run of doubles as items of an array. See
+   * {@link #writeInts(int[], int, int)}.
+   */
+  public void writeDoubles(double[] src, int start, int length) throws IOException {
+    for (int i = start, end = start + length; i < end; i++) {
+      startItem();
+      writeDouble(src[i]);
+    }
+  }
+
   /**
    * Call this method to finish writing an array. See {@link #writeArrayStart} for
    * usage information.
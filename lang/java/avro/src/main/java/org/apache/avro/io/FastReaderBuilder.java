@@ -18,10 +18,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -29,7 +34,6 @@ import java.util.function.IntFunction;
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.Conversion;
 import org.apache.avro.Conversions;
-import org.apache.avro.Resolver;
 import org.apache.avro.Resolver.Action;
 import org.apache.avro.Resolver.Container;
 import org.apache.avro.Resolver.EnumAdjust;
@@ -40,18 +44,21 @@ import org.apache.avro.Resolver.Skip;
 import org.apache.avro.Resolver.WriterUnion;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
+import org.apache.avro.SchemaNormalization;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericData.InstanceSupplier;
-import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericEnumSymbol;
 import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.generic.PrimitivesArrays.PrimitiveArray;
 import org.apache.avro.io.FastReaderBuilder.RecordReader.Stage;
+import org.apache.avro.io.parsing.ResolutionCache;
 import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
 import org.apache.avro.reflect.ReflectionUtil;
 import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 import org.apache.avro.util.WeakIdentityHashMap;
 import org.apache.avro.util.internal.Accessor;
@@ -68,6 +75,27 @@ public class FastReaderBuilder {
   private final Map<Schema, Map<Schema, RecordReader>> readerCache = Collections
       .synchronizedMap(new WeakIdentityHashMap<>());
 
+  /**
+   * Maximum number of compiled readers kept in {@link #compiledReaders}.
+   */
+  private static final int MAX_COMPILED_READERS = 1024;
+
+  /**
+   * Compiled readers keyed by the parsing fingerprints of the (writer, reader)
+   * schemas as given, confirmed by schema equality, so that schemas which are
+   * parsed again, e.g. once per message header, reuse the reader that was
+   * compiled for the first instance. Readers are trees of {@link FieldReader}s
+   * and {@link ExecutionStep}s; no classes are generated at runtime. Cleared by
+   * {@link #clearCompiledReaders()}.
+   */
+  private final Map<ReaderKey, FieldReader> compiledReaders = Collections
+      .synchronizedMap(new LinkedHashMap<ReaderKey, FieldReader>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ReaderKey, FieldReader> eldest) {
+          return size() > MAX_COMPILED_READERS;
+        }
+      });
+
   private boolean keyClassEnabled = true;
 
   private boolean classPropEnabled = true;
@@ -80,6 +108,12 @@ public class FastReaderBuilder {
     return new FastReaderBuilder(SpecificData.get());
   }
 
+  /**
+   * Whether the data model is one of the built-in models this builder reads
+   * natively. Other {@link GenericData} subclasses opt in by overriding
+   * {@link GenericData#isFastReaderSupported()} and, when they change how values
+   * are represented, {@link GenericData#createFastReaderBuilder()}.
+   */
   public static boolean isSupportedData(GenericData data) {
     return data.getClass() == GenericData.class || data.getClass() == SpecificData.class;
   }
@@ -88,6 +122,10 @@ public class FastReaderBuilder {
     this.data = parentData;
   }
 
+  protected GenericData getData() {
+    return data;
+  }
+
   public FastReaderBuilder withKeyClassEnabled(boolean enabled) {
     this.keyClassEnabled = enabled;
     return this;
@@ -112,16 +150,31 @@ public class FastReaderBuilder {
 
   @SuppressWarnings("unchecked")
   public <D> DatumReader<D> createDatumReader(Schema writerSchema, Schema readerSchema) throws IOException {
-    Schema resolvedWriterSchema = Schema.applyAliases(writerSchema, readerSchema);
-    return (DatumReader<D>) getReaderFor(readerSchema, resolvedWriterSchema);
+    ReaderKey key = new ReaderKey(writerSchema, readerSchema, keyClassEnabled, classPropEnabled);
+    FieldReader reader = compiledReaders.get(key);
+    if (reader == null) {
+      // aliases only matter to resolution, which the cached reader already did
+      reader = getReaderFor(readerSchema, Schema.applyAliases(writerSchema, readerSchema));
+      compiledReaders.put(key, reader);
+    }
+    return (DatumReader<D>) reader;
+  }
+
+  /**
+   * Forgets the readers compiled so far, e.g. because the data model's
+   * conversions changed. Readers already handed out keep working as compiled.
+   */
+  public void clearCompiledReaders() {
+    compiledReaders.clear();
+    readerCache.clear();
   }
 
   private FieldReader getReaderFor(Schema readerSchema, Schema writerSchema) throws IOException {
-    Action resolvedAction = Resolver.resolve(writerSchema, readerSchema, data);
+    Action resolvedAction = ResolutionCache.getAction(writerSchema, readerSchema, data);
     return getReaderFor(resolvedAction, null);
   }
 
-  private FieldReader getReaderFor(Action action, Conversion<?> explicitConversion) throws IOException {
+  protected FieldReader getReaderFor(Action action, Conversion<?> explicitConversion) throws IOException {
     final FieldReader baseReader = getNonConvertedReader(action);
     return applyConversions(action.reader, baseReader, explicitConversion);
   }
@@ -147,34 +200,59 @@ public class FastReaderBuilder {
     Object testInstance = action.instanceSupplier.newInstance(null, action.reader);
     IntFunction<Conversion<?>> conversionSupplier = getConversionSupplier(testInstance);
 
-    ExecutionStep[] readSteps = new ExecutionStep[action.fieldActions.length + action.readerOrder.length
-        - action.firstDefault];
+    List<ExecutionStep> readSteps = new ArrayList<>();
 
-    int i = 0;
     int fieldCounter = 0;
     // compute what to do with writer's fields
-    for (; i < action.fieldActions.length; i++) {
+    for (int i = 0; i < action.fieldActions.length; i++) {
       Action fieldAction = action.fieldActions[i];
       if (fieldAction instanceof Skip) {
-        readSteps[i] = (r, decoder) -> GenericDatumReader.skip(fieldAction.writer, decoder);
+        // skip a run of unread writer fields at once
+        List<Schema> skipped = new ArrayList<>();
+        skipped.add(fieldAction.writer);
+        while (i + 1 < action.fieldActions.length && action.fieldActions[i + 1] instanceof Skip) {
+          skipped.add(action.fieldActions[++i].writer);
+        }
+        SchemaSkipper skipper = SchemaSkipper.get(skipped);
+        readSteps.add((r, decoder) -> skipper.skip(decoder));
       } else {
         Field readerField = action.readerOrder[fieldCounter++];
         Conversion<?> conversion = conversionSupplier.apply(readerField.pos());
-        FieldReader reader = getReaderFor(fieldAction, conversion);
-        readSteps[i] = createFieldSetter(readerField, reader);
+        readSteps.add(createFieldStep(testInstance, readerField, fieldAction, conversion));
       }
     }
 
     // add defaulting if required
-    for (; i < readSteps.length; i++) {
-      readSteps[i] = getDefaultingStep(action.readerOrder[fieldCounter++]);
+    while (fieldCounter < action.readerOrder.length) {
+      readSteps.add(getDefaultingStep(testInstance, action.readerOrder[fieldCounter++]));
     }
 
-    recordReader.finishInitialization(readSteps, action.reader, action.instanceSupplier);
+    recordReader.finishInitialization(readSteps.toArray(new ExecutionStep[0]), action.reader,
+        action.instanceSupplier);
     return recordReader;
   }
 
-  private ExecutionStep createFieldSetter(Field field, FieldReader reader) {
+  /**
+   * Creates the step that reads a field written by the writer into a record like
+   * {@code testInstance}. Subclasses override this to read fields of records that
+   * are not {@link IndexedRecord}s, or that need model specific handling.
+   */
+  protected ExecutionStep createFieldStep(Object testInstance, Field field, Action action, Conversion<?> conversion)
+      throws IOException {
+    if (testInstance instanceof IndexedRecord) {
+      ExecutionStep primitiveSetter = createPrimitiveFieldSetter(field, action, conversion);
+      if (primitiveSetter != null) {
+        return primitiveSetter;
+      }
+    }
+    return createFieldSetter(testInstance, field, getReaderFor(action, conversion));
+  }
+
+  /**
+   * Creates the step that stores the value read by {@code reader} into a record
+   * like {@code testInstance}.
+   */
+  protected ExecutionStep createFieldSetter(Object testInstance, Field field, FieldReader reader) {
     int pos = field.pos();
     if (reader.canReuse()) {
       return (object, decoder) -> {
@@ -189,23 +267,56 @@ public class FastReaderBuilder {
     }
   }
 
-  private ExecutionStep getDefaultingStep(Schema.Field field) throws IOException {
+  /**
+   * Returns a step that decodes an unconverted primitive straight into the
+   * record, without going through a {@link FieldReader}, or null if the field
+   * needs the general path.
+   */
+  private ExecutionStep createPrimitiveFieldSetter(Field field, Action action, Conversion<?> conversion) {
+    if (conversion != null || action.type != Action.Type.DO_NOTHING
+        || data.getConversionFor(action.reader.getLogicalType()) != null
+        || action.reader.getProp(SpecificData.CLASS_PROP) != null) {
+      return null;
+    }
+    int pos = field.pos();
+    switch (action.reader.getType()) {
+    case NULL:
+      return (object, decoder) -> {
+        decoder.readNull();
+        ((IndexedRecord) object).put(pos, null);
+      };
+    case BOOLEAN:
+      return (object, decoder) -> ((IndexedRecord) object).put(pos, decoder.readBoolean());
+    case INT:
+      return (object, decoder) -> ((IndexedRecord) object).put(pos, decoder.readInt());
+    case LONG:
+      return (object, decoder) -> ((IndexedRecord) object).put(pos, decoder.readLong());
+    case FLOAT:
+      return (object, decoder) -> ((IndexedRecord) object).put(pos, decoder.readFloat());
+    case DOUBLE:
+      return (object, decoder) -> ((IndexedRecord) object).put(pos, decoder.readDouble());
+    default:
+      return null;
+    }
+  }
+
+  private ExecutionStep getDefaultingStep(Object testInstance, Schema.Field field) throws IOException {
     Object defaultValue = data.getDefaultValue(field);
 
     if (isObjectImmutable(defaultValue)) {
-      return createFieldSetter(field, (old, d) -> defaultValue);
+      return createFieldSetter(testInstance, field, (old, d) -> defaultValue);
     } else if (defaultValue instanceof Utf8) {
-      return createFieldSetter(field, reusingReader((old, d) -> readUtf8(old, (Utf8) defaultValue)));
+      return createFieldSetter(testInstance, field, reusingReader((old, d) -> readUtf8(old, (Utf8) defaultValue)));
     } else if (defaultValue instanceof List && ((List<?>) defaultValue).isEmpty()) {
-      return createFieldSetter(field, reusingReader((old, d) -> data.newArray(old, 0, field.schema())));
+      return createFieldSetter(testInstance, field, reusingReader((old, d) -> data.newArray(old, 0, field.schema())));
     } else if (defaultValue instanceof Map && ((Map<?, ?>) defaultValue).isEmpty()) {
-      return createFieldSetter(field, reusingReader((old, d) -> data.newMap(old, 0)));
+      return createFieldSetter(testInstance, field, reusingReader((old, d) -> data.newMap(old, 0)));
     } else {
       DatumReader<Object> datumReader = createDatumReader(field.schema());
       byte[] encoded = getEncodedValue(field);
       FieldReader fieldReader = reusingReader(
           (old, decoder) -> datumReader.read(old, DecoderFactory.get().binaryDecoder(encoded, null)));
-      return createFieldSetter(field, fieldReader);
+      return createFieldSetter(testInstance, field, fieldReader);
     }
   }
 
@@ -309,7 +420,7 @@ public class FastReaderBuilder {
     case STRING:
       return createStringReader(readerSchema, writerSchema);
     case INT:
-      return (old, decoder) -> decoder.readInt();
+      return createIntReader(readerSchema);
     case LONG:
       return (old, decoder) -> decoder.readLong();
     case FLOAT:
@@ -317,7 +428,7 @@ public class FastReaderBuilder {
     case DOUBLE:
       return (old, decoder) -> decoder.readDouble();
     case BYTES:
-      return createBytesReader();
+      return createBytesReader(readerSchema);
     case FIXED:
       return createFixedReader(readerSchema, writerSchema);
     case RECORD: // covered by action type
@@ -373,9 +484,12 @@ public class FastReaderBuilder {
     }
   }
 
-  private FieldReader createSimpleStringReader(Schema readerSchema) {
+  protected FieldReader createSimpleStringReader(Schema readerSchema) {
     String stringProperty = readerSchema.getProp(GenericData.STRING_PROP);
-    if (GenericData.StringType.String.name().equals(stringProperty)) {
+    if (GenericData.isStringInterned(readerSchema)) {
+      StringInterner interner = new StringInterner();
+      return (old, decoder) -> decoder.readInternedString(interner);
+    } else if (GenericData.StringType.String.name().equals(stringProperty)) {
       return (old, decoder) -> decoder.readString();
     } else {
       return (old, decoder) -> decoder.readString(old instanceof Utf8 ? (Utf8) old : null);
@@ -384,7 +498,11 @@ public class FastReaderBuilder {
 
   private FieldReader createBytesPromotingToStringReader(Schema readerSchema) {
     String stringProperty = readerSchema.getProp(GenericData.STRING_PROP);
-    if (GenericData.StringType.String.name().equals(stringProperty)) {
+    if (GenericData.isStringInterned(readerSchema)) {
+      // bytes are encoded as strings are
+      StringInterner interner = new StringInterner();
+      return (old, decoder) -> decoder.readInternedString(interner);
+    } else if (GenericData.StringType.String.name().equals(stringProperty)) {
       return (old, decoder) -> getStringFromByteBuffer(decoder.readBytes(null));
     } else {
       return (old, decoder) -> getUtf8FromByteBuffer(old, decoder.readBytes(null));
@@ -454,8 +572,23 @@ public class FastReaderBuilder {
   }
 
   @SuppressWarnings("unchecked")
-  private FieldReader createArrayReader(Schema readerSchema, Container action) throws IOException {
+  protected FieldReader createArrayReader(Schema readerSchema, Container action) throws IOException {
     FieldReader elementReader = getReaderFor(action.elementAction, null);
+    Schema elementSchema = readerSchema.getElementType();
+    Action.Type elementActionType = action.elementAction.type;
+    if ((elementActionType == Action.Type.DO_NOTHING || elementActionType == Action.Type.PROMOTE)
+        && data.getConversionFor(elementSchema.getLogicalType()) == null) {
+      switch (elementSchema.getType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        // promoted items are still read one by one, but into an unboxed array
+        return createPrimitiveArrayReader(readerSchema, elementReader, elementActionType == Action.Type.DO_NOTHING);
+      default:
+        break;
+      }
+    }
 
     return reusingReader((reuse, decoder) -> {
       if (reuse instanceof GenericArray) {
@@ -486,6 +619,33 @@ public class FastReaderBuilder {
     });
   }
 
+  // reads arrays of numbers into unboxed arrays, in bulk
+  @SuppressWarnings("unchecked")
+  private FieldReader createPrimitiveArrayReader(Schema readerSchema, FieldReader elementReader, boolean bulk) {
+    Schema.Type elementType = readerSchema.getElementType().getType();
+
+    return reusingReader((reuse, decoder) -> {
+      long l = decoder.readArrayStart();
+      Object array = data.newArray(reuse, (int) l, readerSchema);
+      if (bulk && array instanceof PrimitiveArray && ((PrimitiveArray<?>) array).getElementType() == elementType) {
+        PrimitiveArray<?> primitives = (PrimitiveArray<?>) array;
+        while (l > 0) {
+          primitives.readItems(decoder, (int) l);
+          l = decoder.arrayNext();
+        }
+      } else {
+        Collection<Object> collection = (Collection<Object>) array;
+        while (l > 0) {
+          for (long i = 0; i < l; i++) {
+            collection.add(elementReader.read(null, decoder));
+          }
+          l = decoder.arrayNext();
+        }
+      }
+      return array;
+    });
+  }
+
   private FieldReader createEnumReader(EnumAdjust action) {
     return reusingReader((reuse, decoder) -> {
       int index = decoder.readEnum();
@@ -505,7 +665,11 @@ public class FastReaderBuilder {
     });
   }
 
-  private FieldReader createBytesReader() {
+  protected FieldReader createIntReader(Schema readerSchema) {
+    return (old, decoder) -> decoder.readInt();
+  }
+
+  protected FieldReader createBytesReader(Schema readerSchema) {
     return reusingReader(
         (reuse, decoder) -> decoder.readBytes(reuse instanceof ByteBuffer ? (ByteBuffer) reuse : null));
   }
@@ -607,6 +771,83 @@ public class FastReaderBuilder {
     }
   }
 
+  private static final class ReaderKey {
+    private final Schema writer;
+    private final Schema reader;
+    private final boolean keyClassEnabled;
+    private final boolean classPropEnabled;
+    private final int hash;
+
+    ReaderKey(Schema writer, Schema reader, boolean keyClassEnabled, boolean classPropEnabled) {
+      this.writer = writer;
+      this.reader = reader;
+      this.keyClassEnabled = keyClassEnabled;
+      this.classPropEnabled = classPropEnabled;
+      long fingerprint = SchemaNormalization.parsingFingerprint64(writer) * 31
+          + SchemaNormalization.parsingFingerprint64(reader);
+      this.hash = Objects.hash(fingerprint, keyClassEnabled, classPropEnabled);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof ReaderKey)) {
+        return false;
+      }
+      ReaderKey that = (ReaderKey) o;
+      return hash == that.hash && keyClassEnabled == that.keyClassEnabled && classPropEnabled == that.classPropEnabled
+          && writer.equals(that.writer) && reader.equals(that.reader)
+          && sameAliases(reader, that.reader, new IdentityHashMap<>());
+    }
+
+    /**
+     * Schema equality ignores aliases, but the reader's aliases decide which
+     * writer fields and types it reads. Walks two equal schemas comparing them.
+     */
+    private static boolean sameAliases(Schema a, Schema b, Map<Schema, Schema> seen) {
+      switch (a.getType()) {
+      case RECORD:
+        if (seen.put(a, b) != null) {
+          return true;
+        }
+        if (!a.getAliases().equals(b.getAliases())) {
+          return false;
+        }
+        for (int i = 0; i < a.getFields().size(); i++) {
+          Field fa = a.getFields().get(i);
+          Field fb = b.getFields().get(i);
+          if (!fa.aliases().equals(fb.aliases()) || !sameAliases(fa.schema(), fb.schema(), seen)) {
+            return false;
+          }
+        }
+        return true;
+      case ENUM:
+      case FIXED:
+        return a.getAliases().equals(b.getAliases());
+      case ARRAY:
+        return sameAliases(a.getElementType(), b.getElementType(), seen);
+      case MAP:
+        return sameAliases(a.getValueType(), b.getValueType(), seen);
+      case UNION:
+        for (int i = 0; i < a.getTypes().size(); i++) {
+          if (!sameAliases(a.getTypes().get(i), b.getTypes().get(i), seen)) {
+            return false;
+          }
+        }
+        return true;
+      default:
+        return true;
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
   public interface ExecutionStep {
     public void execute(Object record, Decoder decoder) throws IOException;
   }
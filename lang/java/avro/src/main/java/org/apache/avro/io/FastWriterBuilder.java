@@ -0,0 +1,455 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.Conversions;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericEnumSymbol;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.generic.PrimitivesArrays.PrimitiveArray;
+import org.apache.avro.io.FastWriterBuilder.RecordWriter.Stage;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.avro.util.WeakIdentityHashMap;
+
+/**
+ * Builds {@link DatumWriter}s that precompile a write plan per schema: how each
+ * field is accessed, which conversion applies and how union branches are
+ * chosen. The counterpart of {@link FastReaderBuilder} for the encode path.
+ */
+public class FastWriterBuilder {
+
+  /**
+   * Generic/SpecificData instance that contains basic functionalities like
+   * union resolution and conversions
+   */
+  private final GenericData data;
+
+  private final Map<Schema, RecordWriter> writerCache = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+
+  public static FastWriterBuilder get() {
+    return new FastWriterBuilder(GenericData.get());
+  }
+
+  public static FastWriterBuilder getSpecific() {
+    return new FastWriterBuilder(SpecificData.get());
+  }
+
+  /**
+   * Whether the data model is one of the built-in models this builder writes
+   * natively. Other {@link GenericData} subclasses opt in by overriding
+   * {@link GenericData#isFastWriterSupported()} and, when they change how values
+   * are represented, {@link GenericData#createFastWriterBuilder()}.
+   */
+  public static boolean isSupportedData(GenericData data) {
+    return data.getClass() == GenericData.class || data.getClass() == SpecificData.class;
+  }
+
+  public FastWriterBuilder(GenericData parentData) {
+    this.data = parentData;
+  }
+
+  protected GenericData getData() {
+    return data;
+  }
+
+  /**
+   * Forgets the record writers compiled so far, e.g. because the data model's
+   * conversions changed. Writers already handed out keep working as compiled.
+   */
+  public void clearCompiledWriters() {
+    writerCache.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <D> DatumWriter<D> createDatumWriter(Schema schema) throws IOException {
+    return (DatumWriter<D>) getWriterFor(schema);
+  }
+
+  protected FieldWriter getWriterFor(Schema schema) throws IOException {
+    FieldWriter baseWriter = getNonConvertedWriter(schema);
+    return applyConversions(schema, baseWriter);
+  }
+
+  private FieldWriter applyConversions(Schema schema, FieldWriter writer) {
+    LogicalType logicalType = schema.getLogicalType();
+    if (logicalType == null || data.getConversionFor(logicalType) == null) {
+      // the model has no conversion for the type under any class
+      return writer;
+    }
+    // the conversion depends on the class of the datum, as in GenericDatumWriter
+    return (datum, encoder) -> {
+      if (datum != null) {
+        Conversion<?> conversion = data.getConversionByClass(datum.getClass(), logicalType);
+        if (conversion != null) {
+          datum = Conversions.convertToRawType(datum, schema, logicalType, conversion);
+        }
+      }
+      writer.write(datum, encoder);
+    };
+  }
+
+  private FieldWriter getNonConvertedWriter(Schema schema) throws IOException {
+    switch (schema.getType()) {
+    case RECORD:
+      return createRecordWriter(schema);
+    case ENUM:
+      return createEnumWriter(schema);
+    case ARRAY:
+      return createArrayWriter(schema);
+    case MAP:
+      return createMapWriter(schema);
+    case UNION:
+      return createUnionWriter(schema);
+    case FIXED:
+      return createFixedWriter(schema);
+    case STRING:
+      return createStringWriter(schema);
+    case BYTES:
+      return createBytesWriter(schema);
+    case INT:
+      return createIntWriter(schema);
+    case LONG:
+      return (datum, encoder) -> encoder.writeLong(((Number) datum).longValue());
+    case FLOAT:
+      return (datum, encoder) -> encoder.writeFloat(((Number) datum).floatValue());
+    case DOUBLE:
+      return (datum, encoder) -> encoder.writeDouble(((Number) datum).doubleValue());
+    case BOOLEAN:
+      return (datum, encoder) -> encoder.writeBoolean((Boolean) datum);
+    case NULL:
+      return (datum, encoder) -> encoder.writeNull();
+    default:
+      throw new IllegalStateException("Error getting writer for type " + schema.getFullName());
+    }
+  }
+
+  private RecordWriter createRecordWriter(Schema schema) throws IOException {
+    // record writers are created in a two-step process, first registering it,
+    // then initializing it, to prevent endless loops on recursive types
+    RecordWriter recordWriter = writerCache.computeIfAbsent(schema, k -> new RecordWriter());
+    synchronized (recordWriter) {
+      // only need to initialize once
+      if (recordWriter.getInitializationStage() == Stage.NEW) {
+        initializeRecordWriter(recordWriter, schema);
+      }
+    }
+    return recordWriter;
+  }
+
+  private void initializeRecordWriter(RecordWriter recordWriter, Schema schema) throws IOException {
+    recordWriter.startInitialization();
+
+    // generated classes carry per field conversions
+    SpecificRecordBase specificInstance = null;
+    if (data instanceof SpecificData) {
+      Class<?> recordClass = ((SpecificData) data).getClass(schema);
+      if (recordClass != null && SpecificRecordBase.class.isAssignableFrom(recordClass)) {
+        specificInstance = (SpecificRecordBase) SpecificData.newInstance(recordClass, schema);
+      }
+    }
+
+    List<Field> fields = schema.getFields();
+    WriteStep[] writeSteps = new WriteStep[fields.size()];
+    for (int i = 0; i < writeSteps.length; i++) {
+      Field field = fields.get(i);
+      WriteStep step = createFieldStep(schema, field);
+      Conversion<?> conversion = specificInstance == null ? null : specificInstance.getConversion(field.pos());
+      if (conversion != null) {
+        step = createSpecificFieldStep(field, conversion, step);
+      }
+      writeSteps[i] = step;
+    }
+
+    recordWriter.finishInitialization(writeSteps, fields.toArray(new Field[0]));
+  }
+
+  /**
+   * Creates the step that writes one field of records of the given schema.
+   * Subclasses override this to write fields of records that are not
+   * {@link IndexedRecord}s, or that need model specific handling.
+   */
+  protected WriteStep createFieldStep(Schema recordSchema, Field field) throws IOException {
+    int pos = field.pos();
+    FieldWriter writer = getWriterFor(field.schema());
+    return (record, encoder) -> writer.write(((IndexedRecord) record).get(pos), encoder);
+  }
+
+  // a generated class converts its field with its own conversion, other records
+  // of the same schema convert by the class of the value
+  private WriteStep createSpecificFieldStep(Field field, Conversion<?> conversion, WriteStep genericStep)
+      throws IOException {
+    int pos = field.pos();
+    Schema fieldSchema = field.schema();
+    LogicalType logicalType = fieldSchema.getLogicalType();
+    FieldWriter rawWriter = getNonConvertedWriter(fieldSchema);
+    return (record, encoder) -> {
+      if (record instanceof SpecificRecordBase) {
+        Object value = ((IndexedRecord) record).get(pos);
+        if (logicalType != null) {
+          value = Conversions.convertToRawType(value, fieldSchema, logicalType, conversion);
+        }
+        rawWriter.write(value, encoder);
+      } else {
+        genericStep.execute(record, encoder);
+      }
+    };
+  }
+
+  private FieldWriter createEnumWriter(Schema schema) {
+    boolean specific = data instanceof SpecificData;
+    return (datum, encoder) -> {
+      if (specific && datum instanceof Enum) {
+        encoder.writeEnum(((Enum<?>) datum).ordinal());
+        return;
+      }
+      if (!(datum instanceof GenericEnumSymbol)) {
+        throw new AvroTypeException("Not an enum: " + datum + " for schema: " + schema);
+      }
+      encoder.writeEnum(schema.getEnumOrdinal(datum.toString()));
+    };
+  }
+
+  /**
+   * Chooses the branch of a union. A nullable union of a primitive type needs
+   * only a null check and a class check; other unions, and values of another
+   * class, are resolved by the data model.
+   */
+  protected FieldWriter createUnionWriter(Schema schema) throws IOException {
+    List<Schema> branches = schema.getTypes();
+    FieldWriter[] writers = new FieldWriter[branches.size()];
+    for (int i = 0; i < writers.length; i++) {
+      writers[i] = getWriterFor(branches.get(i));
+    }
+    FieldWriter resolvingWriter = (datum, encoder) -> {
+      int index = data.resolveUnion(schema, datum);
+      encoder.writeIndex(index);
+      writers[index].write(datum, encoder);
+    };
+
+    Integer nullBranch = schema.getIndexNamed(Schema.Type.NULL.getName());
+    if (branches.size() != 2 || nullBranch == null) {
+      return resolvingWriter;
+    }
+    int nullIndex = nullBranch;
+    int valueIndex = 1 - nullIndex;
+    Class<?> valueClass = primitiveClass(branches.get(valueIndex).getType());
+    if (valueClass == null) {
+      return resolvingWriter;
+    }
+    FieldWriter valueWriter = writers[valueIndex];
+    return (datum, encoder) -> {
+      if (datum == null || datum == JsonProperties.NULL_VALUE) {
+        encoder.writeIndex(nullIndex);
+        encoder.writeNull();
+      } else if (valueClass.isInstance(datum)) {
+        encoder.writeIndex(valueIndex);
+        valueWriter.write(datum, encoder);
+      } else {
+        // e.g. a converted value, or one of the wrong type to be rejected
+        resolvingWriter.write(datum, encoder);
+      }
+    };
+  }
+
+  /** The class of a value of a primitive type, or null for other types. */
+  private static Class<?> primitiveClass(Schema.Type type) {
+    switch (type) {
+    case BOOLEAN:
+      return Boolean.class;
+    case INT:
+      return Integer.class;
+    case LONG:
+      return Long.class;
+    case FLOAT:
+      return Float.class;
+    case DOUBLE:
+      return Double.class;
+    case STRING:
+      return CharSequence.class;
+    case BYTES:
+      return ByteBuffer.class;
+    default:
+      return null;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  protected FieldWriter createArrayWriter(Schema schema) throws IOException {
+    Schema elementSchema = schema.getElementType();
+    FieldWriter elementWriter = getWriterFor(elementSchema);
+    boolean bulk = data.getConversionFor(elementSchema.getLogicalType()) == null;
+    Schema.Type elementType = elementSchema.getType();
+    return (datum, encoder) -> {
+      Collection<Object> collection = (Collection<Object>) datum;
+      long size = collection.size();
+      encoder.writeArrayStart();
+      encoder.setItemCount(size);
+      if (bulk && datum instanceof PrimitiveArray && ((PrimitiveArray<?>) datum).getElementType() == elementType) {
+        // write unboxed numbers in bulk
+        ((PrimitiveArray<?>) datum).writeItems(encoder);
+        encoder.writeArrayEnd();
+        return;
+      }
+      long actualSize = 0;
+      for (Object element : collection) {
+        encoder.startItem();
+        elementWriter.write(element, encoder);
+        actualSize++;
+      }
+      encoder.writeArrayEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException(
+            "Size of array written was " + size + ", but number of elements written was " + actualSize + ". ");
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private FieldWriter createMapWriter(Schema schema) throws IOException {
+    FieldWriter valueWriter = getWriterFor(schema.getValueType());
+    return (datum, encoder) -> {
+      Map<Object, Object> map = (Map<Object, Object>) datum;
+      int size = map.size();
+      int actualSize = 0;
+      encoder.writeMapStart();
+      encoder.setItemCount(size);
+      for (Map.Entry<Object, Object> entry : map.entrySet()) {
+        encoder.startItem();
+        encoder.writeString(entry.getKey().toString());
+        valueWriter.write(entry.getValue(), encoder);
+        actualSize++;
+      }
+      encoder.writeMapEnd();
+      if (actualSize != size) {
+        throw new ConcurrentModificationException(
+            "Size of map written was " + size + ", but number of entries written was " + actualSize + ". ");
+      }
+    };
+  }
+
+  private FieldWriter createFixedWriter(Schema schema) {
+    int size = schema.getFixedSize();
+    return (datum, encoder) -> encoder.writeFixed(((GenericFixed) datum).bytes(), 0, size);
+  }
+
+  protected FieldWriter createStringWriter(Schema schema) {
+    if (data instanceof SpecificData) {
+      // stringable values are written through their string form
+      return (datum, encoder) -> {
+        if (datum instanceof CharSequence) {
+          encoder.writeString((CharSequence) datum);
+        } else {
+          encoder.writeString(datum.toString());
+        }
+      };
+    }
+    return (datum, encoder) -> encoder.writeString((CharSequence) datum);
+  }
+
+  protected FieldWriter createBytesWriter(Schema schema) {
+    return (datum, encoder) -> encoder.writeBytes((ByteBuffer) datum);
+  }
+
+  protected FieldWriter createIntWriter(Schema schema) {
+    return (datum, encoder) -> encoder.writeInt(((Number) datum).intValue());
+  }
+
+  public interface FieldWriter extends DatumWriter<Object> {
+    @Override
+    public void write(Object datum, Encoder encoder) throws IOException;
+
+    @Override
+    default void setSchema(Schema schema) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  public static class RecordWriter implements FieldWriter {
+    public enum Stage {
+      NEW, INITIALIZING, INITIALIZED
+    }
+
+    private WriteStep[] writeSteps;
+    private Field[] fields;
+    private Stage stage = Stage.NEW;
+
+    public Stage getInitializationStage() {
+      return this.stage;
+    }
+
+    public void reset() {
+      this.stage = Stage.NEW;
+    }
+
+    public void startInitialization() {
+      this.stage = Stage.INITIALIZING;
+    }
+
+    public void finishInitialization(WriteStep[] writeSteps, Field[] fields) {
+      this.writeSteps = writeSteps;
+      this.fields = fields;
+      this.stage = Stage.INITIALIZED;
+    }
+
+    @Override
+    public void write(Object datum, Encoder encoder) throws IOException {
+      int i = 0;
+      try {
+        for (; i < writeSteps.length; i++) {
+          writeSteps[i].execute(datum, encoder);
+        }
+      } catch (final UnresolvedUnionException uue) { // recreate it with the right field info
+        final UnresolvedUnionException unresolvedUnionException = new UnresolvedUnionException(fields[i].schema(),
+            fields[i], uue.getUnresolvedDatum());
+        unresolvedUnionException.addSuppressed(uue);
+        throw unresolvedUnionException;
+      } catch (NullPointerException e) {
+        NullPointerException result = new NullPointerException(e.getMessage() + " in field " + fields[i].name());
+        result.initCause(e.getCause() == null ? e : e.getCause());
+        throw result;
+      } catch (ClassCastException e) {
+        ClassCastException result = new ClassCastException(e.getMessage() + " in field " + fields[i].name());
+        result.initCause(e.getCause() == null ? e : e.getCause());
+        throw result;
+      } catch (AvroTypeException e) {
+        AvroTypeException result = new AvroTypeException(e.getMessage() + " in field " + fields[i].name());
+        result.initCause(e.getCause() == null ? e : e.getCause());
+        throw result;
+      }
+    }
+  }
+
+  public interface WriteStep {
+    public void execute(Object record, Encoder encoder) throws IOException;
+  }
+
+}
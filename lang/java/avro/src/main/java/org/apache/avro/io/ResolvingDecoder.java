@@ -24,8 +24,9 @@ import java.util.Objects;
 
 import org.apache.avro.AvroTypeException;
 import org.apache.avro.Schema;
-import org.apache.avro.io.parsing.ResolvingGrammarGenerator;
+import org.apache.avro.io.parsing.ResolutionCache;
 import org.apache.avro.io.parsing.Symbol;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 
 /**
@@ -81,7 +82,7 @@ public class ResolvingDecoder extends ValidatingDecoder {
   public static Object resolve(Schema writer, Schema reader) throws IOException {
     Objects.requireNonNull(writer, "Writer schema cannot be null");
     Objects.requireNonNull(reader, "Reader schema cannot be null");
-    return new ResolvingGrammarGenerator().generate(writer, reader);
+    return ResolutionCache.getGrammar(writer, reader);
   }
 
   /**
@@ -220,6 +221,18 @@ public class ResolvingDecoder extends ValidatingDecoder {
     }
   }
 
+  @Override
+  public String readInternedString(StringInterner interner) throws IOException {
+    Symbol actual = parser.advance(Symbol.STRING);
+    if (actual == Symbol.BYTES) {
+      ByteBuffer bytes = in.readBytes(null);
+      return interner.intern(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    } else {
+      assert actual == Symbol.STRING;
+      return in.readInternedString(interner);
+    }
+  }
+
   @Override
   public void skipString() throws IOException {
     Symbol actual = parser.advance(Symbol.STRING);
@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.util.WeakIdentityHashMap;
+
+/**
+ * Skips binary-encoded values of a schema without decoding them. The schema is
+ * compiled once into a skip program:
+ * <ul>
+ * <li>runs of fixed-size values (null, boolean, float, double, fixed and records
+ * of those) are skipped with a single buffer advance,</li>
+ * <li>arrays and maps are skipped a block at a time when the writer recorded
+ * block sizes, as {@link BlockingBinaryEncoder} does, and arrays of fixed-size
+ * elements a block at a time in any case.</li>
+ * </ul>
+ * Decoders other than {@link BinaryDecoder} are skipped value by value, as
+ * {@link GenericDatumReader#skip(Schema, Decoder)} does, by a second program.
+ * <p>
+ * Skippers are cached per schema instance. Compiled programs do not refer to
+ * their schemas, so a cached skipper does not keep its schema from being
+ * collected.
+ */
+public final class SchemaSkipper {
+
+  private static final Map<Schema, SchemaSkipper> CACHE = Collections.synchronizedMap(new WeakIdentityHashMap<>());
+
+  /** Returns the skipper for values of a schema. */
+  public static SchemaSkipper get(Schema schema) {
+    SchemaSkipper skipper = CACHE.get(schema);
+    if (skipper == null) {
+      skipper = new SchemaSkipper(Collections.singletonList(schema));
+      CACHE.put(schema, skipper);
+    }
+    return skipper;
+  }
+
+  /**
+   * Returns a skipper for consecutive values of several schemas, such as a run
+   * of record fields that a reader does not need.
+   */
+  public static SchemaSkipper get(List<Schema> schemas) {
+    if (schemas.size() == 1) {
+      return get(schemas.get(0));
+    }
+    return new SchemaSkipper(new ArrayList<>(schemas));
+  }
+
+  private final Step program;
+  private final Step genericProgram;
+
+  private SchemaSkipper(List<Schema> schemas) {
+    this.program = compile(schemas, true);
+    this.genericProgram = compile(schemas, false);
+  }
+
+  private static Step compile(List<Schema> schemas, boolean binary) {
+    Compiler compiler = new Compiler(binary);
+    Sequence sequence = new Sequence();
+    for (Schema schema : schemas) {
+      sequence.add(compiler.compile(schema));
+    }
+    return sequence.toStep();
+  }
+
+  /** Skips one value of each schema of this skipper. */
+  public void skip(Decoder in) throws IOException {
+    if (in instanceof BinaryDecoder) {
+      program.skip(in);
+    } else {
+      genericProgram.skip(in);
+    }
+  }
+
+  private interface Step {
+    void skip(Decoder in) throws IOException;
+  }
+
+  /** A compiled value: its encoded size if fixed, else a step that skips it. */
+  private static final class Compiled {
+    final int fixedSize;
+    final Step step;
+
+    Compiled(int fixedSize) {
+      this.fixedSize = fixedSize;
+      this.step = fixedSize == 0 ? in -> {
+      } : in -> in.skipFixed(fixedSize);
+    }
+
+    Compiled(Step step) {
+      this.fixedSize = -1;
+      this.step = step;
+    }
+
+    boolean isFixed() {
+      return fixedSize >= 0;
+    }
+  }
+
+  /** Concatenates steps, merging adjacent fixed-size runs. */
+  private static final class Sequence {
+    private final List<Step> steps = new ArrayList<>();
+    private long pendingFixed = 0;
+    private boolean variable = false;
+
+    void add(Compiled compiled) {
+      if (compiled.isFixed()) {
+        pendingFixed += compiled.fixedSize;
+      } else {
+        flush();
+        steps.add(compiled.step);
+        variable = true;
+      }
+    }
+
+    private void flush() {
+      while (pendingFixed > 0) {
+        int n = (int) Math.min(pendingFixed, Integer.MAX_VALUE);
+        steps.add(in -> in.skipFixed(n));
+        pendingFixed -= n;
+      }
+    }
+
+    Compiled toCompiled() {
+      if (!variable && pendingFixed <= Integer.MAX_VALUE) {
+        return new Compiled((int) pendingFixed);
+      }
+      return new Compiled(toStep());
+    }
+
+    Step toStep() {
+      flush();
+      Step[] all = steps.toArray(new Step[0]);
+      switch (all.length) {
+      case 0:
+        return in -> {
+        };
+      case 1:
+        return all[0];
+      default:
+        return in -> {
+          for (Step step : all) {
+            step.skip(in);
+          }
+        };
+      }
+    }
+  }
+
+  /**
+   * Compiles schemas into steps. Binary programs skip fixed-size values by
+   * their size; generic programs make the same calls as
+   * {@link GenericDatumReader#skip(Schema, Decoder)}, which any decoder accepts.
+   */
+  private static final class Compiler {
+    private final boolean binary;
+    // records being compiled, to break cycles in recursive schemas; each one
+    // maps to a slot that holds its step once compiled
+    private final Map<Schema, Step[]> inProgress = new IdentityHashMap<>();
+
+    Compiler(boolean binary) {
+      this.binary = binary;
+    }
+
+    Compiled compile(Schema schema) {
+      if (!binary) {
+        return compileGeneric(schema);
+      }
+      switch (schema.getType()) {
+      case NULL:
+        return new Compiled(0);
+      case BOOLEAN:
+        return new Compiled(1);
+      case FLOAT:
+        return new Compiled(4);
+      case DOUBLE:
+        return new Compiled(8);
+      case FIXED:
+        return new Compiled(schema.getFixedSize());
+      case INT:
+      case LONG:
+      case ENUM:
+        return new Compiled(Decoder::readLong);
+      case STRING:
+      case BYTES:
+        return new Compiled(Decoder::skipBytes);
+      case RECORD:
+        return compileRecord(schema);
+      case ARRAY:
+        return new Compiled(compileArray(compile(schema.getElementType())));
+      case MAP:
+        return new Compiled(compileMap(compile(schema.getValueType())));
+      case UNION:
+        return new Compiled(compileUnion(schema));
+      default:
+        throw new IllegalArgumentException("Unknown type: " + schema);
+      }
+    }
+
+    private Compiled compileGeneric(Schema schema) {
+      switch (schema.getType()) {
+      case NULL:
+        return new Compiled(Decoder::readNull);
+      case BOOLEAN:
+        return new Compiled(Decoder::readBoolean);
+      case FLOAT:
+        return new Compiled(Decoder::readFloat);
+      case DOUBLE:
+        return new Compiled(Decoder::readDouble);
+      case FIXED:
+        int size = schema.getFixedSize();
+        return new Compiled(in -> in.skipFixed(size));
+      case INT:
+      case ENUM:
+        return new Compiled(Decoder::readInt);
+      case LONG:
+        return new Compiled(Decoder::readLong);
+      case STRING:
+        return new Compiled(Decoder::skipString);
+      case BYTES:
+        return new Compiled(Decoder::skipBytes);
+      case RECORD:
+        return compileRecord(schema);
+      case ARRAY:
+        return new Compiled(compileArray(compile(schema.getElementType())));
+      case MAP:
+        return new Compiled(compileMap(compile(schema.getValueType())));
+      case UNION:
+        return new Compiled(compileUnion(schema));
+      default:
+        throw new IllegalArgumentException("Unknown type: " + schema);
+      }
+    }
+
+    private Compiled compileRecord(Schema schema) {
+      Step[] pending = inProgress.get(schema);
+      if (pending != null) {
+        // a recursive reference, filled in once the outer compilation is done
+        return new Compiled(in -> pending[0].skip(in));
+      }
+      Step[] slot = new Step[1];
+      inProgress.put(schema, slot);
+      Sequence sequence = new Sequence();
+      for (Field field : schema.getFields()) {
+        sequence.add(compile(field.schema()));
+      }
+      inProgress.remove(schema);
+      Compiled compiled = sequence.toCompiled();
+      slot[0] = compiled.step;
+      return compiled;
+    }
+
+    private Step compileArray(Compiled element) {
+      if (binary && element.isFixed()) {
+        long size = element.fixedSize;
+        return in -> {
+          for (long l = in.skipArray(); l > 0; l = in.skipArray()) {
+            ((BinaryDecoder) in).doSkipBytes(l * size);
+          }
+        };
+      }
+      Step step = element.step;
+      return in -> {
+        for (long l = in.skipArray(); l > 0; l = in.skipArray()) {
+          for (long i = 0; i < l; i++) {
+            step.skip(in);
+          }
+        }
+      };
+    }
+
+    private Step compileMap(Compiled value) {
+      Step step = value.step;
+      return in -> {
+        for (long l = in.skipMap(); l > 0; l = in.skipMap()) {
+          for (long i = 0; i < l; i++) {
+            in.skipString();
+            step.skip(in);
+          }
+        }
+      };
+    }
+
+    private Step compileUnion(Schema schema) {
+      List<Schema> branches = schema.getTypes();
+      Step[] steps = new Step[branches.size()];
+      for (int i = 0; i < steps.length; i++) {
+        steps[i] = compile(branches.get(i)).step;
+      }
+      return in -> steps[in.readIndex()].skip(in);
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.avro.Schema;
 import org.apache.avro.io.parsing.Parser;
 import org.apache.avro.io.parsing.Symbol;
 import org.apache.avro.io.parsing.ValidatingGrammarGenerator;
+import org.apache.avro.util.StringInterner;
 import org.apache.avro.util.Utf8;
 
 /**
@@ -100,6 +101,57 @@ public class ValidatingDecoder extends ParsingDecoder implements Parser.ActionHa
     return in.readDouble();
   }
 
+  // Once the first of a run of array items has been read as usual, the rest of
+  // the run needs no parsing if the items are just the expected terminal.
+
+  @Override
+  public void readInts(int[] dst, int start, int length) throws IOException {
+    if (length > 0) {
+      dst[start] = readInt();
+      if (parser.isRepeating(Symbol.INT)) {
+        in.readInts(dst, start + 1, length - 1);
+      } else {
+        super.readInts(dst, start + 1, length - 1);
+      }
+    }
+  }
+
+  @Override
+  public void readLongs(long[] dst, int start, int length) throws IOException {
+    if (length > 0) {
+      dst[start] = readLong();
+      if (parser.isRepeating(Symbol.LONG)) {
+        in.readLongs(dst, start + 1, length - 1);
+      } else {
+        super.readLongs(dst, start + 1, length - 1);
+      }
+    }
+  }
+
+  @Override
+  public void readFloats(float[] dst, int start, int length) throws IOException {
+    if (length > 0) {
+      dst[start] = readFloat();
+      if (parser.isRepeating(Symbol.FLOAT)) {
+        in.readFloats(dst, start + 1, length - 1);
+      } else {
+        super.readFloats(dst, start + 1, length - 1);
+      }
+    }
+  }
+
+  @Override
+  public void readDoubles(double[] dst, int start, int length) throws IOException {
+    if (length > 0) {
+      dst[start] = readDouble();
+      if (parser.isRepeating(Symbol.DOUBLE)) {
+        in.readDoubles(dst, start + 1, length - 1);
+      } else {
+        super.readDoubles(dst, start + 1, length - 1);
+      }
+    }
+  }
+
   @Override
   public Utf8 readString(Utf8 old) throws IOException {
     parser.advance(Symbol.STRING);
@@ -112,6 +164,12 @@ public class ValidatingDecoder extends ParsingDecoder implements Parser.ActionHa
     return in.readString();
   }
 
+  @Override
+  public String readInternedString(StringInterner interner) throws IOException {
+    parser.advance(Symbol.STRING);
+    return in.readInternedString(interner);
+  }
+
   @Override
   public void skipString() throws IOException {
     parser.advance(Symbol.STRING);
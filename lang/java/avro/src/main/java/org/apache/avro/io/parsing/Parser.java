@@ -119,6 +119,19 @@ public class Parser {
     }
   }
 
+  /**
+   * Returns true if the top of the stack is a repeater each of whose repetitions
+   * is just the given terminal, as when between the items of an array of ints.
+   * The parser then stays in the same state however many such items follow.
+   */
+  public final boolean isRepeating(Symbol terminal) {
+    if (pos == 0) {
+      return false;
+    }
+    Symbol top = stack[pos - 1];
+    return top.kind == Symbol.Kind.REPEATER && top.production.length == 2 && top.production[1] == terminal;
+  }
+
   /**
    * Performs any "trailing" implicit actions at the top the stack.
    */
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io.parsing;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.avro.Resolver;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+
+/**
+ * Process-wide cache of schema resolution results: {@link Resolver.Action}
+ * trees and resolving grammars. Both are immutable and expensive to build, and
+ * are shared here by every thread and every instance of a schema, so a writer
+ * schema which is parsed again for each message is only resolved once.
+ * <p>
+ * Entries are found by the 64-bit parsing fingerprints of the writer's and
+ * reader's schemas. Since the parsing form leaves out logical types, defaults
+ * and properties, a hit also requires the schemas to be
+ * {@link Schema#equals(Object) equal}. The cache holds at most
+ * {@value #MAX_ENTRIES} entries of each kind and drops the least recently used.
+ */
+public final class ResolutionCache {
+
+  private static final int MAX_ENTRIES = 1024;
+
+  private static final Map<Key, Resolver.Action> ACTIONS = newCache();
+
+  private static final Map<Key, Symbol> GRAMMARS = newCache();
+
+  private ResolutionCache() {
+  }
+
+  private static <V> Map<Key, V> newCache() {
+    return Collections.synchronizedMap(new LinkedHashMap<Key, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+        return size() > MAX_ENTRIES;
+      }
+    });
+  }
+
+  /**
+   * Returns the result of {@link Resolver#resolve(Schema, Schema, GenericData)}
+   * for the schemas, resolving them only if no equal pair was resolved with the
+   * same data model before.
+   */
+  public static Resolver.Action getAction(Schema writer, Schema reader, GenericData data) {
+    Key key = new Key(Schema.applyAliases(writer, reader), reader, data);
+    Resolver.Action action = ACTIONS.get(key);
+    if (action == null) {
+      action = Resolver.resolve(key.writer, reader, data);
+      ACTIONS.put(key, action);
+    }
+    return action;
+  }
+
+  /**
+   * Returns the start symbol of the grammar that resolves the writer's schema
+   * against the reader's, as {@link ResolvingGrammarGenerator#generate(Schema, Schema)}
+   * does, generating it only if no equal pair was seen before.
+   */
+  public static Symbol getGrammar(Schema writer, Schema reader) throws IOException {
+    Key key = new Key(Schema.applyAliases(writer, reader), reader, null);
+    Symbol grammar = GRAMMARS.get(key);
+    if (grammar == null) {
+      grammar = new ResolvingGrammarGenerator().generate(key.writer, reader);
+      GRAMMARS.put(key, grammar);
+    }
+    return grammar;
+  }
+
+  /**
+   * Drops the actions resolved with a data model, e.g. because it has new
+   * logical type conversions which the actions would otherwise miss.
+   */
+  public static void forget(GenericData data) {
+    synchronized (ACTIONS) {
+      ACTIONS.keySet().removeIf(key -> key.data == data);
+    }
+  }
+
+  private static final class Key {
+    private final Schema writer;
+    private final Schema reader;
+    private final GenericData data;
+    private final int hash;
+
+    Key(Schema writer, Schema reader, GenericData data) {
+      this.writer = writer;
+      this.reader = reader;
+      this.data = data;
+      long fingerprint = SchemaNormalization.parsingFingerprint64(writer) * 31
+          + SchemaNormalization.parsingFingerprint64(reader);
+      this.hash = Long.hashCode(fingerprint) * 31 + System.identityHashCode(data);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) o;
+      return hash == that.hash && data == that.data && writer.equals(that.writer) && reader.equals(that.reader);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.apache.avro.AvroTypeException;
 import org.apache.avro.Resolver;
 import org.apache.avro.Schema;
 import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.util.internal.Accessor;
@@ -61,7 +62,7 @@ public class ResolvingGrammarGenerator extends ValidatingGrammarGenerator {
    * @throws IOException
    */
   public final Symbol generate(Schema writer, Schema reader) throws IOException {
-    Resolver.Action r = Resolver.resolve(writer, reader);
+    Resolver.Action r = ResolutionCache.getAction(writer, reader, GenericData.get());
     return Symbol.root(generate(r, new HashMap<>()));
   }
 
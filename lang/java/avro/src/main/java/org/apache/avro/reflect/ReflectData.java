@@ -33,6 +33,8 @@ import org.apache.avro.generic.IndexedRecord;
 import org.apache.avro.io.BinaryData;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.FastWriterBuilder;
 import org.apache.avro.specific.FixedSize;
 import org.apache.avro.specific.SpecificData;
 import org.apache.avro.util.ClassUtils;
@@ -97,6 +99,16 @@ public class ReflectData extends SpecificData {
       }
       return makeNullable(schema);
     }
+
+    @Override
+    protected boolean isFastReaderSupported() {
+      return getClass() == AllowNull.class;
+    }
+
+    @Override
+    protected boolean isFastWriterSupported() {
+      return getClass() == AllowNull.class;
+    }
   }
 
   private static final ReflectData INSTANCE = new ReflectData();
@@ -414,7 +426,7 @@ public class ReflectData extends SpecificData {
     return null;
   }
 
-  private FieldAccessor getFieldAccessor(Class<?> c, String fieldName) {
+  FieldAccessor getFieldAccessor(Class<?> c, String fieldName) {
     ClassAccessorData data = getClassAccessorData(c);
     if (data != null) {
       return data.getAccessorFor(fieldName);
@@ -465,6 +477,14 @@ public class ReflectData extends SpecificData {
     ARRAY_CLASSES.put(boolean.class, boolean[].class);
   }
 
+  @Override
+  protected boolean isUnionBranchPerClass(Object datum) {
+    // classes have one induced schema each, but whether a map is written as a
+    // map or an array depends on its keys; subclasses opt in themselves
+    return (getClass() == ReflectData.class || getClass() == AllowNull.class) && !(datum instanceof Map)
+        && hasSchemaPerClass(datum);
+  }
+
   /**
    * It returns false for non-string-maps because Avro writes out such maps as an
    * array of records. Even their JSON representation is an array.
@@ -1024,6 +1044,26 @@ public class ReflectData extends SpecificData {
     return super.createFixed(old, schema);
   }
 
+  @Override
+  protected boolean isFastReaderSupported() {
+    return getClass() == ReflectData.class;
+  }
+
+  @Override
+  protected FastReaderBuilder createFastReaderBuilder() {
+    return new ReflectFastReaderBuilder(this);
+  }
+
+  @Override
+  protected boolean isFastWriterSupported() {
+    return getClass() == ReflectData.class;
+  }
+
+  @Override
+  protected FastWriterBuilder createFastWriterBuilder() {
+    return new ReflectFastWriterBuilder(this);
+  }
+
   @Override
   public Object newRecord(Object old, Schema schema) {
     // SpecificData will try to instantiate the type returned by getClass, but
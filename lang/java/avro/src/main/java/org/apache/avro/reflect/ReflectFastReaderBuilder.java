@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.reflect;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Conversion;
+import org.apache.avro.LogicalType;
+import org.apache.avro.Resolver.Action;
+import org.apache.avro.Resolver.Container;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.FastReaderBuilder;
+import org.apache.avro.io.ResolvingDecoder;
+import org.apache.avro.specific.SpecificData;
+
+/**
+ * {@link FastReaderBuilder} for {@link ReflectData}. Fields of plain Java
+ * objects are set through their {@link FieldAccessor}, and values take the
+ * representations {@link ReflectDatumReader} produces: strings, byte arrays,
+ * Java arrays and collections, {@link Stringable} types and
+ * {@link AvroEncode custom encodings}.
+ */
+class ReflectFastReaderBuilder extends FastReaderBuilder {
+
+  private final ReflectData data;
+
+  ReflectFastReaderBuilder(ReflectData data) {
+    super(data);
+    this.data = data;
+  }
+
+  @Override
+  protected ExecutionStep createFieldStep(Object testInstance, Field field, Action action, Conversion<?> conversion)
+      throws IOException {
+    FieldAccessor accessor = getAccessor(testInstance, field);
+    if (accessor == null) {
+      return super.createFieldStep(testInstance, field, action, conversion);
+    }
+
+    if (accessor.isCustomEncoded()) {
+      return createAccessorIOStep(accessor, action);
+    }
+    if (accessor.supportsIO() && field.schema().getType() != Schema.Type.UNION
+        && action.type == Action.Type.DO_NOTHING) {
+      return (object, decoder) -> accessor.read(object, decoder);
+    }
+
+    if (accessor.isStringable()) {
+      FieldReader stringReader = getReaderFor(action, null);
+      Class<?> fieldClass = accessor.getField().getType();
+      Function<String, ?> constructor = ReflectionUtil.getConstructorAsFunction(String.class, fieldClass);
+      if (constructor == null) {
+        throw new AvroRuntimeException("Failed to read Stringable " + field + ": no String constructor");
+      }
+      return createFieldSetter(testInstance, field, (old, decoder) -> {
+        Object value = stringReader.read(null, decoder);
+        return (value == null || fieldClass.isInstance(value)) ? value : constructor.apply(value.toString());
+      });
+    }
+
+    LogicalType logicalType = field.schema().getLogicalType();
+    if (conversion == null && logicalType != null) {
+      conversion = data.getConversionByClass(accessor.getField().getType(), logicalType);
+    }
+    return createFieldSetter(testInstance, field, getReaderFor(action, conversion));
+  }
+
+  /**
+   * Lets a custom encoding decode the field itself. It expects the reader's
+   * encoding, so a writer with a different field schema is read through a
+   * {@link ResolvingDecoder}.
+   */
+  private ExecutionStep createAccessorIOStep(FieldAccessor accessor, Action action) {
+    if (action.type == Action.Type.DO_NOTHING || action.writer.equals(action.reader)) {
+      return (object, decoder) -> accessor.read(object, decoder);
+    }
+    Schema writer = Schema.applyAliases(action.writer, action.reader);
+    Schema reader = action.reader;
+    return (object, decoder) -> {
+      ResolvingDecoder resolver = DecoderFactory.get().resolvingDecoder(writer, reader, decoder);
+      accessor.read(object, resolver);
+      resolver.drain();
+    };
+  }
+
+  @Override
+  protected ExecutionStep createFieldSetter(Object testInstance, Field field, FieldReader reader) {
+    FieldAccessor accessor = getAccessor(testInstance, field);
+    if (accessor == null) {
+      return super.createFieldSetter(testInstance, field, reader);
+    }
+    if (reader.canReuse()) {
+      return (object, decoder) -> {
+        try {
+          accessor.set(object, reader.read(accessor.get(object), decoder));
+        } catch (IllegalAccessException e) {
+          throw new AvroRuntimeException("Failed to set " + field);
+        }
+      };
+    } else {
+      return (object, decoder) -> {
+        try {
+          accessor.set(object, reader.read(null, decoder));
+        } catch (IllegalAccessException e) {
+          throw new AvroRuntimeException("Failed to set " + field);
+        }
+      };
+    }
+  }
+
+  private FieldAccessor getAccessor(Object testInstance, Field field) {
+    if (testInstance instanceof IndexedRecord) {
+      return null;
+    }
+    return data.getFieldAccessor(testInstance.getClass(), field.name());
+  }
+
+  @Override
+  protected FieldReader createSimpleStringReader(Schema readerSchema) {
+    if (GenericData.isStringInterned(readerSchema)) {
+      return super.createSimpleStringReader(readerSchema);
+    }
+    return (old, decoder) -> decoder.readString();
+  }
+
+  @Override
+  protected FieldReader createIntReader(Schema readerSchema) {
+    String intClass = readerSchema.getProp(SpecificData.CLASS_PROP);
+    if (Byte.class.getName().equals(intClass)) {
+      return (old, decoder) -> (byte) decoder.readInt();
+    } else if (Short.class.getName().equals(intClass)) {
+      return (old, decoder) -> (short) decoder.readInt();
+    } else if (Character.class.getName().equals(intClass)) {
+      return (old, decoder) -> (char) decoder.readInt();
+    }
+    return super.createIntReader(readerSchema);
+  }
+
+  @Override
+  protected FieldReader createBytesReader(Schema readerSchema) {
+    Class<?> c = ReflectData.getClassProp(readerSchema, SpecificData.CLASS_PROP);
+    if (c != null && c.isArray()) {
+      return (old, decoder) -> {
+        ByteBuffer bytes = decoder.readBytes(null);
+        byte[] result = new byte[bytes.remaining()];
+        bytes.get(result);
+        return result;
+      };
+    }
+    return super.createBytesReader(readerSchema);
+  }
+
+  @Override
+  protected FieldReader createArrayReader(Schema readerSchema, Container action) throws IOException {
+    Class<?> collectionClass = ReflectData.getClassProp(readerSchema, SpecificData.CLASS_PROP);
+    Class<?> elementClass = ReflectData.getClassProp(readerSchema, SpecificData.ELEMENT_PROP);
+    Schema elementSchema = readerSchema.getElementType();
+    if (elementClass == null) {
+      // see if the element class will be converted and use that class
+      Conversion<?> elementConversion = data.getConversionFor(elementSchema.getLogicalType());
+      if (elementConversion != null) {
+        elementClass = elementConversion.getConvertedType();
+      }
+    }
+    if (collectionClass == null && elementClass == null) {
+      return super.createArrayReader(readerSchema, action);
+    }
+
+    FieldReader elementReader = getReaderFor(action.elementAction, null);
+    if (collectionClass != null && !collectionClass.isArray()) {
+      return createCollectionReader(readerSchema, collectionClass, elementReader);
+    }
+
+    if (elementClass == null) {
+      elementClass = collectionClass.getComponentType();
+    }
+    if (elementClass == null) {
+      elementClass = data.getClass(elementSchema);
+    }
+    if (action.elementAction.type == Action.Type.DO_NOTHING && elementSchema.getLogicalType() == null) {
+      FieldReader primitiveReader = createPrimitiveJavaArrayReader(elementClass);
+      if (primitiveReader != null) {
+        return primitiveReader;
+      }
+    }
+    Class<?> componentClass = elementClass;
+    return (old, decoder) -> {
+      List<Object> elements = new ArrayList<>();
+      for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+        for (long i = 0; i < l; i++) {
+          elements.add(elementReader.read(null, decoder));
+        }
+      }
+      Object array = Array.newInstance(componentClass, elements.size());
+      for (int i = 0; i < elements.size(); i++) {
+        Array.set(array, i, elements.get(i));
+      }
+      return array;
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private FieldReader createCollectionReader(Schema readerSchema, Class<?> collectionClass, FieldReader elementReader) {
+    boolean isMap = ReflectData.isNonStringMapSchema(readerSchema);
+    return reusingReader((old, decoder) -> {
+      Object result;
+      if (old instanceof Collection) {
+        ((Collection<?>) old).clear();
+        result = old;
+      } else if (old instanceof Map && isMap) {
+        ((Map<?, ?>) old).clear();
+        result = old;
+      } else if (collectionClass.isAssignableFrom(ArrayList.class)) {
+        result = new ArrayList<>();
+      } else {
+        result = SpecificData.newInstance(collectionClass, readerSchema);
+      }
+
+      for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+        for (long i = 0; i < l; i++) {
+          Object element = elementReader.read(null, decoder);
+          if (result instanceof Collection) {
+            ((Collection<Object>) result).add(element);
+          } else if (isMap) {
+            IndexedRecord entry = (IndexedRecord) element;
+            ((Map<Object, Object>) result).put(entry.get(ReflectData.NS_MAP_KEY_INDEX),
+                entry.get(ReflectData.NS_MAP_VALUE_INDEX));
+          } else {
+            throw new AvroRuntimeException("Expected a schema of map with non-string keys but got " + readerSchema);
+          }
+        }
+      }
+      return result;
+    });
+  }
+
+  // reads arrays of numbers straight into Java arrays, in bulk
+  private FieldReader createPrimitiveJavaArrayReader(Class<?> elementClass) {
+    if (elementClass == int.class) {
+      return (old, decoder) -> {
+        int[] array = new int[0];
+        for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+          int start = array.length;
+          array = Arrays.copyOf(array, start + (int) l);
+          decoder.readInts(array, start, (int) l);
+        }
+        return array;
+      };
+    } else if (elementClass == long.class) {
+      return (old, decoder) -> {
+        long[] array = new long[0];
+        for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+          int start = array.length;
+          array = Arrays.copyOf(array, start + (int) l);
+          decoder.readLongs(array, start, (int) l);
+        }
+        return array;
+      };
+    } else if (elementClass == float.class) {
+      return (old, decoder) -> {
+        float[] array = new float[0];
+        for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+          int start = array.length;
+          array = Arrays.copyOf(array, start + (int) l);
+          decoder.readFloats(array, start, (int) l);
+        }
+        return array;
+      };
+    } else if (elementClass == double.class) {
+      return (old, decoder) -> {
+        double[] array = new double[0];
+        for (long l = decoder.readArrayStart(); l > 0; l = decoder.arrayNext()) {
+          int start = array.length;
+          array = Arrays.copyOf(array, start + (int) l);
+          decoder.readDoubles(array, start, (int) l);
+        }
+        return array;
+      };
+    }
+    return null;
+  }
+}
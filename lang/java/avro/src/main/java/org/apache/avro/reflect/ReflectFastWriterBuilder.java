@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.reflect;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.FastWriterBuilder;
+
+/**
+ * {@link FastWriterBuilder} for {@link ReflectData}. Fields of plain Java
+ * objects are read through their {@link FieldAccessor}, and values may take the
+ * representations {@link ReflectDatumWriter} accepts: byte, short and char
+ * numbers, byte arrays, Java arrays, non-string-keyed maps, {@link Stringable}
+ * types and {@link AvroEncode custom encodings}.
+ */
+class ReflectFastWriterBuilder extends FastWriterBuilder {
+
+  private final ReflectData data;
+
+  ReflectFastWriterBuilder(ReflectData data) {
+    super(data);
+    this.data = data;
+  }
+
+  @Override
+  protected WriteStep createFieldStep(Schema recordSchema, Field field) throws IOException {
+    int pos = field.pos();
+    String name = field.name();
+    boolean union = field.schema().getType() == Schema.Type.UNION;
+    FieldWriter writer = getWriterFor(field.schema());
+    ClassValue<FieldAccessor> accessors = new ClassValue<FieldAccessor>() {
+      @Override
+      protected FieldAccessor computeValue(Class<?> c) {
+        return data.getFieldAccessor(c, name);
+      }
+    };
+    return (record, encoder) -> {
+      if (record instanceof IndexedRecord) {
+        writer.write(((IndexedRecord) record).get(pos), encoder);
+        return;
+      }
+      FieldAccessor accessor = accessors.get(record.getClass());
+      if (accessor == null) {
+        writer.write(data.getField(record, name, pos), encoder);
+        return;
+      }
+      if (accessor.supportsIO() && (!union || accessor.isCustomEncoded())) {
+        accessor.write(record, encoder);
+        return;
+      }
+      Object value;
+      try {
+        value = accessor.get(record);
+      } catch (IllegalAccessException e) {
+        throw new AvroRuntimeException("Failed to get " + field, e);
+      }
+      if (accessor.isStringable() && value != null) {
+        value = value.toString();
+      }
+      writer.write(value, encoder);
+    };
+  }
+
+  @Override
+  protected FieldWriter createUnionWriter(Schema schema) throws IOException {
+    FieldWriter unionWriter = super.createUnionWriter(schema);
+    return (datum, encoder) -> unionWriter.write(toWritable(datum, schema), encoder);
+  }
+
+  @Override
+  protected FieldWriter createIntWriter(Schema schema) {
+    return (datum, encoder) -> {
+      if (datum instanceof Character) {
+        encoder.writeInt((Character) datum);
+      } else {
+        encoder.writeInt(((Number) datum).intValue());
+      }
+    };
+  }
+
+  @Override
+  protected FieldWriter createBytesWriter(Schema schema) {
+    FieldWriter bufferWriter = super.createBytesWriter(schema);
+    return (datum, encoder) -> {
+      if (datum instanceof byte[]) {
+        encoder.writeBytes((byte[]) datum);
+      } else {
+        bufferWriter.write(datum, encoder);
+      }
+    };
+  }
+
+  @Override
+  protected FieldWriter createArrayWriter(Schema schema) throws IOException {
+    FieldWriter collectionWriter = super.createArrayWriter(schema);
+    Schema element = schema.getElementType();
+    FieldWriter elementWriter = getWriterFor(element);
+    return (datum, encoder) -> {
+      datum = toWritable(datum, schema);
+      if (datum instanceof Collection) {
+        collectionWriter.write(datum, encoder);
+        return;
+      }
+      Class<?> elementClass = datum.getClass().getComponentType();
+      if (elementClass == null) {
+        // not a Collection or an Array
+        throw new AvroRuntimeException("Array data must be a Collection or Array");
+      }
+      encoder.writeArrayStart();
+      if (elementClass.isPrimitive()) {
+        writePrimitiveArray(element.getType(), elementClass, datum, encoder);
+      } else {
+        Object[] array = (Object[]) datum;
+        encoder.setItemCount(array.length);
+        for (Object item : array) {
+          encoder.startItem();
+          elementWriter.write(item, encoder);
+        }
+      }
+      encoder.writeArrayEnd();
+    };
+  }
+
+  private void writePrimitiveArray(Schema.Type type, Class<?> elementClass, Object datum, Encoder encoder)
+      throws IOException {
+    switch (type) {
+    case BOOLEAN:
+      ArrayAccessor.writeArray((boolean[]) datum, encoder);
+      break;
+    case DOUBLE:
+      ArrayAccessor.writeArray((double[]) datum, encoder);
+      break;
+    case FLOAT:
+      ArrayAccessor.writeArray((float[]) datum, encoder);
+      break;
+    case INT:
+      if (elementClass.equals(int.class)) {
+        ArrayAccessor.writeArray((int[]) datum, encoder);
+      } else if (elementClass.equals(char.class)) {
+        ArrayAccessor.writeArray((char[]) datum, encoder);
+      } else if (elementClass.equals(short.class)) {
+        ArrayAccessor.writeArray((short[]) datum, encoder);
+      } else {
+        arrayError(elementClass, type);
+      }
+      break;
+    case LONG:
+      ArrayAccessor.writeArray((long[]) datum, encoder);
+      break;
+    default:
+      arrayError(elementClass, type);
+    }
+  }
+
+  private void arrayError(Class<?> cl, Schema.Type type) {
+    throw new AvroRuntimeException("Error writing array with inner type " + cl + " and avro type: " + type);
+  }
+
+  /**
+   * Converts values the way {@link ReflectDatumWriter} does before it looks at
+   * the schema: small numbers to int and maps with non-string keys to a list of
+   * entries.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object toWritable(Object datum, Schema schema) {
+    if (datum instanceof Byte) {
+      return ((Byte) datum).intValue();
+    } else if (datum instanceof Short) {
+      return ((Short) datum).intValue();
+    } else if (datum instanceof Character) {
+      return (int) (char) (Character) datum;
+    } else if (datum instanceof Map && ReflectData.isNonStringMapSchema(schema)) {
+      Map<Object, Object> map = (Map<Object, Object>) datum;
+      List<Map.Entry> entryList = new ArrayList<>(map.size());
+      for (Map.Entry<Object, Object> e : map.entrySet()) {
+        entryList.add(new MapEntry(e.getKey(), e.getValue()));
+      }
+      return entryList;
+    }
+    return datum;
+  }
+}
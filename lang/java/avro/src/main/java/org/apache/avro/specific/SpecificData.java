@@ -206,6 +206,13 @@ public class SpecificData extends GenericData {
     useCustomCoderFlag = flag;
   }
 
+  @Override
+  protected boolean isUnionBranchPerClass(Object datum) {
+    // generated classes have one schema per class; subclasses opt in themselves
+    return getClass() == SpecificData.class
+        && (datum instanceof SpecificRecord || datum instanceof SpecificFixed || hasSchemaPerClass(datum));
+  }
+
   @Override
   protected boolean isEnum(Object datum) {
     return datum instanceof Enum || super.isEnum(datum);
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A cache of the strings decoded from UTF-8 bytes, for fields that repeat a
+ * small set of values such as codes or event types. A decoded string is
+ * returned without allocation when the same bytes were decoded recently.
+ *
+ * The cache has a fixed number of slots, each holding the last string whose
+ * bytes hashed to it, so its size is bounded however many distinct values are
+ * seen. Strings longer than {@link #MAX_BYTES} bytes are never cached. It may
+ * be shared between threads: a racing update at worst causes a miss.
+ */
+public class StringInterner {
+  /** Strings longer than this many bytes are decoded without being cached. */
+  public static final int MAX_BYTES = 64;
+
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private static final class Entry {
+    final int hash;
+    final byte[] bytes;
+    final String string;
+
+    Entry(int hash, byte[] bytes, String string) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.string = string;
+    }
+  }
+
+  private final Entry[] entries;
+  private final int mask;
+
+  public StringInterner() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /** @param capacity the number of slots, rounded up to a power of two */
+  public StringInterner(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    int slots = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+    if (slots < capacity) {
+      slots <<= 1;
+    }
+    this.entries = new Entry[slots];
+    this.mask = slots - 1;
+  }
+
+  /** Return the string encoded by some UTF-8 bytes. */
+  public String intern(byte[] bytes, int start, int length) {
+    if (length > MAX_BYTES) {
+      return new String(bytes, start, length, StandardCharsets.UTF_8);
+    }
+    int hash = hash(bytes, start, length);
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    Entry entry = entries[slot];
+    if (entry != null && entry.hash == hash && entry.bytes.length == length && equals(entry.bytes, bytes, start)) {
+      return entry.string;
+    }
+    String string = new String(bytes, start, length, StandardCharsets.UTF_8);
+    entries[slot] = new Entry(hash, Arrays.copyOfRange(bytes, start, start + length), string);
+    return string;
+  }
+
+  private static int hash(byte[] bytes, int start, int length) {
+    int hash = 0;
+    for (int i = start, end = start + length; i < end; i++) {
+      hash = hash * 31 + bytes[i];
+    }
+    return hash;
+  }
+
+  private static boolean equals(byte[] cached, byte[] bytes, int start) {
+    for (int i = 0; i < cached.length; i++) {
+      if (cached[i] != bytes[start + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
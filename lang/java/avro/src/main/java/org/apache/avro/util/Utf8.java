@@ -173,9 +173,11 @@ public class Utf8 implements Comparable<Utf8>, CharSequence {
   @Override
   public int hashCode() {
     if (!hasHash) {
+      int h = 0;
       for (int i = 0; i < length; i++) {
-        hash = hash * 31 + bytes[i];
+        h = h * 31 + bytes[i];
       }
+      hash = h;
       hasHash = true;
     }
     return hash;
@@ -53,12 +53,20 @@ public class Accessor {
         throws IOException;
   }
 
+  public abstract static class UnionSchemaAccessor {
+    protected abstract Object getBranchCache(Schema union);
+
+    protected abstract void setBranchCache(Schema union, Object cache);
+  }
+
   private static volatile JsonPropertiesAccessor jsonPropertiesAccessor;
 
   private static volatile FieldAccessor fieldAccessor;
 
   private static volatile ResolvingGrammarGeneratorAccessor resolvingGrammarGeneratorAccessor;
 
+  private static volatile UnionSchemaAccessor unionSchemaAccessor;
+
   public static void setAccessor(JsonPropertiesAccessor accessor) {
     if (jsonPropertiesAccessor != null)
       throw new IllegalStateException("JsonPropertiesAccessor already initialized");
@@ -89,6 +97,12 @@ public class Accessor {
     return resolvingGrammarGeneratorAccessor;
   }
 
+  public static void setAccessor(UnionSchemaAccessor accessor) {
+    if (unionSchemaAccessor != null)
+      throw new IllegalStateException("UnionSchemaAccessor already initialized");
+    unionSchemaAccessor = accessor;
+  }
+
   private static void ensureLoaded(Class<?> c) {
     try {
       Class.forName(c.getName());
@@ -101,6 +115,20 @@ public class Accessor {
     jsonPropertiesAccessor.addProp(props, name, value);
   }
 
+  /**
+   * The cache of union branches a data model keeps on a union schema, or null if
+   * none was set. Union schemas are loaded, and so register their accessor,
+   * before any instance exists.
+   */
+  public static Object getUnionBranchCache(Schema union) {
+    return unionSchemaAccessor.getBranchCache(union);
+  }
+
+  /** Keeps a cache of union branches on a union schema. */
+  public static void setUnionBranchCache(Schema union, Object cache) {
+    unionSchemaAccessor.setBranchCache(union, cache);
+  }
+
   public static JsonNode defaultValue(Field field) {
     return fieldAccessor.defaultValue(field);
   }
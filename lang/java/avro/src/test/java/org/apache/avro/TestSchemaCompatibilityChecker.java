@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.SchemaCompatibility.SchemaCompatibilityType;
+import org.apache.avro.SchemaCompatibility.SchemaPairCompatibility;
+import org.junit.Test;
+
+public class TestSchemaCompatibilityChecker {
+
+  private static final String LIST = "{\"type\":\"record\",\"name\":\"List\",\"fields\":["
+      + "{\"name\":\"value\",\"type\":\"%s\"},{\"name\":\"next\",\"type\":[\"null\",\"List\"]}]}";
+
+  private static final String EVENT = "{\"type\":\"record\",\"name\":\"Event\",\"fields\":["
+      + "{\"name\":\"id\",\"type\":\"long\"},"
+      + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[%s]}},"
+      + "{\"name\":\"payload\",\"type\":{\"type\":\"record\",\"name\":\"Payload\",\"fields\":[%s]}}]}";
+
+  private static final String[] SCHEMAS = { String.format(LIST, "int"), String.format(LIST, "long"),
+      String.format(LIST, "string"),
+      String.format(EVENT, "\"A\"", "{\"name\":\"x\",\"type\":\"int\"}"),
+      String.format(EVENT, "\"A\",\"B\"", "{\"name\":\"x\",\"type\":\"int\"}"),
+      String.format(EVENT, "\"A\"", "{\"name\":\"x\",\"type\":\"long\"}"),
+      String.format(EVENT, "\"A\"",
+          "{\"name\":\"x\",\"type\":\"int\"},{\"name\":\"y\",\"type\":\"string\",\"default\":\"\"}"),
+      String.format(EVENT, "\"A\"", "{\"name\":\"x\",\"type\":\"int\"},{\"name\":\"y\",\"type\":\"string\"}"),
+      // the same in parsing form as the last two, but not for compatibility
+      String.format(EVENT, "\"A\"", "{\"name\":\"z\",\"type\":\"int\",\"aliases\":[\"x\"]}"),
+      String.format(EVENT, "\"A\"", "{\"name\":\"z\",\"type\":\"int\"}"),
+      "[\"null\",\"int\",\"string\"]", "[\"int\",\"long\"]", "\"long\"", "\"int\"" };
+
+  private static List<Schema> schemas() {
+    List<Schema> schemas = new ArrayList<>();
+    for (String json : SCHEMAS) {
+      schemas.add(new Schema.Parser().parse(json));
+    }
+    return schemas;
+  }
+
+  @Test
+  public void testSameResults() {
+    SchemaCompatibility.Checker checker = new SchemaCompatibility.Checker();
+    // check each pair several times, and with schemas parsed again, so that
+    // later checks use what earlier ones remembered
+    for (int round = 0; round < 3; round++) {
+      List<Schema> readers = schemas();
+      List<Schema> writers = schemas();
+      for (Schema reader : readers) {
+        for (Schema writer : writers) {
+          assertEquals(SchemaCompatibility.checkReaderWriterCompatibility(reader, writer),
+              checker.checkReaderWriterCompatibility(reader, writer));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAliases() {
+    SchemaCompatibility.Checker checker = new SchemaCompatibility.Checker();
+    Schema writer = new Schema.Parser().parse(SCHEMAS[3]);
+    assertEquals(SchemaCompatibilityType.COMPATIBLE,
+        checker.checkReaderWriterCompatibility(new Schema.Parser().parse(SCHEMAS[8]), writer).getType());
+    assertEquals(SchemaCompatibilityType.INCOMPATIBLE,
+        checker.checkReaderWriterCompatibility(new Schema.Parser().parse(SCHEMAS[9]), writer).getType());
+  }
+
+  @Test
+  public void testDefaults() {
+    SchemaCompatibility.Checker checker = new SchemaCompatibility.Checker();
+    Schema writer = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[]}");
+    String reader = "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"x\",\"type\":\"int\"%s}]}";
+    // readers that differ only in a default are not taken for each other
+    for (int i = 0; i < 2; i++) {
+      Schema withDefault = new Schema.Parser().parse(String.format(reader, ",\"default\":1"));
+      Schema withoutDefault = new Schema.Parser().parse(String.format(reader, ""));
+      assertEquals(SchemaCompatibilityType.COMPATIBLE,
+          checker.checkReaderWriterCompatibility(withDefault, writer).getType());
+      assertEquals(SchemaCompatibilityType.INCOMPATIBLE,
+          checker.checkReaderWriterCompatibility(withoutDefault, writer).getType());
+    }
+  }
+
+  @Test
+  public void testRecursive() {
+    SchemaCompatibility.Checker checker = new SchemaCompatibility.Checker();
+    Schema ints = new Schema.Parser().parse(SCHEMAS[0]);
+    Schema longs = new Schema.Parser().parse(SCHEMAS[1]);
+    assertEquals(SchemaCompatibilityType.COMPATIBLE, checker.checkReaderWriterCompatibility(longs, ints).getType());
+    assertEquals(SchemaCompatibilityType.INCOMPATIBLE, checker.checkReaderWriterCompatibility(ints, longs).getType());
+    assertEquals(SchemaCompatibilityType.COMPATIBLE, checker.checkReaderWriterCompatibility(longs, ints).getType());
+  }
+
+  @Test
+  public void testManySchemas() {
+    List<Schema> schemas = schemas();
+    Schema reader = schemas.get(6);
+    List<Schema> writers = Arrays.asList(schemas.get(3), schemas.get(7), schemas.get(5));
+    SchemaCompatibility.Checker checker = new SchemaCompatibility.Checker(0);
+    List<SchemaPairCompatibility> results = checker.checkReaderCompatibility(reader, writers);
+    assertEquals(3, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(SchemaCompatibility.checkReaderWriterCompatibility(reader, writers.get(i)), results.get(i));
+    }
+    results = checker.checkWriterCompatibility(reader, writers);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(SchemaCompatibility.checkReaderWriterCompatibility(writers.get(i), reader), results.get(i));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaxPairs() {
+    new SchemaCompatibility.Checker(-1);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+public class TestSchemaInterner {
+
+  private static final String RECORD = "{\"type\":\"record\",\"name\":\"Interned\",\"fields\":["
+      + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[\"A\",\"B\"]}},"
+      + "{\"name\":\"value\",\"type\":\"long\"}]}";
+
+  private static Schema parse(String json) {
+    return new Schema.Parser().parse(json);
+  }
+
+  @Test
+  public void testIntern() {
+    Schema first = parse(RECORD);
+    assertSame(first, SchemaInterner.intern(first));
+    assertSame(first, SchemaInterner.intern(parse(RECORD)));
+    assertSame(first, SchemaInterner.intern(first));
+  }
+
+  @Test
+  public void testDifferentDefinitions() {
+    Schema plain = SchemaInterner.intern(parse(RECORD.replace("Interned", "Documented")));
+    // the parsing form of these is the same, but not their full definitions
+    Schema documented = parse(RECORD.replace("Interned", "Documented").replace("\"type\":\"long\"",
+        "\"type\":\"long\",\"doc\":\"the value\""));
+    Schema withDefault = parse(RECORD.replace("Interned", "Documented").replace("\"type\":\"long\"",
+        "\"type\":\"long\",\"default\":0"));
+    assertSame(documented, SchemaInterner.intern(documented));
+    assertSame(withDefault, SchemaInterner.intern(withDefault));
+    assertSame(plain, SchemaInterner.intern(parse(RECORD.replace("Interned", "Documented"))));
+    assertSame(documented, SchemaInterner.intern(parse(documented.toString())));
+  }
+
+  @Test
+  public void testWeak() throws InterruptedException {
+    String json = RECORD.replace("Interned", "Collected");
+    WeakReference<Schema> ref = new WeakReference<>(SchemaInterner.intern(parse(json)));
+    for (int i = 0; i < 20 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assumeTrue(ref.get() == null);
+    Schema second = parse(json);
+    assertSame(second, SchemaInterner.intern(second));
+  }
+
+  @Test
+  public void testParser() {
+    String json = RECORD.replace("Interned", "Parsed");
+    assertFalse(new Schema.Parser().getInterning());
+    Schema first = new Schema.Parser().setInterning(true).parse(json);
+    assertNotSame(first, new Schema.Parser().parse(json));
+    Schema.Parser parser = new Schema.Parser().setInterning(true);
+    assertSame(first, parser.parse(json));
+    // later schemas of the same parser refer to the interned named types
+    Schema kinds = parser.parse("{\"type\":\"array\",\"items\":\"Kind\"}");
+    assertSame(first.getField("kind").schema(), kinds.getElementType());
+    assertEquals(Schema.Type.ENUM, kinds.getElementType().getType());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class TestSchemaNormalization {
+
+  private static final String[] SCHEMAS = { "\"int\"", "{\"type\":\"string\",\"logicalType\":\"uuid\"}",
+      "[\"null\",{\"type\":\"map\",\"values\":{\"type\":\"array\",\"items\":\"float\"}}]",
+      "{\"type\":\"fixed\",\"name\":\"Hash\",\"namespace\":\"org.example\",\"size\":16}",
+      "{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[\"A\",\"B\"],\"doc\":\"left out\"}",
+      "{\"type\":\"record\",\"name\":\"Node\",\"namespace\":\"org.example\",\"fields\":["
+          + "{\"name\":\"id\",\"type\":\"long\",\"default\":0,\"doc\":\"left out\"},"
+          + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[\"A\",\"B\"]}},"
+          + "{\"name\":\"kinds\",\"type\":{\"type\":\"array\",\"items\":\"Kind\"}},"
+          + "{\"name\":\"next\",\"type\":[\"null\",\"Node\"]}]}" };
+
+  private static final String[] ALGORITHMS = { "CRC-64-AVRO", "MD5", "SHA-256", "SHA-1" };
+
+  private static byte[] canonicalBytes(Schema schema) {
+    return SchemaNormalization.toParsingForm(schema).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testFingerprints() throws NoSuchAlgorithmException {
+    for (String json : SCHEMAS) {
+      Schema schema = new Schema.Parser().parse(json);
+      byte[] canonical = canonicalBytes(schema);
+      assertEquals(SchemaNormalization.fingerprint64(canonical), SchemaNormalization.parsingFingerprint64(schema));
+      for (String algorithm : ALGORITHMS) {
+        assertArrayEquals(SchemaNormalization.fingerprint(algorithm, canonical),
+            SchemaNormalization.parsingFingerprint(algorithm, schema));
+      }
+    }
+  }
+
+  @Test
+  public void testMemoized() throws NoSuchAlgorithmException {
+    Schema schema = new Schema.Parser().parse(SCHEMAS[SCHEMAS.length - 1]);
+    String form = SchemaNormalization.toParsingForm(schema);
+    long fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+    assertEquals(form, SchemaNormalization.toParsingForm(schema));
+    assertEquals(fingerprint, SchemaNormalization.parsingFingerprint64(schema));
+    for (String algorithm : ALGORITHMS) {
+      byte[] digest = SchemaNormalization.parsingFingerprint(algorithm, schema);
+      byte[] copy = digest.clone();
+      Arrays.fill(digest, (byte) 0);
+      // changing a returned digest does not change the cached one
+      assertArrayEquals(copy, SchemaNormalization.parsingFingerprint(algorithm, schema));
+    }
+  }
+
+  @Test
+  public void testFieldsSetLater() {
+    Schema record = Schema.createRecord("Late", null, "org.example", false);
+    try {
+      SchemaNormalization.parsingFingerprint64(record);
+      fail();
+    } catch (AvroRuntimeException e) {
+      // expected: the fields are not set yet
+    }
+    record.setFields(Collections.singletonList(new Schema.Field("x", Schema.create(Schema.Type.INT))));
+    Schema parsed = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"Late\",\"namespace\":\"org.example\","
+        + "\"fields\":[{\"name\":\"x\",\"type\":\"int\"}]}");
+    assertEquals(SchemaNormalization.parsingFingerprint64(parsed), SchemaNormalization.parsingFingerprint64(record));
+    assertEquals(SchemaNormalization.toParsingForm(parsed), SchemaNormalization.toParsingForm(record));
+  }
+
+  @Test(expected = NoSuchAlgorithmException.class)
+  public void testUnknownAlgorithm() throws NoSuchAlgorithmException {
+    SchemaNormalization.parsingFingerprint("NO-SUCH-DIGEST", Schema.create(Schema.Type.INT));
+  }
+}
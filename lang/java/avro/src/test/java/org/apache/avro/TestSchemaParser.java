@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSchemaParser {
+
+  private static final String[] SCHEMAS = { "\"int\"", "{\"type\":\"string\",\"avro.java.string\":\"String\"}",
+      "[\"null\",\"long\",{\"type\":\"array\",\"items\":\"double\"}]",
+      "{\"type\":\"map\",\"values\":{\"type\":\"bytes\",\"logicalType\":\"decimal\",\"precision\":9,\"scale\":2}}",
+      "{\"type\":\"record\",\"name\":\"Node\",\"namespace\":\"org.example\",\"doc\":\"A node\","
+          + "\"aliases\":[\"OldNode\"],\"custom\":{\"a\":[1,2]},\"fields\":["
+          + "{\"name\":\"id\",\"type\":{\"type\":\"string\",\"logicalType\":\"uuid\"},\"doc\":\"the id\"},"
+          + "{\"name\":\"count\",\"type\":\"int\",\"default\":-1,\"order\":\"descending\",\"aliases\":[\"n\"]},"
+          + "{\"name\":\"kind\",\"type\":{\"type\":\"enum\",\"name\":\"Kind\",\"symbols\":[\"A\",\"B\"],"
+          + "\"default\":\"A\",\"doc\":\"kinds\"},\"default\":\"B\"},"
+          + "{\"name\":\"hash\",\"type\":{\"type\":\"fixed\",\"name\":\"Hash\",\"namespace\":\"org.other\","
+          + "\"size\":16,\"aliases\":[\"Digest\"]},\"field-prop\":true},"
+          + "{\"name\":\"hashes\",\"type\":{\"type\":\"array\",\"items\":\"org.other.Hash\"},\"default\":[]},"
+          + "{\"name\":\"kinds\",\"type\":{\"type\":\"map\",\"values\":\"Kind\"},\"default\":{\"x\":\"A\"}},"
+          + "{\"name\":\"date\",\"type\":[\"null\",{\"type\":\"int\",\"logicalType\":\"date\"}],\"default\":null},"
+          + "{\"name\":\"amount\",\"type\":{\"type\":\"fixed\",\"name\":\"Amount\",\"size\":8,"
+          + "\"logicalType\":\"decimal\",\"precision\":18,\"scale\":4}},"
+          + "{\"name\":\"inner\",\"type\":{\"type\":\"record\",\"name\":\"Inner\",\"namespace\":\"\",\"fields\":["
+          + "{\"name\":\"s\",\"type\":\"string\",\"default\":\"x\"}]},\"default\":{\"s\":\"y\"}},"
+          + "{\"name\":\"next\",\"type\":[\"null\",\"Node\"],\"default\":null}]}",
+      // keys in an order the streaming parser cannot follow
+      "{\"fields\":[{\"type\":\"long\",\"name\":\"a\"}],\"name\":\"Reordered\",\"type\":\"record\"}",
+      "{\"symbols\":[\"X\"],\"name\":\"LateType\",\"type\":\"enum\"}",
+      "{\"items\":\"int\",\"type\":\"array\"}" };
+
+  private static final String[] INVALID = { "\"Undefined\"", "{\"type\":\"record\",\"name\":\"R\"}",
+      "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"a\",\"type\":\"int\"},"
+          + "{\"name\":\"a\",\"type\":\"int\"}]}",
+      "{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"a\",\"type\":\"int\",\"default\":\"x\"}]}",
+      "{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\",\"A\"]}", "{\"type\":\"fixed\",\"name\":\"F\"}",
+      "{\"type\":\"record\",\"name\":\"1bad\",\"fields\":[]}", "{\"type\":\"record\",\"name\":\"R\",\"fields\":[",
+      "{\"type\":\"nothing\"}", "[\"int\",\"int\"]" };
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  // parses the JSON as a tree only, as the parser used to
+  private static Schema parseTree(String json) throws IOException {
+    return Schema.parse(Schema.MAPPER.readTree(json), new Schema.Names());
+  }
+
+  @Test
+  public void testSameSchemas() throws IOException {
+    for (String json : SCHEMAS) {
+      Schema expected = parseTree(json);
+      Schema parsed = new Schema.Parser().parse(json);
+      assertEquals(json, expected, parsed);
+      assertEquals(json, expected.toString(true), parsed.toString(true));
+    }
+  }
+
+  @Test
+  public void testSameErrors() {
+    for (String json : INVALID) {
+      Exception expected = null;
+      try {
+        parseTree(json);
+      } catch (IOException | RuntimeException e) {
+        expected = e;
+      }
+      assertNotNull(json, expected);
+      try {
+        new Schema.Parser().parse(json);
+        fail(json);
+      } catch (RuntimeException e) {
+        if (!(expected instanceof IOException)) {
+          assertEquals(json, expected.getClass(), e.getClass());
+          assertEquals(json, expected.getMessage(), e.getMessage());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNamesAfterErrors() throws IOException {
+    // the names defined before the error are kept, as by the tree parser
+    String invalid = "{\"type\":\"record\",\"name\":\"Outer\",\"fields\":["
+        + "{\"name\":\"a\",\"type\":{\"type\":\"record\",\"name\":\"Inner\",\"fields\":[]}},"
+        + "{\"name\":\"b\",\"type\":\"Missing\"}]}";
+    Schema.Names names = new Schema.Names();
+    try {
+      Schema.parse(Schema.MAPPER.readTree(invalid), names);
+      fail();
+    } catch (SchemaParseException e) {
+      // expected
+    }
+    Schema.Parser parser = new Schema.Parser();
+    try {
+      parser.parse(invalid);
+      fail();
+    } catch (SchemaParseException e) {
+      // expected
+    }
+    assertEquals(names.keySet().size(), parser.getTypes().size());
+    for (Schema.Name name : names.keySet()) {
+      assertNotNull(parser.getTypes().get(name.toString()));
+    }
+  }
+
+  @Test
+  public void testStreams() throws IOException {
+    Schema.Parser parser = new Schema.Parser();
+    for (String json : SCHEMAS) {
+      InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+      assertEquals(parseTree(json), parser.parse(in));
+    }
+    File file = DIR.newFile("reordered.avsc");
+    Files.write(file.toPath(),
+        "{\"fields\":[{\"type\":\"Reordered\",\"name\":\"r\"}],\"name\":\"FromFile\",\"type\":\"record\"}"
+            .getBytes(StandardCharsets.UTF_8));
+    Schema fromFile = parser.parse(file);
+    assertSame(parser.getTypes().get("Reordered"), fromFile.getField("r").schema());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+
+/**
+ * The records and data files shared by the data file tests: Event records,
+ * each with an id and a name made from it.
+ */
+final class EventFiles {
+
+  static final Schema SCHEMA = SchemaBuilder.record("Event").fields().requiredLong("id").requiredString("name")
+      .endRecord();
+
+  private EventFiles() {
+  }
+
+  /** The record with the given id. */
+  static GenericRecord record(long id) {
+    GenericRecord r = new GenericData.Record(SCHEMA);
+    r.put("id", id);
+    r.put("name", "event-" + id);
+    return r;
+  }
+
+  /** The binary encoding of the record with the given id. */
+  static ByteBuffer encoded(long id) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(SCHEMA).write(record(id), e);
+    e.flush();
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  /** A writer of Event records, not yet configured or created. */
+  static DataFileWriter<GenericRecord> writer() {
+    return new DataFileWriter<>(new GenericDatumWriter<>(SCHEMA));
+  }
+
+  /** Write the records with ids from first to first + count - 1 to a file. */
+  static File writeFile(File file, CodecFactory codec, int syncInterval, long first, long count) throws IOException {
+    try (DataFileWriter<GenericRecord> writer = writer()) {
+      writer.setCodec(codec);
+      writer.setSyncInterval(syncInterval);
+      writer.create(SCHEMA, file);
+      for (long i = first; i < first + count; i++) {
+        writer.append(record(i));
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Check that records are those with consecutive ids from first on, returning
+   * how many there were.
+   */
+  static long checkRecords(Iterable<GenericRecord> records, long first) {
+    long i = first;
+    for (GenericRecord r : records) {
+      assertEquals(i, r.get("id"));
+      assertEquals("event-" + i, r.get("name").toString());
+      i++;
+    }
+    return i - first;
+  }
+}
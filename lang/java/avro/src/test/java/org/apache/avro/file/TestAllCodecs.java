@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestAllCodecs {
+
+  @Parameterized.Parameters(name = "{index}: codec={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { "null" }, { "deflate" }, { "bzip2" }, { "xz" }, { "snappy" },
+        { "zstandard" } });
+  }
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private final String codec;
+
+  public TestAllCodecs(String codec) {
+    this.codec = codec;
+  }
+
+  private static ByteBuffer sample(int size, long seed) {
+    Random random = new Random(seed);
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      // compressible, but not trivially so
+      bytes[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return ByteBuffer.wrap(bytes);
+  }
+
+  private static ByteBuffer direct(ByteBuffer data) {
+    ByteBuffer direct = ByteBuffer.allocateDirect(data.remaining());
+    direct.put(data.duplicate());
+    direct.flip();
+    return direct;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Codec c = CodecFactory.fromString(codec).createInstance();
+    ByteBuffer data = sample(100_000, 1);
+    assertEquals(data, c.decompress(c.compress(data)));
+  }
+
+  @Test
+  public void testResultsAreIndependent() throws IOException {
+    Codec c = CodecFactory.fromString(codec).createInstance();
+    ByteBuffer first = sample(50_000, 1);
+    ByteBuffer second = sample(80_000, 2);
+
+    ByteBuffer firstCompressed = c.compress(first);
+    ByteBuffer firstCopy = ByteBuffer.allocate(firstCompressed.remaining()).put(firstCompressed.duplicate());
+    firstCopy.flip();
+    ByteBuffer secondCompressed = c.compress(second);
+    // compressing again must not overwrite an earlier result
+    assertEquals(firstCopy, firstCompressed);
+
+    ByteBuffer firstDecompressed = c.decompress(firstCompressed);
+    ByteBuffer secondDecompressed = c.decompress(secondCompressed);
+    assertEquals(first, firstDecompressed);
+    assertEquals(second, secondDecompressed);
+  }
+
+  @Test
+  public void testReusingRoundTrip() throws IOException {
+    Codec c = CodecFactory.fromString(codec).createInstance();
+    for (long seed = 0; seed < 4; seed++) {
+      ByteBuffer data = sample(10_000 * (int) (seed + 1), seed);
+      ByteBuffer compressed = c.compressReusing(data);
+      // the reused output may be overwritten by the next call, so decompress
+      // with another instance
+      Codec other = CodecFactory.fromString(codec).createInstance();
+      assertEquals(data, other.decompressReusing(compressed));
+    }
+  }
+
+  @Test
+  public void testDirectBuffers() throws IOException {
+    Codec c = CodecFactory.fromString(codec).createInstance();
+    ByteBuffer data = sample(30_000, 3);
+    ByteBuffer compressed = c.compress(direct(data));
+    assertEquals(data, c.decompress(direct(compressed)));
+    assertEquals(data, c.decompress(compressed));
+  }
+
+  @Test
+  public void testUseAfterClose() throws IOException {
+    ByteBuffer data = sample(20_000, 4);
+    try (Codec c = CodecFactory.fromString(codec).createInstance()) {
+      ByteBuffer compressed = c.compress(data);
+      c.close();
+      // closing only releases what the codec acquires again when used
+      assertEquals(data, c.decompress(compressed));
+      assertEquals(data, c.decompress(c.compress(data)));
+    }
+  }
+
+  @Test
+  public void testDataFile() throws IOException {
+    Schema schema = Schema.create(Schema.Type.STRING);
+    File file = new File(DIR.getRoot(), "strings.avro");
+    int count = 5000;
+    try (DataFileWriter<CharSequence> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema))) {
+      writer.setCodec(CodecFactory.fromString(codec));
+      writer.setSyncInterval(1024);
+      writer.create(schema, file);
+      for (int i = 0; i < count; i++) {
+        writer.append("value-" + i);
+      }
+    }
+    try (DataFileReader<CharSequence> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertEquals(codec, reader.getMetaString(DataFileConstants.CODEC));
+      int i = 0;
+      for (CharSequence value : reader) {
+        assertEquals("value-" + i++, value.toString());
+      }
+      assertEquals(count, i);
+    }
+  }
+}
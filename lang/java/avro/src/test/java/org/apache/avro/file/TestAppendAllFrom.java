@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestAppendAllFrom {
+
+  private static final int COUNT = 3000;
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File writeFile(CodecFactory codec, long first) throws IOException {
+    return EventFiles.writeFile(DIR.newFile(), codec, 1024, first, COUNT);
+  }
+
+  private static List<Long> ids(DataFileStream<GenericRecord> reader) {
+    List<Long> ids = new ArrayList<>();
+    for (GenericRecord r : reader) {
+      ids.add((Long) r.get("id"));
+    }
+    return ids;
+  }
+
+  private static void checkIds(long count, List<Long> ids) {
+    assertEquals(count, ids.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, (long) ids.get(i));
+    }
+  }
+
+  private static void checkFile(File file, long count) throws IOException {
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      checkIds(count, ids(reader));
+    }
+  }
+
+  /** Appends the records 0 to 3 * COUNT, the middle third from another file. */
+  private File concat(File other, CodecFactory codec, boolean recompress) throws IOException {
+    File file = DIR.newFile();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(codec);
+      writer.setSyncInterval(1024);
+      writer.create(EventFiles.SCHEMA, file);
+      for (long i = 0; i < COUNT; i++) {
+        writer.append(EventFiles.record(i));
+      }
+      try (DataFileReader<GenericRecord> reader = new DataFileReader<>(other, new GenericDatumReader<>())) {
+        writer.appendAllFrom(reader, recompress);
+      }
+      for (long i = 2 * COUNT; i < 3 * COUNT; i++) {
+        writer.append(EventFiles.record(i));
+      }
+    }
+    return file;
+  }
+
+  @Test
+  public void testTransfer() throws IOException {
+    // same codec, both local files: blocks are transferred by the file system
+    File other = writeFile(CodecFactory.deflateCodec(1), COUNT);
+    checkFile(concat(other, CodecFactory.deflateCodec(1), false), 3 * COUNT);
+  }
+
+  @Test
+  public void testRecompress() throws IOException {
+    File other = writeFile(CodecFactory.deflateCodec(1), COUNT);
+    checkFile(concat(other, CodecFactory.deflateCodec(1), true), 3 * COUNT);
+    checkFile(concat(other, CodecFactory.nullCodec(), false), 3 * COUNT);
+  }
+
+  @Test
+  public void testStreams() throws IOException {
+    File other = writeFile(CodecFactory.deflateCodec(1), 0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer();
+        InputStream in = new FileInputStream(other);
+        DataFileStream<GenericRecord> reader = new DataFileStream<>(in, new GenericDatumReader<>())) {
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.create(EventFiles.SCHEMA, out);
+      writer.appendAllFrom(reader, false);
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableByteArrayInput(out.toByteArray()),
+        new GenericDatumReader<>())) {
+      checkIds(COUNT, ids(reader));
+    }
+  }
+
+  @Test
+  public void testPartiallyReadSource() throws IOException {
+    File other = writeFile(CodecFactory.deflateCodec(1), 0);
+    File file = DIR.newFile();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer();
+        DataFileReader<GenericRecord> reader = new DataFileReader<>(other, new GenericDatumReader<>())) {
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.create(EventFiles.SCHEMA, file);
+      // the rest of the current block is not copied
+      reader.next();
+      writer.appendAllFrom(reader, false);
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      List<Long> ids = ids(reader);
+      assertEquals(COUNT - 1, (long) ids.get(ids.size() - 1));
+    }
+  }
+
+  @Test
+  public void testSyncAfterTransfer() throws IOException {
+    File other = writeFile(CodecFactory.deflateCodec(1), COUNT);
+    File file = DIR.newFile();
+    long sync;
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.create(EventFiles.SCHEMA, file);
+      writer.append(EventFiles.record(0));
+      try (DataFileReader<GenericRecord> reader = new DataFileReader<>(other, new GenericDatumReader<>())) {
+        writer.appendAllFrom(reader, false);
+      }
+      // positions account for the transferred bytes
+      sync = writer.sync();
+      writer.append(EventFiles.record(-1));
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.seek(sync);
+      assertEquals(-1L, reader.next().get("id"));
+    }
+  }
+
+  @Test
+  public void testBlockIndex() throws IOException {
+    File other = writeFile(CodecFactory.deflateCodec(1), COUNT);
+    File file = DIR.newFile();
+    File index = new File(DIR.getRoot(), "index");
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.setSyncInterval(1024);
+      writer.setBlockIndex(index);
+      writer.create(EventFiles.SCHEMA, file);
+      for (long i = 0; i < COUNT; i++) {
+        writer.append(EventFiles.record(i));
+      }
+      try (DataFileReader<GenericRecord> reader = new DataFileReader<>(other, new GenericDatumReader<>())) {
+        writer.appendAllFrom(reader, false);
+      }
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockIndex(BlockIndex.read(index));
+      for (long i : new long[] { 2 * COUNT - 1, 0, COUNT, COUNT - 1, 1500 }) {
+        reader.seekToRecord(i);
+        assertEquals(i, reader.next().get("id"));
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class TestBlockBufferOutputStream {
+
+  @Test
+  public void testBlockBuffer() {
+    for (boolean direct : new boolean[] { false, true }) {
+      BlockBufferOutputStream out = new BlockBufferOutputStream(16, direct);
+      byte[] expected = new byte[1000];
+      for (int i = 0; i < expected.length; i++) {
+        expected[i] = (byte) i;
+      }
+      out.write(expected, 0, 10);
+      out.write(10);
+      out.write(ByteBuffer.wrap(expected, 11, 989));
+      assertEquals(1000, out.size());
+      ByteBuffer contents = out.getByteBuffer();
+      assertEquals(direct, contents.isDirect());
+      assertEquals(ByteBuffer.wrap(expected), contents);
+
+      out.truncate(500);
+      assertEquals(ByteBuffer.wrap(expected, 0, 500), out.getByteBuffer());
+      out.reset();
+      assertEquals(0, out.size());
+      assertTrue(!out.getByteBuffer().hasRemaining());
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBlockIndex {
+
+  private static final int COUNT = 1000;
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File writeFile(File file, File index) throws IOException {
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setSyncInterval(100);
+      writer.setBlockIndex(index, "id");
+      writer.create(EventFiles.SCHEMA, file);
+      for (long i = 0; i < COUNT; i++) {
+        writer.append(EventFiles.record(i));
+      }
+    }
+    return file;
+  }
+
+  @Test
+  public void testSeekToRecord() throws IOException {
+    File file = new File(DIR.getRoot(), "events.avro");
+    File sidecar = BlockIndex.sidecarFor(file);
+    writeFile(file, sidecar);
+
+    BlockIndex index = BlockIndex.read(sidecar);
+    assertEquals(COUNT, index.getRecordCount());
+    assertEquals("id", index.getKeyField());
+    assertTrue(index.getEntries().size() > 1);
+
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockIndex(index);
+      for (long i : new long[] { 0, 1, 499, 500, 998, 999, 3 }) {
+        reader.seekToRecord(i);
+        assertEquals(i, reader.next().get("id"));
+      }
+      reader.seekToRecord(997);
+      assertEquals(997L, reader.next().get("id"));
+      assertEquals(998L, reader.next().get("id"));
+    }
+  }
+
+  @Test
+  public void testFindBlocks() throws IOException {
+    File file = new File(DIR.getRoot(), "events.avro");
+    File sidecar = BlockIndex.sidecarFor(file);
+    writeFile(file, sidecar);
+    BlockIndex index = BlockIndex.read(sidecar);
+
+    List<BlockIndex.Entry> blocks = index.findBlocks(400L, 410L);
+    assertTrue(blocks.size() >= 1 && blocks.size() < index.getEntries().size());
+    for (BlockIndex.Entry e : blocks) {
+      assertTrue((Long) e.getMin() <= 410L && (Long) e.getMax() >= 400L);
+    }
+    assertEquals(index.getEntries().size(), index.findBlocks(null, null).size());
+  }
+
+  @Test(expected = IOException.class)
+  public void testIndexOfOtherFile() throws IOException {
+    File file = writeFile(new File(DIR.getRoot(), "a.avro"), new File(DIR.getRoot(), "a.idx"));
+    writeFile(new File(DIR.getRoot(), "b.avro"), new File(DIR.getRoot(), "b.idx"));
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setBlockIndex(BlockIndex.read(new File(DIR.getRoot(), "b.idx")));
+    }
+  }
+
+  @Test
+  public void testLogicalTypeKey() throws IOException {
+    Schema timestamp = LogicalTypes.timestampMillis().addToSchema(Schema.create(Schema.Type.LONG));
+    Schema schema = SchemaBuilder.record("Tick").fields().name("at").type(timestamp).noDefault().endRecord();
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+
+    File file = new File(DIR.getRoot(), "ticks.avro");
+    File sidecar = BlockIndex.sidecarFor(file);
+    Instant start = Instant.ofEpochMilli(1_600_000_000_000L);
+    try (DataFileWriter<GenericRecord> writer = new DataFileWriter<>(new GenericDatumWriter<>(schema, data))) {
+      writer.setSyncInterval(64);
+      writer.setBlockIndex(sidecar, "at");
+      writer.create(schema, file);
+      for (int i = 0; i < 100; i++) {
+        GenericRecord r = new GenericData.Record(schema);
+        r.put("at", start.plusSeconds(i));
+        writer.append(r);
+      }
+    }
+
+    BlockIndex index = BlockIndex.read(sidecar, data);
+    BlockIndex.Entry first = index.getEntries().get(0);
+    assertEquals(start, first.getMin());
+    List<BlockIndex.Entry> blocks = index.findBlocks(start.plusSeconds(99), null);
+    assertEquals(1, blocks.size());
+    assertEquals(start.plusSeconds(99), blocks.get(0).getMax());
+
+    // without the conversion, keys are read in their raw form
+    assertEquals(start.toEpochMilli(), BlockIndex.read(sidecar).getEntries().get(0).getMin());
+  }
+}
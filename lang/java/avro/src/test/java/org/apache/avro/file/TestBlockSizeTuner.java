@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestBlockSizeTuner {
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  @Test
+  public void testTargetSize() {
+    BlockSizeTuner tuner = new BlockSizeTuner(1000, 500, 0);
+    assertEquals(1000, tuner.getInterval());
+    // a ratio of 1:4 calls for four times the target
+    tuner.blockCompressed(1000, 250);
+    assertEquals(2000, tuner.getInterval());
+    // a single outlier moves the interval only part of the way
+    tuner.blockCompressed(1000, 1000);
+    int interval = tuner.getInterval();
+    assertTrue(interval > 500 && interval < 2000);
+    for (int i = 0; i < 50; i++) {
+      tuner.blockCompressed(1000, 1000);
+    }
+    assertEquals(500, tuner.getInterval(), 1);
+    // latency is not observed unless targeted
+    tuner.blockFilled(1000, 1);
+    assertEquals(500, tuner.getInterval(), 1);
+  }
+
+  @Test
+  public void testTargetLatency() {
+    BlockSizeTuner tuner = new BlockSizeTuner(1000, 0, 100);
+    tuner.blockFilled(1000, 50);
+    assertEquals(2000, tuner.getInterval());
+    tuner.blockCompressed(1000, 1);
+    assertEquals(2000, tuner.getInterval());
+  }
+
+  @Test
+  public void testSmallerIntervalWins() {
+    BlockSizeTuner tuner = new BlockSizeTuner(1000, 1000, 100);
+    tuner.blockCompressed(1000, 100); // wants 10000
+    tuner.blockFilled(1000, 50); // wants 2000
+    assertEquals(2000, tuner.getInterval());
+  }
+
+  @Test
+  public void testBounds() {
+    BlockSizeTuner tuner = new BlockSizeTuner(1000, 10, 0);
+    tuner.blockCompressed(1000, 1000);
+    assertEquals(BlockSizeTuner.MIN_INTERVAL, tuner.getInterval());
+    tuner = new BlockSizeTuner(1000, Integer.MAX_VALUE, 0);
+    tuner.blockCompressed(1000, 1);
+    assertEquals(BlockSizeTuner.MAX_INTERVAL, tuner.getInterval());
+  }
+
+  private List<Long> blockSizes(File file) throws IOException {
+    List<Long> sizes = new ArrayList<>();
+    long count = 0;
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      while (reader.hasNext()) {
+        reader.nextBlock();
+        sizes.add(reader.getBlockSize());
+        count += reader.getBlockCount();
+      }
+    }
+    assertEquals(20000, count);
+    return sizes;
+  }
+
+  private File write(int targetBlockSize, int threads) throws IOException {
+    File file = DIR.newFile();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.deflateCodec(6));
+      writer.setSyncInterval(4000);
+      writer.setTargetBlockSize(targetBlockSize);
+      writer.setCompressionThreads(threads);
+      writer.create(EventFiles.SCHEMA, file);
+      Random random = new Random(42);
+      for (long i = 0; i < 20000; i++) {
+        // names that repeat, so that the blocks compress
+        GenericRecord r = EventFiles.record(i);
+        r.put("name", "event-" + random.nextInt(1000));
+        writer.append(r);
+      }
+    }
+    return file;
+  }
+
+  @Test
+  public void testWriterTargetSize() throws IOException {
+    for (int threads : new int[] { 0, 2 }) {
+      List<Long> sizes = blockSizes(write(2000, threads));
+      assertTrue(sizes.toString(), sizes.size() > 3);
+      // after the first few blocks, the compressed blocks are near the target
+      for (long size : sizes.subList(threads + 3, sizes.size() - 1)) {
+        assertTrue(sizes.toString(), size > 1000 && size < 4000);
+      }
+    }
+  }
+
+  @Test
+  public void testWriterTargetLatency() throws IOException {
+    File file = DIR.newFile();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setSyncInterval(100000);
+      writer.setTargetBlockLatency(1, TimeUnit.MICROSECONDS);
+      writer.create(EventFiles.SCHEMA, file);
+      for (long i = 0; i < 20000; i++) {
+        writer.append(EventFiles.record(i));
+      }
+    }
+    // the whole file would fit in a few blocks of the initial interval
+    assertTrue(blockSizes(file).size() > 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidTargetSize() {
+    EventFiles.writer().setTargetBlockSize(-1);
+  }
+}
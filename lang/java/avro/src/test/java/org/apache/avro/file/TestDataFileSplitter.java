@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDataFileSplitter {
+
+  private static final int COUNT = 10000;
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File writeFile(int count) throws IOException {
+    return EventFiles.writeFile(DIR.newFile(), CodecFactory.deflateCodec(1), 1024, 0, count);
+  }
+
+  private static DataFileSplitter<GenericRecord> splitter(File file) throws IOException {
+    return new DataFileSplitter<>(file, GenericDatumReader::new);
+  }
+
+  private static List<Long> ids(Stream<GenericRecord> records) {
+    return records.map(r -> (Long) r.get("id")).collect(Collectors.toList());
+  }
+
+  private static List<Long> expected(int count) {
+    return LongStream.range(0, count).boxed().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testPlan() throws IOException {
+    File file = writeFile(COUNT);
+    DataFileSplitter<GenericRecord> splitter = splitter(file);
+    assertEquals(EventFiles.SCHEMA, splitter.getSchema());
+    for (long size : new long[] { 1, 1000, 10000, 100000, file.length() * 2 }) {
+      List<DataFileSplitter.Split> splits = splitter.plan(size);
+      assertTrue(!splits.isEmpty());
+      assertEquals(file.length(), splits.get(splits.size() - 1).getEnd());
+      // the splits cover the file, each starting where the previous one ends
+      List<Long> ids = new ArrayList<>();
+      long previousEnd = splits.get(0).getStart();
+      for (DataFileSplitter.Split split : splits) {
+        assertEquals(previousEnd, split.getStart());
+        assertTrue(split.getLength() > 0);
+        previousEnd = split.getEnd();
+        try (DataFileSplitter.SplitReader<GenericRecord> reader = splitter.open(split)) {
+          for (GenericRecord r : reader) {
+            ids.add((Long) r.get("id"));
+          }
+        }
+      }
+      assertEquals(expected(COUNT), ids);
+    }
+  }
+
+  @Test
+  public void testStream() throws IOException {
+    DataFileSplitter<GenericRecord> splitter = splitter(writeFile(COUNT));
+    try (Stream<GenericRecord> records = splitter.stream(4096, false)) {
+      assertEquals(expected(COUNT), ids(records));
+    }
+    // parallel streams keep the encounter order
+    try (Stream<GenericRecord> records = splitter.stream(4096, true)) {
+      assertEquals(expected(COUNT), ids(records));
+    }
+    try (Stream<GenericRecord> records = splitter.stream(4096, true)) {
+      assertEquals(COUNT, records.filter(r -> (Long) r.get("id") % 2 == 0).count() * 2);
+    }
+  }
+
+  @Test
+  public void testShortStream() throws IOException {
+    // stop before reading every split
+    try (Stream<GenericRecord> records = splitter(writeFile(COUNT)).stream(2048, true)) {
+      assertEquals(expected(10), ids(records.limit(10)));
+    }
+  }
+
+  @Test
+  public void testEmptyFile() throws IOException {
+    DataFileSplitter<GenericRecord> splitter = splitter(writeFile(0));
+    for (DataFileSplitter.Split split : splitter.plan(100)) {
+      try (DataFileSplitter.SplitReader<GenericRecord> reader = splitter.open(split)) {
+        assertTrue(!reader.hasNext());
+      }
+    }
+    try (Stream<GenericRecord> records = splitter.stream(100, true)) {
+      assertEquals(0, records.count());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSplitSize() throws IOException {
+    splitter(writeFile(10)).plan(0);
+  }
+}
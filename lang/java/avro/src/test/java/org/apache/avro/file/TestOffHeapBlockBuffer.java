@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestOffHeapBlockBuffer {
+
+  private static final int COUNT = 5000;
+
+  private static final byte[] SYNC = new byte[16];
+
+  @Parameterized.Parameters(name = "{index}: codec={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { "null" }, { "deflate" }, { "bzip2" }, { "xz" }, { "snappy" },
+        { "zstandard" } });
+  }
+
+  private final String codec;
+
+  public TestOffHeapBlockBuffer(String codec) {
+    this.codec = codec;
+  }
+
+  // a record encoded into a direct buffer, at an offset
+  private static ByteBuffer encoded(long i) throws IOException {
+    ByteBuffer bytes = EventFiles.encoded(i);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.remaining() + 10);
+    buffer.position(5);
+    buffer.put(bytes);
+    buffer.limit(buffer.position());
+    buffer.position(5);
+    return buffer;
+  }
+
+  private byte[] write(boolean offHeap, int threads) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.fromString(codec));
+      writer.setOffHeapBuffer(offHeap);
+      writer.setCompressionThreads(threads);
+      writer.setSyncInterval(4096);
+      writer.create(EventFiles.SCHEMA, out, SYNC);
+      for (long i = 0; i < COUNT; i++) {
+        if (i % 10 == 0) {
+          ByteBuffer encoded = encoded(i);
+          writer.appendEncoded(encoded);
+          assertEquals(5, encoded.position());
+        } else {
+          writer.append(EventFiles.record(i));
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSameFile() throws IOException {
+    byte[] expected = write(false, 0);
+    assertArrayEquals(expected, write(true, 0));
+    assertArrayEquals(expected, write(true, 2));
+
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableByteArrayInput(expected),
+        new GenericDatumReader<>())) {
+      assertEquals(COUNT, EventFiles.checkRecords(reader, 0));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class TestParallelBlockCompressor {
+
+  private static final int COUNT = 20000;
+
+  private static final byte[] SYNC = new byte[16];
+
+  @Parameterized.Parameters(name = "{index}: codec={0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] { { "null" }, { "deflate" }, { "snappy" }, { "zstandard" } });
+  }
+
+  private final String codec;
+
+  public TestParallelBlockCompressor(String codec) {
+    this.codec = codec;
+  }
+
+  /** Writes a file, returning its bytes and the positions returned by sync(). */
+  private byte[] write(int threads, List<Long> syncs) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.fromString(codec));
+      writer.setCompressionThreads(threads);
+      writer.setSyncInterval(2048);
+      writer.create(EventFiles.SCHEMA, out, SYNC);
+      for (long i = 0; i < COUNT; i++) {
+        if (i % 1000 == 999) {
+          writer.appendEncoded(EventFiles.encoded(i));
+        } else {
+          writer.append(EventFiles.record(i));
+        }
+        if (i % 3001 == 0) {
+          syncs.add(writer.sync());
+        }
+        if (i % 7001 == 0) {
+          writer.flush();
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testSameFile() throws IOException {
+    List<Long> expectedSyncs = new ArrayList<>();
+    byte[] expected = write(0, expectedSyncs);
+    for (int threads : new int[] { 1, 4 }) {
+      List<Long> syncs = new ArrayList<>();
+      assertArrayEquals(expected, write(threads, syncs));
+      assertEquals(expectedSyncs, syncs);
+    }
+  }
+
+  @Test
+  public void testSyncPositions() throws IOException {
+    List<Long> syncs = new ArrayList<>();
+    byte[] file = write(3, syncs);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableByteArrayInput(file),
+        new GenericDatumReader<>())) {
+      for (int k = 0; k < syncs.size(); k++) {
+        reader.seek(syncs.get(k));
+        // each sync() ends a block after the record that preceded the call
+        assertEquals(k * 3001L + 1, reader.next().get("id"));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidThreads() {
+    EventFiles.writer().setCompressionThreads(-1);
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testSetAfterCreate() throws IOException {
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.create(EventFiles.SCHEMA, new ByteArrayOutputStream());
+      writer.setCompressionThreads(2);
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.file.DataFileStream.DataBlock;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestParallelBlockDecompressor {
+
+  private static final int COUNT = 20000;
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  /** Counts the codecs created by the workers. */
+  private static class CountingCodecFactory extends CodecFactory {
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Override
+    protected Codec createInstance() {
+      created.incrementAndGet();
+      return CodecFactory.deflateCodec(1).createInstance();
+    }
+  }
+
+  private static DataBlock block(int i) throws IOException {
+    byte[] data = new byte[10000];
+    for (int k = 0; k < data.length; k++) {
+      data[k] = (byte) (k % 100 + i);
+    }
+    return new DataBlock(CodecFactory.deflateCodec(1).createInstance().compress(ByteBuffer.wrap(data)), i);
+  }
+
+  private static void checkBlock(int i, DataBlock block) {
+    assertEquals(i, block.getNumEntries());
+    ByteBuffer data = block.getAsByteBuffer();
+    assertEquals(10000, data.remaining());
+    for (int k = 0; k < 10000; k++) {
+      assertEquals((byte) (k % 100 + i), data.get(data.position() + k));
+    }
+  }
+
+  @Test
+  public void testOrder() throws IOException {
+    try (ParallelBlockDecompressor blocks = new ParallelBlockDecompressor(CodecFactory.deflateCodec(1), 4)) {
+      int next = 0;
+      for (int i = 0; i < 50; i++) {
+        while (blocks.needsMore()) {
+          blocks.submit(block(next++), next * 100L);
+        }
+        ParallelBlockDecompressor.PendingBlock pending = blocks.take();
+        assertEquals(i * 100L + 100, pending.getEnd());
+        DataBlock block = pending.get();
+        checkBlock(i, block);
+        blocks.recycle(block);
+      }
+    }
+  }
+
+  @Test
+  public void testClearReturnsCodecs() throws IOException {
+    CountingCodecFactory factory = new CountingCodecFactory();
+    try (ParallelBlockDecompressor blocks = new ParallelBlockDecompressor(factory, 2)) {
+      for (int round = 0; round < 20; round++) {
+        blocks.submit(block(1), -1);
+        blocks.submit(block(2), -1);
+        if (round % 2 == 0) {
+          // discard them, as after a seek
+          blocks.clear();
+          assertTrue(blocks.isEmpty());
+        } else {
+          DataBlock first = blocks.take().get();
+          checkBlock(1, first);
+          blocks.recycle(first);
+          DataBlock second = blocks.take().get();
+          checkBlock(2, second);
+          blocks.recycle(second);
+        }
+      }
+    }
+    // no more than one codec per block in flight at a time
+    assertTrue(factory.created.get() <= 2);
+  }
+
+  @Test
+  public void testFailedBlockReturnsCodec() throws IOException {
+    CountingCodecFactory factory = new CountingCodecFactory();
+    try (ParallelBlockDecompressor blocks = new ParallelBlockDecompressor(factory, 1)) {
+      for (int i = 0; i < 10; i++) {
+        blocks.submit(new DataBlock(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 }), 1), -1);
+        try {
+          blocks.take().get();
+          fail("Corrupt block decompressed");
+        } catch (IOException e) {
+          // expected
+        }
+      }
+      blocks.submit(block(3), -1);
+      checkBlock(3, blocks.take().get());
+    }
+    assertEquals(1, factory.created.get());
+  }
+
+  @Test
+  public void testReadAhead() throws IOException {
+    File file = EventFiles.writeFile(DIR.newFile(), CodecFactory.deflateCodec(1), 4096, 0, COUNT);
+
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setReadAhead(4);
+      assertEquals(COUNT, EventFiles.checkRecords(reader, 0));
+
+      // seeking discards the blocks read ahead
+      for (long position : new long[] { file.length() / 2, 0, file.length() / 3, file.length() }) {
+        reader.sync(position);
+        long expected = -1;
+        while (reader.hasNext()) {
+          long id = (Long) reader.next().get("id");
+          if (expected >= 0) {
+            assertEquals(expected, id);
+          }
+          expected = id + 1;
+        }
+        assertEquals(position >= file.length() ? -1 : COUNT, expected);
+      }
+      assertFalse(reader.hasNext());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSeekableMappedFileInput {
+
+  private static final int COUNT = 5000;
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File writeFile(CodecFactory codec, int syncInterval) throws IOException {
+    return EventFiles.writeFile(DIR.newFile(), codec, syncInterval, 0, COUNT);
+  }
+
+  private static void checkRecords(FileReader<GenericRecord> reader) {
+    assertEquals(COUNT, EventFiles.checkRecords(reader, 0));
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    File file = DIR.newFile();
+    byte[] bytes = new byte[3000];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+    Files.write(file.toPath(), bytes);
+
+    // chunks smaller than the reads
+    try (SeekableMappedFileInput in = new SeekableMappedFileInput(file, 1024)) {
+      assertEquals(bytes.length, in.length());
+      byte[] read = new byte[bytes.length];
+      assertEquals(bytes.length, in.read(read, 0, read.length));
+      assertArrayEquals(bytes, read);
+      assertEquals(-1, in.read(read, 0, 1));
+
+      in.seek(1000);
+      assertEquals(100, in.read(read, 0, 100));
+      assertEquals(1100, in.tell());
+      assertEquals((byte) 1000, read[0]);
+      assertEquals((byte) 1099, read[99]);
+
+      ByteBuffer slice = in.slice(1024, 1024);
+      assertEquals(1024, slice.remaining());
+      assertEquals((byte) 1024, slice.get(0));
+      assertTrue(slice.isReadOnly());
+      assertNull(in.slice(1000, 100));
+      assertNull(in.slice(2900, 200));
+    }
+  }
+
+  @Test
+  public void testMappedBlocks() throws IOException {
+    for (CodecFactory codec : new CodecFactory[] { CodecFactory.nullCodec(), CodecFactory.deflateCodec(1) }) {
+      File file = writeFile(codec, 64 * 1024);
+      try (FileReader<GenericRecord> reader = DataFileReader.openMappedReader(file, new GenericDatumReader<>())) {
+        checkRecords(reader);
+      }
+    }
+  }
+
+  @Test
+  public void testBlocksNotCopied() throws IOException {
+    File file = writeFile(CodecFactory.nullCodec(), 64 * 1024);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableMappedFileInput(file),
+        new GenericDatumReader<>())) {
+      // blocks larger than the decoder's buffer are slices of the mapping
+      assertTrue(reader.hasNext());
+      ByteBuffer block = reader.nextBlock();
+      assertTrue(block.isDirect());
+      assertFalse(block.hasArray());
+    }
+  }
+
+  @Test
+  public void testBlocksSpanningChunks() throws IOException {
+    File file = writeFile(CodecFactory.nullCodec(), 20 * 1024);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableMappedFileInput(file, 32 * 1024),
+        new GenericDatumReader<>())) {
+      checkRecords(reader);
+    }
+  }
+
+  @Test
+  public void testSync() throws IOException {
+    File file = writeFile(CodecFactory.deflateCodec(1), 16 * 1024);
+    List<Long> expected = new ArrayList<>();
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      for (long position = 0; position < file.length(); position += 5000) {
+        reader.sync(position);
+        expected.add(reader.hasNext() ? (Long) reader.next().get("id") : -1L);
+      }
+    }
+    List<Long> mapped = new ArrayList<>();
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableMappedFileInput(file),
+        new GenericDatumReader<>())) {
+      for (long position = 0; position < file.length(); position += 5000) {
+        reader.sync(position);
+        mapped.add(reader.hasNext() ? (Long) reader.next().get("id") : -1L);
+      }
+    }
+    assertEquals(expected, mapped);
+  }
+
+  @Test
+  public void testReadAhead() throws IOException {
+    File file = writeFile(CodecFactory.deflateCodec(1), 32 * 1024);
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(new SeekableMappedFileInput(file),
+        new GenericDatumReader<>())) {
+      reader.setReadAhead(3);
+      checkRecords(reader);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testClosed() throws IOException {
+    SeekableMappedFileInput in = new SeekableMappedFileInput(writeFile(CodecFactory.nullCodec(), 1024));
+    in.close();
+    in.read(new byte[1], 0, 1);
+  }
+}
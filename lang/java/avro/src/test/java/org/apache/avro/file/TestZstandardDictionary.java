@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.file;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestZstandardDictionary {
+
+  private static final int COUNT = 3000;
+
+  // a raw content dictionary: text the records have in common
+  private static final byte[] DICTIONARY = "event-event-event-0123456789".getBytes(StandardCharsets.UTF_8);
+
+  @Rule
+  public TemporaryFolder DIR = new TemporaryFolder();
+
+  private File writeFile(CodecFactory codec) throws IOException {
+    return EventFiles.writeFile(DIR.newFile(), codec, 1024, 0, COUNT);
+  }
+
+  @Test
+  public void testMetadata() throws IOException {
+    File file = writeFile(CodecFactory.zstandardCodec(7, false, DICTIONARY));
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertEquals("zstandard", reader.getMetaString(DataFileConstants.CODEC));
+      assertArrayEquals(DICTIONARY, reader.getMeta(DataFileConstants.ZSTANDARD_DICTIONARY));
+      assertEquals("7", reader.getMetaString(DataFileConstants.ZSTANDARD_LEVEL));
+      // codec options are not in the namespace reserved by the specification
+      for (String key : reader.getMetaKeys()) {
+        if (DataFileWriter.isReservedMeta(key)) {
+          assertTrue(key, key.equals(DataFileConstants.SCHEMA) || key.equals(DataFileConstants.CODEC));
+        }
+      }
+      assertEquals(COUNT, EventFiles.checkRecords(reader, 0));
+    }
+  }
+
+  @Test
+  public void testFromMeta() {
+    Map<String, byte[]> meta = new HashMap<>();
+    meta.put(DataFileConstants.CODEC, "zstandard".getBytes(StandardCharsets.UTF_8));
+    meta.put(DataFileConstants.ZSTANDARD_LEVEL, "12".getBytes(StandardCharsets.UTF_8));
+    ZstandardCodec.Option option = (ZstandardCodec.Option) CodecFactory.fromMeta(meta);
+    assertEquals(12, option.getCompressionLevel());
+    assertNull(option.getDictionary());
+
+    meta.put(DataFileConstants.ZSTANDARD_DICTIONARY, DICTIONARY);
+    option = (ZstandardCodec.Option) CodecFactory.fromMeta(meta);
+    assertEquals(12, option.getCompressionLevel());
+    assertArrayEquals(DICTIONARY, option.getDictionary());
+
+    meta.remove(DataFileConstants.ZSTANDARD_LEVEL);
+    option = (ZstandardCodec.Option) CodecFactory.fromMeta(meta);
+    assertEquals(CodecFactory.DEFAULT_ZSTANDARD_LEVEL, option.getCompressionLevel());
+
+    // options of other codecs are ignored
+    meta.put(DataFileConstants.CODEC, "deflate".getBytes(StandardCharsets.UTF_8));
+    assertEquals(CodecFactory.fromString("deflate"), CodecFactory.fromMeta(meta));
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testInvalidLevel() {
+    Map<String, byte[]> meta = new HashMap<>();
+    meta.put(DataFileConstants.CODEC, "zstandard".getBytes(StandardCharsets.UTF_8));
+    meta.put(DataFileConstants.ZSTANDARD_LEVEL, "fast".getBytes(StandardCharsets.UTF_8));
+    CodecFactory.fromMeta(meta);
+  }
+
+  @Test
+  public void testSetCodecReplacesOptions() throws IOException {
+    File file = DIR.newFile();
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.setCodec(CodecFactory.zstandardCodec(7, false, DICTIONARY));
+      writer.setCodec(CodecFactory.deflateCodec(1));
+      writer.create(EventFiles.SCHEMA, file);
+      writer.append(EventFiles.record(0));
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertNull(reader.getMeta(DataFileConstants.ZSTANDARD_DICTIONARY));
+      assertNull(reader.getMeta(DataFileConstants.ZSTANDARD_LEVEL));
+      assertEquals(1, EventFiles.checkRecords(reader, 0));
+    }
+  }
+
+  @Test
+  public void testAppendTo() throws IOException {
+    File file = writeFile(CodecFactory.zstandardCodec(7, false, DICTIONARY));
+    try (DataFileWriter<GenericRecord> writer = EventFiles.writer()) {
+      writer.appendTo(file);
+      for (long i = COUNT; i < 2 * COUNT; i++) {
+        writer.append(EventFiles.record(i));
+      }
+    }
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      assertArrayEquals(DICTIONARY, reader.getMeta(DataFileConstants.ZSTANDARD_DICTIONARY));
+      assertEquals("7", reader.getMetaString(DataFileConstants.ZSTANDARD_LEVEL));
+      assertEquals(2 * COUNT, EventFiles.checkRecords(reader, 0));
+    }
+  }
+
+  @Test
+  public void testReadAhead() throws IOException {
+    File file = writeFile(CodecFactory.zstandardCodec(1, true, DICTIONARY));
+    try (DataFileReader<GenericRecord> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+      reader.setReadAhead(3);
+      assertEquals(COUNT, EventFiles.checkRecords(reader, 0));
+      assertFalse(reader.hasNext());
+    }
+  }
+}
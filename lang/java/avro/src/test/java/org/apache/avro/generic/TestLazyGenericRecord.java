@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.AvroRuntimeException;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestLazyGenericRecord {
+
+  private static final Schema WRITER = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"id\",\"type\":\"int\"}," + "{\"name\":\"name\",\"type\":\"string\"},"
+      + "{\"name\":\"scores\",\"type\":{\"type\":\"array\",\"items\":\"double\"}},"
+      + "{\"name\":\"extra\",\"type\":{\"type\":\"map\",\"values\":\"string\"}},"
+      + "{\"name\":\"label\",\"type\":[\"null\",\"string\"]}," + "{\"name\":\"flag\",\"type\":\"boolean\"}]}");
+
+  private static final Schema READER = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"flag\",\"type\":\"boolean\"}," + "{\"name\":\"id\",\"type\":\"long\"},"
+      + "{\"name\":\"label\",\"type\":[\"null\",\"string\"]}," + "{\"name\":\"name\",\"type\":\"string\"},"
+      + "{\"name\":\"added\",\"type\":\"int\",\"default\":7},"
+      + "{\"name\":\"scores\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}]}");
+
+  private static byte[] encode(int id) throws IOException {
+    GenericRecord record = new GenericData.Record(WRITER);
+    record.put("id", id);
+    record.put("name", "name-" + id);
+    record.put("scores", Arrays.asList(1.5, 2.5 * id));
+    record.put("extra", Collections.singletonMap("k", "v" + id));
+    record.put("label", id % 2 == 0 ? null : "odd");
+    record.put("flag", id % 3 == 0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(WRITER).write(record, encoder);
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static void assertFields(int id, LazyGenericRecord record) {
+    assertEquals((long) id, record.get("id"));
+    assertEquals(new Utf8("name-" + id), record.get("name"));
+    assertEquals(Arrays.asList(1.5, 2.5 * id), record.get("scores"));
+    assertEquals(id % 2 == 0 ? null : new Utf8("odd"), record.get("label"));
+    assertEquals(id % 3 == 0, record.get("flag"));
+    assertEquals(7, record.get("added"));
+  }
+
+  @Test
+  public void testMatchesGenericDatumReader() throws IOException {
+    LazyGenericRecord.Reader reader = new LazyGenericRecord.Reader(WRITER, READER);
+    for (int id = 0; id < 6; id++) {
+      byte[] bytes = encode(id);
+      GenericRecord expected = new GenericDatumReader<GenericRecord>(WRITER, READER).read(null,
+          DecoderFactory.get().binaryDecoder(bytes, null));
+      LazyGenericRecord record = reader.read(bytes);
+      assertEquals(0, GenericData.get().compare(expected, record, READER));
+      assertEquals(expected.hashCode(), record.hashCode());
+      assertEquals(record, reader.read(bytes));
+    }
+  }
+
+  @Test
+  public void testModels() throws IOException {
+    Schema schema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"T\",\"fields\":["
+        + "{\"name\":\"s\",\"type\":\"string\"},"
+        + "{\"name\":\"t\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}}]}");
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("s", "x");
+    record.put("t", 1000L);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+    encoder.flush();
+    byte[] bytes = out.toByteArray();
+
+    GenericData converting = new GenericData();
+    converting.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    // fields are read by the fast reader of supported models, and as before by
+    // others
+    for (GenericData data : new GenericData[] { converting, new GenericData() {
+    } }) {
+      GenericRecord expected = new GenericDatumReader<GenericRecord>(schema, schema, data).read(null,
+          DecoderFactory.get().binaryDecoder(bytes, null));
+      LazyGenericRecord lazy = new LazyGenericRecord.Reader(schema, schema, data).read(bytes);
+      assertEquals(expected.get("s"), lazy.get("s"));
+      assertEquals(expected.get("t"), lazy.get("t"));
+    }
+    assertEquals(Instant.ofEpochMilli(1000),
+        new LazyGenericRecord.Reader(schema, schema, converting).read(bytes).get("t"));
+  }
+
+  @Test
+  public void testFieldOrders() throws IOException {
+    LazyGenericRecord.Reader reader = new LazyGenericRecord.Reader(WRITER, READER);
+    byte[] bytes = encode(5);
+    // in writer order, each decoded field tells where the next one starts
+    LazyGenericRecord inOrder = reader.read(bytes);
+    assertEquals(5L, inOrder.get("id"));
+    assertEquals(new Utf8("name-5"), inOrder.get("name"));
+    assertEquals(Arrays.asList(1.5, 12.5), inOrder.get("scores"));
+    assertEquals(new Utf8("odd"), inOrder.get("label"));
+    assertEquals(false, inOrder.get("flag"));
+
+    assertFields(5, reader.read(bytes));
+
+    LazyGenericRecord backwards = reader.read(bytes);
+    for (int i = READER.getFields().size() - 1; i >= 0; i--) {
+      backwards.get(i);
+    }
+    assertFields(5, backwards);
+  }
+
+  @Test
+  public void testProjection() throws IOException {
+    LazyGenericRecord.Reader reader = new LazyGenericRecord.Reader(WRITER, READER)
+        .setProjection(Arrays.asList("flag", "name", "id"));
+    for (int id = 0; id < 4; id++) {
+      assertFields(id, reader.read(encode(id)));
+    }
+  }
+
+  @Test
+  public void testOffsetAndPut() throws IOException {
+    byte[] record = encode(3);
+    byte[] bytes = new byte[record.length + 10];
+    System.arraycopy(record, 0, bytes, 4, record.length);
+    LazyGenericRecord lazy = new LazyGenericRecord.Reader(WRITER, READER).read(bytes, 4, record.length);
+    lazy.put("name", "changed");
+    assertEquals("changed", lazy.get("name"));
+    assertEquals(3L, lazy.get("id"));
+    assertEquals(new Utf8("odd"), lazy.get("label"));
+  }
+
+  @Test(expected = AvroRuntimeException.class)
+  public void testUnknownField() throws IOException {
+    new LazyGenericRecord.Reader(WRITER).read(encode(1)).get("missing");
+  }
+}
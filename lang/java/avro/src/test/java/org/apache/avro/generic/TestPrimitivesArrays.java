@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+public class TestPrimitivesArrays {
+
+  private static final Schema INTS = SchemaBuilder.array().items().intType();
+  private static final Schema LONGS = SchemaBuilder.array().items().longType();
+  private static final Schema FLOATS = SchemaBuilder.array().items().floatType();
+  private static final Schema DOUBLES = SchemaBuilder.array().items().doubleType();
+
+  @Test
+  public void testListOperations() {
+    PrimitivesArrays.IntArray array = new PrimitivesArrays.IntArray(0, INTS);
+    for (int i = 0; i < 10; i++) {
+      array.addInt(i);
+    }
+    array.add(0, -1);
+    assertEquals(11, array.size());
+    assertEquals(-1, array.getInt(0));
+    assertEquals(Integer.valueOf(9), array.get(10));
+    assertEquals(Integer.valueOf(-1), array.remove(0));
+    assertEquals(5, array.setInt(5, 50));
+    array.reverse();
+    assertEquals(Arrays.asList(9, 8, 7, 6, 50, 4, 3, 2, 1, 0), array);
+    assertEquals(new GenericData.Array<>(INTS, Arrays.asList(9, 8, 7, 6, 50, 4, 3, 2, 1, 0)), array);
+    assertNull(array.peek());
+    array.clear();
+    assertEquals(0, array.size());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testOutOfBounds() {
+    PrimitivesArrays.DoubleArray array = new PrimitivesArrays.DoubleArray(DOUBLES, Arrays.asList(1.0, 2.0));
+    array.getDouble(2);
+  }
+
+  @Test
+  public void testNewArray() {
+    GenericData data = GenericData.get();
+    assertTrue(data.newArray(null, 0, INTS) instanceof PrimitivesArrays.IntArray);
+    assertTrue(data.newArray(null, 0, LONGS) instanceof PrimitivesArrays.LongArray);
+    assertTrue(data.newArray(null, 0, FLOATS) instanceof PrimitivesArrays.FloatArray);
+    assertTrue(data.newArray(null, 0, DOUBLES) instanceof PrimitivesArrays.DoubleArray);
+    assertTrue(data.newArray(null, 0, SchemaBuilder.array().items().stringType()) instanceof GenericData.Array);
+    Object old = data.newArray(null, 0, LONGS);
+    assertSame(old, data.newArray(old, 10, LONGS));
+
+    GenericData withConversion = new GenericData();
+    withConversion.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    Schema dates = Schema.createArray(
+        LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT)));
+    assertTrue(withConversion.newArray(null, 0, dates) instanceof GenericData.Array);
+  }
+
+  private static byte[] write(Schema schema, Object datum, boolean blocking) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = blocking ? EncoderFactory.get().blockingBinaryEncoder(out, null)
+        : EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<>(schema).write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static Object read(Schema writer, Schema reader, byte[] bytes, boolean fast) throws IOException {
+    GenericData data = new GenericData();
+    data.setFastReaderEnabled(fast);
+    return new GenericDatumReader<>(writer, reader, data).read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    List<Integer> ints = new ArrayList<>();
+    List<Long> longs = new ArrayList<>();
+    List<Float> floats = new ArrayList<>();
+    List<Double> doubles = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      ints.add(i * (i % 2 == 0 ? 1 : -1000));
+      longs.add(i * 1000000007L);
+      floats.add(i / 3.0f);
+      doubles.add(i / 7.0);
+    }
+    Object[][] cases = { { INTS, new PrimitivesArrays.IntArray(INTS, ints), ints },
+        { LONGS, new PrimitivesArrays.LongArray(LONGS, longs), longs },
+        { FLOATS, new PrimitivesArrays.FloatArray(FLOATS, floats), floats },
+        { DOUBLES, new PrimitivesArrays.DoubleArray(DOUBLES, doubles), doubles } };
+    for (Object[] c : cases) {
+      Schema schema = (Schema) c[0];
+      for (boolean blocking : new boolean[] { false, true }) {
+        // unboxed and boxed arrays are written the same
+        byte[] bytes = write(schema, c[1], blocking);
+        byte[] boxed = write(schema, new GenericData.Array<>(schema, (List<?>) c[2]), blocking);
+        assertTrue(Arrays.equals(bytes, boxed));
+        for (boolean fast : new boolean[] { false, true }) {
+          Object read = read(schema, schema, bytes, fast);
+          assertEquals(GenericData.get().newArray(null, 0, schema).getClass(), read.getClass());
+          assertEquals(c[2], read);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testPromotion() throws IOException {
+    List<Integer> ints = new ArrayList<>();
+    List<Long> longs = new ArrayList<>();
+    List<Double> doubles = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ints.add(i * 1000);
+      longs.add(i * 1000L);
+      doubles.add(i * 1000.0);
+    }
+    byte[] bytes = write(INTS, new PrimitivesArrays.IntArray(INTS, ints), false);
+    for (boolean fast : new boolean[] { false, true }) {
+      Object read = read(INTS, LONGS, bytes, fast);
+      assertTrue(read instanceof PrimitivesArrays.LongArray);
+      assertEquals(longs, read);
+      assertEquals(doubles, read(INTS, DOUBLES, bytes, fast));
+    }
+  }
+
+  @Test
+  public void testBulkEncoding() throws IOException {
+    long[] values = new long[300];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) i << (i % 60);
+    }
+    for (boolean blocking : new boolean[] { false, true }) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryEncoder bulk = blocking ? EncoderFactory.get().blockingBinaryEncoder(out, null)
+          : EncoderFactory.get().binaryEncoder(out, null);
+      writeLongs(bulk, values, true);
+      ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      BinaryEncoder single = blocking ? EncoderFactory.get().blockingBinaryEncoder(expected, null)
+          : EncoderFactory.get().binaryEncoder(expected, null);
+      writeLongs(single, values, false);
+      assertTrue(Arrays.equals(expected.toByteArray(), out.toByteArray()));
+    }
+  }
+
+  private static void writeLongs(Encoder e, long[] values, boolean bulk) throws IOException {
+    e.writeArrayStart();
+    e.setItemCount(values.length);
+    if (bulk) {
+      e.writeLongs(values, 0, values.length);
+    } else {
+      for (long v : values) {
+        e.startItem();
+        e.writeLong(v);
+      }
+    }
+    e.writeArrayEnd();
+    e.flush();
+  }
+
+  @Test
+  public void testDateConversion() throws IOException {
+    Schema dates = Schema.createArray(
+        LogicalTypes.date().addToSchema(Schema.create(Schema.Type.INT)));
+    byte[] bytes = write(INTS, new PrimitivesArrays.IntArray(INTS, Arrays.asList(0, 1)), false);
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new TimeConversions.DateConversion());
+    Object read = new GenericDatumReader<>(dates, dates, data).read(null,
+        DecoderFactory.get().binaryDecoder(bytes, null));
+    assertEquals(Arrays.asList(LocalDate.ofEpochDay(0), LocalDate.ofEpochDay(1)), read);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.generic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.avro.Conversion;
+import org.apache.avro.Schema;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestResolveUnion {
+
+  private static final Schema UNION = new Schema.Parser().parse("[\"null\", \"int\", \"string\", \"bytes\","
+      + "{\"type\":\"record\",\"name\":\"A\",\"fields\":[]},"
+      + "{\"type\":\"record\",\"name\":\"B\",\"fields\":[]},"
+      + "{\"type\":\"array\",\"items\":\"long\"}]");
+
+  /** A datum whose branch is held by the instance, not its class. */
+  private static class Tagged {
+    private final String branch;
+
+    Tagged(String branch) {
+      this.branch = branch;
+    }
+  }
+
+  private static class TaggedData extends GenericData {
+    @Override
+    protected String getSchemaName(Object datum) {
+      return datum instanceof Tagged ? ((Tagged) datum).branch : super.getSchemaName(datum);
+    }
+  }
+
+  private static class TaggedSpecificData extends SpecificData {
+    @Override
+    protected String getSchemaName(Object datum) {
+      return datum instanceof Tagged ? ((Tagged) datum).branch : super.getSchemaName(datum);
+    }
+  }
+
+  /** Writes strings as timestamps, so that strings resolve to a long branch. */
+  private static class StringTimestampConversion extends Conversion<String> {
+    @Override
+    public Class<String> getConvertedType() {
+      return String.class;
+    }
+
+    @Override
+    public String getLogicalTypeName() {
+      return "timestamp-millis";
+    }
+  }
+
+  private static boolean perClass(GenericData data, Object datum) {
+    return data.isUnionBranchPerClass(datum);
+  }
+
+  @Test
+  public void testGenericData() {
+    GenericData data = new GenericData();
+    GenericRecord a = new GenericData.Record(UNION.getTypes().get(4));
+    GenericRecord b = new GenericData.Record(UNION.getTypes().get(5));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, data.resolveUnion(UNION, null));
+      assertEquals(1, data.resolveUnion(UNION, 1));
+      assertEquals(2, data.resolveUnion(UNION, "s"));
+      assertEquals(2, data.resolveUnion(UNION, new Utf8("s")));
+      assertEquals(3, data.resolveUnion(UNION, ByteBuffer.allocate(1)));
+      // records share a class, so are resolved by their schema every time
+      assertEquals(4, data.resolveUnion(UNION, a));
+      assertEquals(5, data.resolveUnion(UNION, b));
+      assertEquals(6, data.resolveUnion(UNION, Collections.singletonList(1L)));
+    }
+  }
+
+  @Test
+  public void testBuiltInModelsOptIn() {
+    assertTrue(perClass(new GenericData(), "s"));
+    assertFalse(perClass(new GenericData(), new GenericData.Record(UNION.getTypes().get(4))));
+    assertTrue(perClass(new SpecificData(), "s"));
+    assertTrue(perClass(new ReflectData(), "s"));
+    assertTrue(perClass(new ReflectData.AllowNull(), "s"));
+    assertFalse(perClass(new ReflectData(), new HashMap<>()));
+  }
+
+  @Test
+  public void testSubclassesAreNotCached() {
+    for (GenericData data : new GenericData[] { new TaggedData(), new TaggedSpecificData() }) {
+      assertFalse(perClass(data, new Tagged("int")));
+      for (int i = 0; i < 3; i++) {
+        assertEquals(1, data.resolveUnion(UNION, new Tagged("int")));
+        assertEquals(2, data.resolveUnion(UNION, new Tagged("string")));
+        assertEquals(4, data.resolveUnion(UNION, new Tagged("A")));
+      }
+    }
+  }
+
+  @Test
+  public void testReflectMaps() {
+    Schema union = new Schema.Parser().parse("[\"null\", {\"type\":\"map\",\"values\":\"int\"},"
+        + "{\"type\":\"array\",\"items\":{\"type\":\"record\",\"name\":\"Pair\",\"fields\":["
+        + "{\"name\":\"key\",\"type\":\"int\"},{\"name\":\"value\",\"type\":\"int\"}]}}]");
+    Map<Object, Integer> stringKeys = new HashMap<>();
+    stringKeys.put("a", 1);
+    Map<Object, Integer> intKeys = new HashMap<>();
+    intKeys.put(1, 1);
+    ReflectData data = new ReflectData();
+    for (int i = 0; i < 3; i++) {
+      // maps with keys that are not strings are written as arrays
+      assertEquals(1, data.resolveUnion(union, stringKeys));
+      assertEquals(2, data.resolveUnion(union, intKeys));
+    }
+  }
+
+  @Test
+  public void testConversionsChangeBranches() {
+    Schema union = new Schema.Parser().parse("[\"string\", {\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}]");
+    GenericData plain = new GenericData();
+    GenericData converting = new GenericData();
+    converting.addLogicalTypeConversion(new StringTimestampConversion());
+    for (int i = 0; i < 3; i++) {
+      // both models remember their branch on the same union
+      assertEquals(0, plain.resolveUnion(union, "s"));
+      assertEquals(1, converting.resolveUnion(union, "s"));
+    }
+    plain.addLogicalTypeConversion(new StringTimestampConversion());
+    assertEquals(1, plain.resolveUnion(union, "s"));
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import org.apache.avro.InvalidNumberEncodingException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestBulkDecoding {
+
+  private static final int COUNT = 1000;
+
+  private final String source;
+
+  public TestBulkDecoding(String source) {
+    this.source = source;
+  }
+
+  @Parameters(name = "{0}")
+  public static Collection<Object[]> sources() {
+    return Arrays.asList(new Object[][] { { "array" }, { "stream" }, { "direct" } });
+  }
+
+  private Decoder decoder(byte[] data) throws IOException {
+    switch (source) {
+    case "array":
+      return DecoderFactory.get().binaryDecoder(data, null);
+    case "stream":
+      // a buffer small enough to be refilled within runs of values
+      return new DecoderFactory().configureDecoderBufferSize(37)
+          .binaryDecoder(new ByteArrayInputStream(data), null);
+    default:
+      return DecoderFactory.get().directBinaryDecoder(new ByteArrayInputStream(data), null);
+    }
+  }
+
+  // mixes varints of every length, with runs of single-byte ones
+  private static int[] ints(Random random) {
+    int[] values = new int[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      values[i] = (i / 16) % 2 == 0 ? random.nextInt(128) - 64 : random.nextInt() >> random.nextInt(32);
+    }
+    values[1] = Integer.MIN_VALUE;
+    values[2] = Integer.MAX_VALUE;
+    return values;
+  }
+
+  private static long[] longs(Random random) {
+    long[] values = new long[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      values[i] = (i / 16) % 2 == 0 ? random.nextInt(128) - 64 : random.nextLong() >> random.nextInt(64);
+    }
+    values[1] = Long.MIN_VALUE;
+    values[2] = Long.MAX_VALUE;
+    return values;
+  }
+
+  @Test
+  public void testInts() throws IOException {
+    int[] values = ints(new Random(42));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    for (int v : values) {
+      e.writeInt(v);
+    }
+    e.writeString("end");
+    e.flush();
+
+    Decoder d = decoder(out.toByteArray());
+    int[] decoded = new int[COUNT + 3];
+    d.readInts(decoded, 3, 10);
+    d.readInts(decoded, 13, COUNT - 10);
+    assertArrayEquals(values, Arrays.copyOfRange(decoded, 3, COUNT + 3));
+    assertEquals("end", d.readString());
+  }
+
+  @Test
+  public void testLongs() throws IOException {
+    long[] values = longs(new Random(42));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    for (long v : values) {
+      e.writeLong(v);
+    }
+    e.writeString("end");
+    e.flush();
+
+    Decoder d = decoder(out.toByteArray());
+    long[] decoded = new long[COUNT];
+    d.readLongs(decoded, 0, 1);
+    d.readLongs(decoded, 1, COUNT - 1);
+    assertArrayEquals(values, decoded);
+    assertEquals("end", d.readString());
+  }
+
+  @Test
+  public void testFloatsAndDoubles() throws IOException {
+    Random random = new Random(42);
+    float[] floats = new float[COUNT];
+    double[] doubles = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      floats[i] = random.nextFloat() * i;
+      doubles[i] = random.nextGaussian() * i;
+    }
+    floats[1] = Float.NaN;
+    doubles[1] = Double.NEGATIVE_INFINITY;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    for (float v : floats) {
+      e.writeFloat(v);
+    }
+    e.writeInt(7);
+    for (double v : doubles) {
+      e.writeDouble(v);
+    }
+    e.flush();
+
+    Decoder d = decoder(out.toByteArray());
+    float[] decodedFloats = new float[COUNT];
+    d.readFloats(decodedFloats, 0, COUNT);
+    assertEquals(7, d.readInt());
+    double[] decodedDoubles = new double[COUNT];
+    d.readDoubles(decodedDoubles, 0, COUNT);
+    assertArrayEquals(floats, decodedFloats, 0);
+    assertArrayEquals(doubles, decodedDoubles, 0);
+  }
+
+  @Test
+  public void testEmpty() throws IOException {
+    Decoder d = decoder(new byte[] { 2 });
+    d.readInts(new int[0], 0);
+    d.readLongs(new long[0], 0);
+    assertEquals(1, d.readInt());
+  }
+
+  @Test(expected = InvalidNumberEncodingException.class)
+  public void testIntTooLong() throws IOException {
+    byte[] data = new byte[16];
+    Arrays.fill(data, 0, 6, (byte) 0x80);
+    decoder(data).readInts(new int[2], 2);
+  }
+
+  @Test
+  public void testValidating() throws IOException {
+    Schema schema = SchemaBuilder.record("R").fields().name("ints").type().array().items().intType().noDefault()
+        .name("longs").type().array().items().longType().noDefault().endRecord();
+    int[] ints = ints(new Random(1));
+    long[] longs = longs(new Random(2));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (int v : ints) {
+      e.startItem();
+      e.writeInt(v);
+    }
+    e.writeArrayEnd();
+    e.writeArrayStart();
+    e.setItemCount(COUNT);
+    for (long v : longs) {
+      e.startItem();
+      e.writeLong(v);
+    }
+    e.writeArrayEnd();
+    e.flush();
+
+    Decoder d = DecoderFactory.get().validatingDecoder(schema, decoder(out.toByteArray()));
+    int[] decodedInts = new int[COUNT];
+    assertEquals(COUNT, d.readArrayStart());
+    d.readInts(decodedInts, COUNT);
+    assertEquals(0, d.arrayNext());
+    long[] decodedLongs = new long[COUNT];
+    assertEquals(COUNT, d.readArrayStart());
+    d.readLongs(decodedLongs, COUNT);
+    assertEquals(0, d.arrayNext());
+    assertArrayEquals(ints, decodedInts);
+    assertArrayEquals(longs, decodedLongs);
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.avro.util.StringInterner;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class TestByteBufferDecoder {
+
+  private static final int COUNT = 2000;
+
+  private static final byte[] DATA;
+
+  static {
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+      Random random = new Random(42);
+      for (int i = 0; i < COUNT; i++) {
+        e.writeInt(random.nextInt() >> random.nextInt(32));
+        e.writeLong(random.nextLong() >> random.nextInt(64));
+        e.writeBoolean(i % 3 == 0);
+        e.writeString(string(i));
+        e.writeDouble(i * 0.25);
+        e.writeFloat(i);
+        e.writeBytes(new byte[] { (byte) i, 2, 3 });
+        e.writeString("tag" + (i % 4));
+        e.writeArrayStart();
+        e.setItemCount(9);
+        for (int k = 0; k < 9; k++) {
+          e.startItem();
+          e.writeInt(k * i);
+        }
+        e.writeArrayEnd();
+      }
+      e.flush();
+      DATA = out.toByteArray();
+    } catch (IOException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  // mostly short strings, and now and then one longer than the decoder's buffer
+  private static String string(int i) {
+    if (i % 500 == 7) {
+      char[] chars = new char[10000 + i];
+      Arrays.fill(chars, (char) ('a' + i % 26));
+      return new String(chars);
+    }
+    return "s" + i;
+  }
+
+  @Parameters(name = "{0}")
+  public static List<Object[]> data() {
+    List<Object[]> data = new ArrayList<>();
+    for (String kind : new String[] { "heap", "direct", "mixed" }) {
+      for (int size : new int[] { 1, 5, 15, 16, 17, 100, 4096, 100000 }) {
+        data.add(new Object[] { kind + "-" + size, kind, size });
+      }
+      data.add(new Object[] { kind + "-random", kind, -1 });
+    }
+    return data;
+  }
+
+  private final String kind;
+  private final int size;
+
+  public TestByteBufferDecoder(String name, String kind, int size) {
+    this.kind = kind;
+    this.size = size;
+  }
+
+  // splits the data into buffers; heap buffers are slices of larger arrays
+  private List<ByteBuffer> split(byte[] data) {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    Random random = new Random(size);
+    for (int start = 0, i = 0; start < data.length; i++) {
+      int n = Math.min(data.length - start, size > 0 ? size : 1 + random.nextInt(random.nextBoolean() ? 20 : 3000));
+      boolean direct = "direct".equals(kind) || ("mixed".equals(kind) && i % 2 == 1);
+      ByteBuffer buffer;
+      if (direct) {
+        buffer = ByteBuffer.allocateDirect(n + 8);
+        buffer.position(3);
+        buffer.put(data, start, n);
+        buffer.position(3);
+        buffer.limit(3 + n);
+      } else {
+        byte[] array = new byte[n + 40];
+        Arrays.fill(array, (byte) 0xff);
+        System.arraycopy(data, start, array, 20, n);
+        buffer = ByteBuffer.wrap(array, 10, n + 20).slice();
+        buffer.position(10);
+        buffer.limit(10 + n);
+      }
+      buffers.add(buffer);
+      start += n;
+    }
+    return buffers;
+  }
+
+  private static void checkAll(BinaryDecoder d) throws IOException {
+    Random random = new Random(42);
+    StringInterner interner = new StringInterner();
+    Utf8 utf8 = null;
+    ByteBuffer bytes = null;
+    int[] ints = new int[9];
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals(random.nextInt() >> random.nextInt(32), d.readInt());
+      assertEquals(random.nextLong() >> random.nextInt(64), d.readLong());
+      assertEquals(i % 3 == 0, d.readBoolean());
+      utf8 = d.readString(utf8);
+      assertEquals(string(i), utf8.toString());
+      assertEquals(i * 0.25, d.readDouble(), 0);
+      assertEquals(i, d.readFloat(), 0);
+      bytes = d.readBytes(bytes);
+      assertEquals(ByteBuffer.wrap(new byte[] { (byte) i, 2, 3 }), bytes);
+      assertEquals("tag" + (i % 4), d.readInternedString(interner));
+      assertEquals(9, d.readArrayStart());
+      d.readInts(ints, 0, 9);
+      for (int k = 0; k < 9; k++) {
+        assertEquals(k * i, ints[k]);
+      }
+      assertEquals(0, d.arrayNext());
+    }
+    assertTrue(d.isEnd());
+  }
+
+  @Test
+  public void testDecode() throws IOException {
+    List<ByteBuffer> buffers = split(DATA);
+    List<ByteBuffer> before = new ArrayList<>();
+    for (ByteBuffer buffer : buffers) {
+      before.add(buffer.duplicate());
+    }
+    checkAll(DecoderFactory.get().binaryDecoder(buffers, null));
+    // neither the positions nor the contents of the buffers are changed
+    assertEquals(before, buffers);
+    for (int i = 0; i < buffers.size(); i++) {
+      assertEquals(before.get(i).position(), buffers.get(i).position());
+    }
+  }
+
+  @Test
+  public void testHeapDecodedInPlace() throws IOException {
+    List<ByteBuffer> buffers = split(DATA);
+    BinaryDecoder d = DecoderFactory.get().binaryDecoder(buffers, null);
+    d.readInt();
+    ByteBuffer first = buffers.get(0);
+    assertEquals(first.hasArray() && first.remaining() >= 16, first.hasArray() && d.getBuf() == first.array());
+  }
+
+  @Test
+  public void testSkip() throws IOException {
+    BinaryDecoder d = DecoderFactory.get().binaryDecoder(split(DATA), null);
+    Random random = new Random(42);
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals(random.nextInt() >> random.nextInt(32), d.readInt());
+      random.nextLong();
+      random.nextInt();
+      d.readLong();
+      d.readBoolean();
+      d.skipString();
+      d.skipFixed(12);
+      d.skipBytes();
+      assertEquals("tag" + (i % 4), d.readString());
+      assertEquals(9, d.skipArray());
+      for (int k = 0; k < 9; k++) {
+        d.readInt();
+      }
+      assertEquals(0, d.arrayNext());
+    }
+    assertTrue(d.isEnd());
+  }
+
+  @Test
+  public void testInputStream() throws IOException {
+    BinaryDecoder d = DecoderFactory.get().binaryDecoder(split(DATA), null);
+    Random random = new Random(42);
+    int first = random.nextInt() >> random.nextInt(32);
+    assertEquals(first, d.readInt());
+    // the rest is read through the stream, including what the decoder buffered
+    InputStream in = d.inputStream();
+    ByteArrayOutputStream rest = new ByteArrayOutputStream();
+    byte[] chunk = new byte[777];
+    rest.write(in.read());
+    for (int n; (n = in.read(chunk, 0, chunk.length)) > 0;) {
+      rest.write(chunk, 0, n);
+    }
+    byte[] expected = Arrays.copyOfRange(DATA, DATA.length - rest.size(), DATA.length);
+    assertArrayEquals(expected, rest.toByteArray());
+    assertEquals(DATA.length, BinaryData.encodeInt(first, new byte[5], 0) + rest.size());
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestFastReaderBuilder {
+
+  private static final String PRIMITIVES = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"n\",\"type\":\"null\"},{\"name\":\"b\",\"type\":\"boolean\"},"
+      + "{\"name\":\"i\",\"type\":\"int\"},{\"name\":\"l\",\"type\":\"long\"},"
+      + "{\"name\":\"f\",\"type\":\"float\"},{\"name\":\"d\",\"type\":\"double\"},"
+      + "{\"name\":\"s\",\"type\":\"string\"},{\"name\":\"t\",\"type\":"
+      + "{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}}]}";
+
+  private static Schema parse(String json) {
+    return new Schema.Parser().parse(json);
+  }
+
+  private static byte[] write(GenericRecord record) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(record.getSchema()).write(record, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static <D> D read(DatumReader<D> reader, D reuse, byte[] bytes) throws IOException {
+    return reader.read(reuse, DecoderFactory.get().binaryDecoder(bytes, null));
+  }
+
+  private static GenericRecord primitives(Schema schema, int i) {
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("b", i % 2 == 0);
+    record.put("i", i);
+    record.put("l", i * 1000000000L);
+    record.put("f", i / 2.0f);
+    record.put("d", i / 3.0);
+    record.put("s", new Utf8("s" + i));
+    record.put("t", i * 1000L);
+    return record;
+  }
+
+  @Test
+  public void testPrimitiveFields() throws IOException {
+    Schema schema = parse(PRIMITIVES);
+    DatumReader<GenericRecord> reader = new FastReaderBuilder(new GenericData()).createDatumReader(schema);
+    GenericRecord reuse = null;
+    for (int i = 0; i < 3; i++) {
+      GenericRecord expected = primitives(schema, i);
+      GenericRecord read = read(reader, reuse, write(expected));
+      assertEquals(expected, read);
+      if (reuse != null) {
+        assertSame(reuse, read);
+      }
+      reuse = read;
+    }
+  }
+
+  @Test
+  public void testConvertedPrimitive() throws IOException {
+    Schema schema = parse(PRIMITIVES);
+    GenericData data = new GenericData();
+    data.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    DatumReader<GenericRecord> reader = new FastReaderBuilder(data).createDatumReader(schema);
+    GenericRecord read = read(reader, null, write(primitives(schema, 5)));
+    assertEquals(Instant.ofEpochMilli(5000), read.get("t"));
+    assertEquals(5000000000L, read.get("l"));
+    assertNull(read.get("n"));
+  }
+
+  @Test
+  public void testPromotedPrimitive() throws IOException {
+    Schema writer = parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"x\",\"type\":\"int\"}]}");
+    Schema reader = parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"x\",\"type\":\"double\"}]}");
+    GenericRecord record = new GenericData.Record(writer);
+    record.put("x", 3);
+    GenericRecord read = read(new FastReaderBuilder(new GenericData()).<GenericRecord>createDatumReader(writer, reader),
+        null, write(record));
+    assertEquals(3.0, read.get("x"));
+  }
+
+  @Test
+  public void testCachedReaders() throws IOException {
+    FastReaderBuilder builder = new FastReaderBuilder(new GenericData());
+    // schemas parsed again share the compiled reader
+    DatumReader<Object> first = builder.createDatumReader(parse(PRIMITIVES));
+    assertSame(first, builder.createDatumReader(parse(PRIMITIVES), parse(PRIMITIVES)));
+    // readers of different schemas do not
+    Schema other = parse(PRIMITIVES.replace("\"name\":\"R\"", "\"name\":\"S\""));
+    assertNotSame(first, builder.createDatumReader(other));
+    Schema withDefault = parse(PRIMITIVES.replace("\"type\":\"null\"}", "\"type\":\"null\",\"default\":null}"));
+    assertNotSame(first, builder.createDatumReader(withDefault));
+  }
+
+  @Test
+  public void testCachedReadersWithAliases() throws IOException {
+    FastReaderBuilder builder = new FastReaderBuilder(new GenericData());
+    Schema writer = parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"a\",\"type\":\"int\"},"
+        + "{\"name\":\"b\",\"type\":\"int\"}]}");
+    GenericRecord record = new GenericData.Record(writer);
+    record.put("a", 1);
+    record.put("b", 2);
+    byte[] bytes = write(record);
+    // readers that differ only in their aliases resolve differently
+    String reader = "{\"type\":\"record\",\"name\":\"R\",\"fields\":"
+        + "[{\"name\":\"x\",\"type\":\"int\",\"aliases\":[\"%s\"]}]}";
+    GenericRecord fromA = read(builder.<GenericRecord>createDatumReader(writer, parse(String.format(reader, "a"))),
+        null, bytes);
+    GenericRecord fromB = read(builder.<GenericRecord>createDatumReader(writer, parse(String.format(reader, "b"))),
+        null, bytes);
+    assertEquals(1, fromA.get("x"));
+    assertEquals(2, fromB.get("x"));
+  }
+
+  @Test
+  public void testConversionClearsCachedReaders() throws IOException {
+    Schema schema = parse(PRIMITIVES);
+    GenericData data = new GenericData();
+    FastReaderBuilder builder = data.getFastReaderBuilder();
+    byte[] bytes = write(primitives(schema, 5));
+    DatumReader<GenericRecord> before = builder.createDatumReader(schema);
+    assertEquals(5000L, read(before, null, bytes).get("t"));
+    data.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    DatumReader<GenericRecord> after = builder.createDatumReader(schema);
+    assertNotSame(before, after);
+    assertEquals(Instant.ofEpochMilli(5000), read(after, null, bytes).get("t"));
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.AvroTypeException;
+import org.apache.avro.Schema;
+import org.apache.avro.UnresolvedUnionException;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.reflect.Nullable;
+import org.apache.avro.reflect.ReflectData;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.apache.avro.util.Utf8;
+import org.junit.Test;
+
+public class TestFastWriterBuilder {
+
+  private static final Schema SCHEMA = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"b\",\"type\":\"boolean\"},{\"name\":\"i\",\"type\":\"int\"},"
+      + "{\"name\":\"l\",\"type\":\"long\"},{\"name\":\"f\",\"type\":\"float\"},"
+      + "{\"name\":\"d\",\"type\":\"double\"},{\"name\":\"s\",\"type\":\"string\"},"
+      + "{\"name\":\"bytes\",\"type\":\"bytes\"},"
+      + "{\"name\":\"e\",\"type\":{\"type\":\"enum\",\"name\":\"E\",\"symbols\":[\"A\",\"B\"]}},"
+      + "{\"name\":\"fixed\",\"type\":{\"type\":\"fixed\",\"name\":\"F\",\"size\":2}},"
+      + "{\"name\":\"nullable\",\"type\":[\"null\",\"string\"]},"
+      + "{\"name\":\"nullLast\",\"type\":[\"int\",\"null\"]},"
+      + "{\"name\":\"union\",\"type\":[\"null\",\"int\",\"string\"]},"
+      + "{\"name\":\"array\",\"type\":{\"type\":\"array\",\"items\":\"long\"}},"
+      + "{\"name\":\"map\",\"type\":{\"type\":\"map\",\"values\":\"string\"}},"
+      + "{\"name\":\"t\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}},"
+      + "{\"name\":\"next\",\"type\":[\"null\",\"R\"]}]}");
+
+  private static GenericRecord record(GenericData data, int n) {
+    GenericRecord r = new GenericData.Record(SCHEMA);
+    r.put("b", n % 2 == 0);
+    r.put("i", n);
+    r.put("l", n * 10000000000L);
+    r.put("f", n / 2.0f);
+    r.put("d", n / 3.0);
+    r.put("s", n % 2 == 0 ? "s" + n : new Utf8("u" + n));
+    r.put("bytes", ByteBuffer.wrap(new byte[] { (byte) n, 1 }));
+    r.put("e", new GenericData.EnumSymbol(SCHEMA.getField("e").schema(), n % 2 == 0 ? "A" : "B"));
+    r.put("fixed", new GenericData.Fixed(SCHEMA.getField("fixed").schema(), new byte[] { 1, (byte) n }));
+    r.put("nullable", n % 2 == 0 ? null : "x");
+    r.put("nullLast", n % 2 == 0 ? n : null);
+    r.put("union", n % 3 == 0 ? null : n % 3 == 1 ? (Object) n : "u");
+    r.put("array", Arrays.asList(1L, (long) n));
+    Map<String, String> map = new HashMap<>();
+    map.put("k" + n, "v");
+    r.put("map", map);
+    boolean converted = data.getConversionFor(SCHEMA.getField("t").schema().getLogicalType()) != null;
+    r.put("t", converted ? Instant.ofEpochMilli(n) : (Object) (long) n);
+    r.put("next", n > 0 ? record(data, n - 1) : null);
+    return r;
+  }
+
+  private static <D> byte[] write(GenericDatumWriter<D> writer, D datum) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    writer.write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static GenericData data(boolean fast, boolean conversions) {
+    GenericData data = new GenericData().setFastWriterEnabled(fast);
+    if (conversions) {
+      data.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    }
+    return data;
+  }
+
+  @Test
+  public void testSameBytes() throws IOException {
+    for (boolean conversions : new boolean[] { false, true }) {
+      GenericData fast = data(true, conversions);
+      assertTrue(fast.isFastWriterEnabled());
+      GenericDatumWriter<GenericRecord> fastWriter = new GenericDatumWriter<>(SCHEMA, fast);
+      GenericDatumWriter<GenericRecord> slowWriter = new GenericDatumWriter<>(SCHEMA, data(false, conversions));
+      for (int n = 0; n < 6; n++) {
+        GenericRecord r = record(fast, n);
+        assertArrayEquals(write(slowWriter, r), write(fastWriter, r));
+      }
+    }
+  }
+
+  @Test
+  public void testSetSchema() throws IOException {
+    Schema other = new Schema.Parser().parse("{\"type\":\"array\",\"items\":\"int\"}");
+    GenericDatumWriter<Object> writer = new GenericDatumWriter<>(SCHEMA, data(true, false));
+    write(writer, record(GenericData.get(), 1));
+    writer.setSchema(other);
+    List<Integer> ints = Arrays.asList(1, 2, 3);
+    assertArrayEquals(write(new GenericDatumWriter<>(other), ints), write(writer, ints));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullField() throws IOException {
+    GenericRecord r = record(GenericData.get(), 1);
+    r.put("i", null);
+    write(new GenericDatumWriter<>(SCHEMA, data(true, false)), r);
+  }
+
+  @Test(expected = AvroTypeException.class)
+  public void testNotAnEnum() throws IOException {
+    GenericRecord r = record(GenericData.get(), 1);
+    r.put("e", Collections.emptyList());
+    write(new GenericDatumWriter<>(SCHEMA, data(true, false)), r);
+  }
+
+  @Test(expected = UnresolvedUnionException.class)
+  public void testMistypedNullable() throws IOException {
+    GenericRecord r = record(GenericData.get(), 1);
+    r.put("nullable", 5);
+    write(new GenericDatumWriter<>(SCHEMA, data(true, false)), r);
+  }
+
+  @Test(expected = UnresolvedUnionException.class)
+  public void testMistypedNullLast() throws IOException {
+    GenericRecord r = record(GenericData.get(), 1);
+    r.put("nullLast", 5L);
+    write(new GenericDatumWriter<>(SCHEMA, data(true, false)), r);
+  }
+
+  @Test
+  public void testConversionAddedLater() throws IOException {
+    GenericData fast = data(true, false);
+    GenericRecord raw = record(fast, 3);
+    GenericDatumWriter<GenericRecord> slowWriter = new GenericDatumWriter<>(SCHEMA, data(false, false));
+    assertArrayEquals(write(slowWriter, raw), write(new GenericDatumWriter<>(SCHEMA, fast), raw));
+    // writers compiled without the conversion are not reused
+    fast.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    GenericRecord converted = record(fast, 3);
+    assertArrayEquals(write(slowWriter, raw), write(new GenericDatumWriter<>(SCHEMA, fast), converted));
+  }
+
+  @Test
+  public void testSupportedModels() {
+    assertTrue(new ReflectData().setFastWriterEnabled(true).isFastWriterEnabled());
+    assertFalse(new ReflectData() {
+    }.setFastWriterEnabled(true).isFastWriterEnabled());
+  }
+
+  public static class Pojo {
+    byte by;
+    short sh;
+    char c;
+    int i;
+    byte[] bytes;
+    int[] ints;
+    String[] strings;
+    HashMap<Integer, String> names;
+    @Nullable
+    String maybe;
+    @Nullable
+    Pojo child;
+  }
+
+  @Test
+  public void testReflect() throws IOException {
+    Pojo p = new Pojo();
+    p.by = 7;
+    p.sh = 300;
+    p.c = 'z';
+    p.i = -5;
+    p.bytes = new byte[] { 1, 2 };
+    p.ints = new int[] { 3, 4 };
+    p.strings = new String[] { "a", "b" };
+    p.names = new HashMap<>();
+    p.names.put(1, "one");
+    p.child = new Pojo();
+    p.child.bytes = new byte[0];
+    p.child.ints = new int[0];
+    p.child.strings = new String[0];
+    p.child.names = new HashMap<>();
+    p.child.maybe = "m";
+    ReflectData fast = new ReflectData();
+    fast.setFastWriterEnabled(true);
+    ReflectData slow = new ReflectData();
+    Schema schema = slow.getSchema(Pojo.class);
+    byte[] expected = write(new ReflectDatumWriter<>(schema, slow), p);
+    assertArrayEquals(expected, write(new ReflectDatumWriter<>(schema, fast), p));
+  }
+}
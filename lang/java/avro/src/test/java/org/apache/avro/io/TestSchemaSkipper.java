@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+
+public class TestSchemaSkipper {
+
+  private static final String NODE = "{\"type\":\"record\",\"name\":\"Node\",\"fields\":["
+      + "{\"name\":\"id\",\"type\":\"long\"}," + "{\"name\":\"flag\",\"type\":\"boolean\"},"
+      + "{\"name\":\"weight\",\"type\":\"double\"},"
+      + "{\"name\":\"hash\",\"type\":{\"type\":\"fixed\",\"name\":\"Hash\",\"size\":4}},"
+      + "{\"name\":\"label\",\"type\":[\"null\",\"string\"]},"
+      + "{\"name\":\"points\",\"type\":{\"type\":\"array\",\"items\":\"float\"}},"
+      + "{\"name\":\"tags\",\"type\":{\"type\":\"map\",\"values\":\"int\"}},"
+      + "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":\"Node\"}}]}";
+
+  private static GenericRecord node(Schema schema, long id, GenericRecord... children) {
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("id", id);
+    record.put("flag", id % 2 == 0);
+    record.put("weight", id * 1.5);
+    record.put("hash", new GenericData.Fixed(schema.getField("hash").schema(), new byte[] { 1, 2, 3, (byte) id }));
+    record.put("label", id % 3 == 0 ? null : "node-" + id);
+    record.put("points", Arrays.asList(1.0f, 2.0f, (float) id));
+    record.put("tags", Collections.singletonMap("t" + id, (int) id));
+    record.put("children", Arrays.asList(children));
+    return record;
+  }
+
+  private static byte[] write(Schema schema, Encoder encoder, ByteArrayOutputStream out, Object... data)
+      throws IOException {
+    GenericDatumWriter<Object> writer = new GenericDatumWriter<>(schema);
+    for (Object datum : data) {
+      writer.write(datum, encoder);
+    }
+    encoder.flush();
+    return out.toByteArray();
+  }
+
+  private static Object[] sample(Schema schema) {
+    return new Object[] { node(schema, 1, node(schema, 2), node(schema, 3, node(schema, 4))), node(schema, 5) };
+  }
+
+  @Test
+  public void testSkipBinary() throws IOException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    write(schema, encoder, out, sample(schema));
+    encoder.writeInt(42);
+    encoder.flush();
+
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(out.toByteArray(), null);
+    SchemaSkipper skipper = SchemaSkipper.get(schema);
+    skipper.skip(in);
+    skipper.skip(in);
+    assertEquals(42, in.readInt());
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testSkipBlockedBinary() throws IOException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] bytes = write(schema, EncoderFactory.get().blockingBinaryEncoder(out, null), out, sample(schema));
+
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    SchemaSkipper skipper = SchemaSkipper.get(schema);
+    skipper.skip(in);
+    skipper.skip(in);
+    assertTrue(in.isEnd());
+  }
+
+  @Test
+  public void testSkipJson() throws IOException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    Schema pair = Schema.createRecord("Pair", null, null, false,
+        Arrays.asList(new Schema.Field("a", schema, null, null),
+            new Schema.Field("b", Schema.create(Schema.Type.INT), null, null)));
+    Object[] sample = sample(schema);
+    GenericRecord datum = new GenericData.Record(pair);
+    datum.put("a", sample[0]);
+    datum.put("b", 7);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] json = write(pair, EncoderFactory.get().jsonEncoder(pair, out), out, datum);
+
+    Decoder in = DecoderFactory.get().jsonDecoder(pair, new String(json, "UTF-8"));
+    SchemaSkipper.get(schema).skip(in);
+    assertEquals(7, in.readInt());
+  }
+
+  @Test
+  public void testSkipSequence() throws IOException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    Schema string = Schema.create(Schema.Type.STRING);
+    Schema fixedRun = Schema.create(Schema.Type.DOUBLE);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    encoder.writeDouble(1.0);
+    encoder.writeDouble(2.0);
+    encoder.writeString("skipped");
+    new GenericDatumWriter<Object>(schema).write(sample(schema)[1], encoder);
+    encoder.writeInt(99);
+    encoder.flush();
+
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(out.toByteArray(), null);
+    SchemaSkipper.get(Arrays.asList(fixedRun, fixedRun, string, schema)).skip(in);
+    assertEquals(99, in.readInt());
+  }
+
+  @Test
+  public void testBinaryDataSkip() throws IOException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(new byte[3]);
+    byte[] bytes = write(schema, EncoderFactory.get().binaryEncoder(out, null), out, sample(schema)[0]);
+    assertEquals(bytes.length, BinaryData.skip(schema, bytes, 3, bytes.length - 3));
+  }
+
+  @Test
+  public void testCacheDoesNotRetainSchema() throws IOException, InterruptedException {
+    Schema schema = new Schema.Parser().parse(NODE);
+    SchemaSkipper skipper = SchemaSkipper.get(schema);
+    assertSame(skipper, SchemaSkipper.get(schema));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] bytes = write(schema, EncoderFactory.get().binaryEncoder(out, null), out, sample(schema));
+
+    WeakReference<Schema> ref = new WeakReference<>(schema);
+    schema = null;
+    for (int i = 0; i < 50 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(20);
+      // WeakIdentityHashMap drops stale entries on access
+      SchemaSkipper.get(Schema.create(Schema.Type.INT));
+    }
+    assertNull("cached skipper keeps its schema reachable", ref.get());
+
+    // the skipper itself stays usable once its schema is gone
+    BinaryDecoder in = DecoderFactory.get().binaryDecoder(bytes, null);
+    skipper.skip(in);
+    skipper.skip(in);
+    assertTrue(in.isEnd());
+  }
+}
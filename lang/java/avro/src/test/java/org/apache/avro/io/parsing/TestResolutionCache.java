@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.io.parsing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.avro.Resolver;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.ResolvingDecoder;
+import org.junit.Test;
+
+public class TestResolutionCache {
+
+  private static final String WRITER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"a\",\"type\":\"int\"},{\"name\":\"t\",\"type\":\"long\"}]}";
+
+  private static final String READER = "{\"type\":\"record\",\"name\":\"R\",\"fields\":["
+      + "{\"name\":\"x\",\"type\":\"long\",\"aliases\":[\"a\"]},{\"name\":\"t\",\"type\":\"long\"},"
+      + "{\"name\":\"c\",\"type\":\"string\",\"default\":\"none\"}]}";
+
+  private static Schema parse(String json) {
+    return new Schema.Parser().parse(json);
+  }
+
+  @Test
+  public void testActions() {
+    GenericData data = new GenericData();
+    Resolver.Action action = ResolutionCache.getAction(parse(WRITER), parse(READER), data);
+    // schemas parsed again share the resolution
+    assertSame(action, ResolutionCache.getAction(parse(WRITER), parse(READER), data));
+    // other data models, defaults or logical types do not
+    assertNotSame(action, ResolutionCache.getAction(parse(WRITER), parse(READER), new GenericData()));
+    assertNotSame(action, ResolutionCache.getAction(parse(WRITER), parse(READER.replace("none", "other")), data));
+    Schema timestamps = parse(READER.replace("{\"name\":\"t\",\"type\":\"long\"}",
+        "{\"name\":\"t\",\"type\":{\"type\":\"long\",\"logicalType\":\"timestamp-millis\"}}"));
+    assertNotSame(action, ResolutionCache.getAction(parse(WRITER), timestamps, data));
+  }
+
+  @Test
+  public void testForget() {
+    GenericData data = new GenericData();
+    Resolver.Action action = ResolutionCache.getAction(parse(WRITER), parse(READER), data);
+    ResolutionCache.forget(data);
+    Resolver.Action resolved = ResolutionCache.getAction(parse(WRITER), parse(READER), data);
+    assertNotSame(action, resolved);
+    // new conversions may change the resolution
+    data.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    assertNotSame(resolved, ResolutionCache.getAction(parse(WRITER), parse(READER), data));
+  }
+
+  @Test
+  public void testGrammars() throws IOException {
+    Symbol grammar = ResolutionCache.getGrammar(parse(WRITER), parse(READER));
+    assertSame(grammar, ResolutionCache.getGrammar(parse(WRITER), parse(READER)));
+    assertNotSame(grammar, ResolutionCache.getGrammar(parse(WRITER), parse(READER.replace("none", "other"))));
+  }
+
+  @Test
+  public void testResolvingReads() throws IOException {
+    Schema writer = parse(WRITER);
+    GenericRecord record = new GenericData.Record(writer);
+    record.put("a", 7);
+    record.put("t", 8L);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(writer).write(record, e);
+    e.flush();
+    byte[] bytes = out.toByteArray();
+
+    for (int i = 0; i < 2; i++) {
+      ResolvingDecoder in = DecoderFactory.get().resolvingDecoder(parse(WRITER), parse(READER),
+          DecoderFactory.get().binaryDecoder(bytes, null));
+      in.readFieldOrder();
+      assertEquals(7, in.readLong());
+      assertEquals(8, in.readLong());
+      assertEquals("none", in.readString());
+
+      for (boolean fast : new boolean[] { false, true }) {
+        GenericData data = new GenericData();
+        data.setFastReaderEnabled(fast);
+        GenericRecord read = new GenericDatumReader<GenericRecord>(parse(WRITER), parse(READER), data).read(null,
+            DecoderFactory.get().binaryDecoder(bytes, null));
+        assertEquals(7L, read.get("x"));
+        assertEquals("none", read.get("c").toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.reflect;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.io.FastReaderBuilder;
+import org.junit.Test;
+
+public class TestReflectFastReader {
+
+  public static class Inner {
+    String name;
+    int count;
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Inner && Objects.equals(name, ((Inner) o).name) && count == ((Inner) o).count;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, count);
+    }
+  }
+
+  public static class Pojo {
+    boolean b;
+    byte by;
+    short sh;
+    char c;
+    int i;
+    long l;
+    float f;
+    double d;
+    Integer boxed;
+    String s;
+    byte[] bytes;
+    int[] ints;
+    long[] longs;
+    double[] doubles;
+    String[] strings;
+    List<Inner> inners;
+    Map<String, Long> counts;
+    HashMap<Integer, String> names;
+    BigDecimal decimal;
+    @Nullable
+    String maybe;
+    @AvroEncode(using = DateAsLongEncoding.class)
+    Date date;
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Pojo)) {
+        return false;
+      }
+      Pojo that = (Pojo) o;
+      return b == that.b && by == that.by && sh == that.sh && c == that.c && i == that.i && l == that.l
+          && f == that.f && d == that.d && Objects.equals(boxed, that.boxed) && Objects.equals(s, that.s)
+          && Arrays.equals(bytes, that.bytes) && Arrays.equals(ints, that.ints) && Arrays.equals(longs, that.longs)
+          && Arrays.equals(doubles, that.doubles) && Arrays.equals(strings, that.strings)
+          && Objects.equals(inners, that.inners) && Objects.equals(counts, that.counts)
+          && Objects.equals(names, that.names) && Objects.equals(decimal, that.decimal)
+          && Objects.equals(maybe, that.maybe) && Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+      return i;
+    }
+  }
+
+  private static Pojo pojo(int n) {
+    Pojo p = new Pojo();
+    p.b = n % 2 == 0;
+    p.by = (byte) n;
+    p.sh = (short) (n * 100);
+    p.c = (char) ('a' + n);
+    p.i = n;
+    p.l = n * 10000000000L;
+    p.f = n / 2.0f;
+    p.d = n / 3.0;
+    p.boxed = n;
+    p.s = "s" + n;
+    p.bytes = new byte[] { (byte) n, 2, 3 };
+    p.ints = new int[] { n, -n, n * 1000 };
+    p.longs = new long[] { n, Long.MAX_VALUE };
+    p.doubles = new double[] { n, 0.5 };
+    p.strings = new String[] { "x", "y" + n };
+    p.inners = new ArrayList<>();
+    for (int k = 0; k < 3; k++) {
+      Inner inner = new Inner();
+      inner.name = "inner" + k;
+      inner.count = k * n;
+      p.inners.add(inner);
+    }
+    p.counts = Collections.singletonMap("k" + n, (long) n);
+    p.names = new HashMap<>();
+    p.names.put(n, "n" + n);
+    p.decimal = new BigDecimal(n + ".25");
+    p.maybe = n % 2 == 0 ? null : "maybe";
+    p.date = new Date(n * 1000L);
+    return p;
+  }
+
+  private static <T> byte[] write(ReflectData data, Schema schema, T datum) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new ReflectDatumWriter<T>(schema, data).write(datum, e);
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static <T> T read(ReflectData data, Schema writer, Schema reader, T reuse, byte[] bytes)
+      throws IOException {
+    return new ReflectDatumReader<T>(writer, reader, data).read(reuse,
+        DecoderFactory.get().binaryDecoder(bytes, null));
+  }
+
+  @Test
+  public void testSupportedModels() {
+    assertTrue(new ReflectData().setFastReaderEnabled(true).isFastReaderEnabled());
+    assertTrue(new ReflectData.AllowNull().setFastReaderEnabled(true).isFastReaderEnabled());
+    // subclasses may customize reading in ways the fast reader would not honor
+    assertFalse(new ReflectData() {
+    }.setFastReaderEnabled(true).isFastReaderEnabled());
+  }
+
+  @Test
+  public void testCustomModel() throws IOException {
+    AtomicInteger builders = new AtomicInteger();
+    GenericData data = new GenericData() {
+      @Override
+      protected boolean isFastReaderSupported() {
+        return true;
+      }
+
+      @Override
+      protected FastReaderBuilder createFastReaderBuilder() {
+        builders.incrementAndGet();
+        return super.createFastReaderBuilder();
+      }
+    };
+    data.setFastReaderEnabled(true);
+    assertTrue(data.isFastReaderEnabled());
+    Schema schema = ReflectData.get().getSchema(Inner.class);
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("name", "x");
+    record.put("count", 1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(schema, data).write(record, e);
+    e.flush();
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(schema, schema, data);
+    for (int k = 0; k < 2; k++) {
+      assertEquals(record, reader.read(null, DecoderFactory.get().binaryDecoder(out.toByteArray(), null)));
+    }
+    assertEquals(1, builders.get());
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    ReflectData fast = new ReflectData();
+    fast.setFastReaderEnabled(true);
+    ReflectData slow = new ReflectData();
+    slow.setFastReaderEnabled(false);
+    Schema schema = fast.getSchema(Pojo.class);
+    Pojo reuse = null;
+    for (int n = 0; n < 4; n++) {
+      Pojo expected = pojo(n);
+      byte[] bytes = write(slow, schema, expected);
+      assertEquals(expected, read(slow, schema, schema, null, bytes));
+      Pojo read = read(fast, schema, schema, reuse, bytes);
+      assertEquals(expected, read);
+      reuse = read;
+    }
+  }
+
+  @Test
+  public void testAllowNull() throws IOException {
+    ReflectData data = new ReflectData.AllowNull();
+    data.setFastReaderEnabled(true);
+    Schema schema = data.getSchema(Inner.class);
+    Inner inner = new Inner();
+    inner.count = 3;
+    assertEquals(inner, read(data, schema, schema, null, write(data, schema, inner)));
+  }
+
+  @Test
+  public void testPromotion() throws IOException {
+    ReflectData data = new ReflectData();
+    data.setFastReaderEnabled(true);
+    Schema reader = data.getSchema(Pojo.class);
+    Schema writer = new Schema.Parser().parse(reader.toString().replace("\"type\":\"long\"", "\"type\":\"int\""));
+    GenericRecord record = new GenericData.Record(writer);
+    Pojo expected = pojo(3);
+    byte[] bytes = write(data, reader, expected);
+    // write with the narrower schema by going through a generic record
+    GenericData generic = new GenericData();
+    GenericRecord read = new GenericDatumReader<GenericRecord>(reader, reader, generic).read(null,
+        DecoderFactory.get().binaryDecoder(bytes, null));
+    for (Schema.Field field : writer.getFields()) {
+      Object value = read.get(field.name());
+      record.put(field.pos(), value instanceof Long ? (int) (long) (Long) value : value);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    new GenericDatumWriter<GenericRecord>(writer, generic).write(record, e);
+    e.flush();
+
+    Pojo promoted = read(data, writer, reader, null, out.toByteArray());
+    assertEquals((int) expected.l, promoted.l);
+    assertEquals(expected.i, promoted.i);
+    assertEquals(expected.s, promoted.s);
+    assertArrayEquals(expected.ints, promoted.ints);
+  }
+}
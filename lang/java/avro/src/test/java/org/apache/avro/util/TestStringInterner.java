@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.avro.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Test;
+
+public class TestStringInterner {
+
+  private static final Schema SCHEMA = new Schema.Parser()
+      .parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":["
+          + "{\"name\":\"type\",\"type\":{\"type\":\"string\",\"avro.java.string.intern\":true}},"
+          + "{\"name\":\"tags\",\"type\":{\"type\":\"map\",\"values\":\"int\",\"avro.java.string.intern\":true}},"
+          + "{\"name\":\"text\",\"type\":\"string\"}]}");
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testIntern() {
+    StringInterner interner = new StringInterner();
+    byte[] bytes = utf8("xxclickxx");
+    String first = interner.intern(bytes, 2, 5);
+    assertEquals("click", first);
+    assertSame(first, interner.intern(utf8("click"), 0, 5));
+    assertEquals("view", interner.intern(utf8("view"), 0, 4));
+    assertEquals("", interner.intern(new byte[0], 0, 0));
+    String accents = "café über";
+    assertSame(interner.intern(utf8(accents), 0, utf8(accents).length),
+        interner.intern(utf8(accents), 0, utf8(accents).length));
+  }
+
+  @Test
+  public void testLongStringsNotCached() {
+    StringInterner interner = new StringInterner();
+    char[] chars = new char[StringInterner.MAX_BYTES + 1];
+    Arrays.fill(chars, 'a');
+    byte[] bytes = utf8(new String(chars));
+    String first = interner.intern(bytes, 0, bytes.length);
+    assertEquals(new String(chars), first);
+    assertNotSame(first, interner.intern(bytes, 0, bytes.length));
+    String longest = interner.intern(bytes, 0, StringInterner.MAX_BYTES);
+    assertSame(longest, interner.intern(bytes, 0, StringInterner.MAX_BYTES));
+  }
+
+  @Test
+  public void testEviction() {
+    // a single slot keeps only the last string
+    StringInterner interner = new StringInterner(1);
+    String a = interner.intern(utf8("a"), 0, 1);
+    assertEquals("b", interner.intern(utf8("b"), 0, 1));
+    String again = interner.intern(utf8("a"), 0, 1);
+    assertEquals("a", again);
+    assertNotSame(a, again);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidCapacity() {
+    new StringInterner(0);
+  }
+
+  @Test
+  public void testDecoders() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    e.writeString("click");
+    e.writeString("click");
+    e.writeString("view");
+    e.flush();
+    byte[] bytes = out.toByteArray();
+    for (Decoder d : new Decoder[] { DecoderFactory.get().binaryDecoder(bytes, null),
+        DecoderFactory.get().directBinaryDecoder(new ByteArrayInputStream(bytes), null) }) {
+      StringInterner interner = new StringInterner();
+      String first = d.readInternedString(interner);
+      assertEquals("click", first);
+      assertSame(first, d.readInternedString(interner));
+      assertEquals("view", d.readInternedString(interner));
+    }
+  }
+
+  private static byte[] write(Schema schema, GenericRecord... records) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryEncoder e = EncoderFactory.get().binaryEncoder(out, null);
+    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(schema);
+    for (GenericRecord r : records) {
+      writer.write(r, e);
+    }
+    e.flush();
+    return out.toByteArray();
+  }
+
+  private static GenericRecord event(String type, String tag, String text) {
+    GenericRecord r = new GenericData.Record(SCHEMA);
+    r.put("type", type);
+    r.put("tags", Collections.singletonMap(tag, 1));
+    r.put("text", text);
+    return r;
+  }
+
+  @Test
+  public void testReaders() throws IOException {
+    byte[] bytes = write(SCHEMA, event("click", "red", "x"), event("click", "red", "x"));
+    for (boolean fast : new boolean[] { false, true }) {
+      GenericData data = new GenericData();
+      data.setFastReaderEnabled(fast);
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA, SCHEMA, data);
+      Decoder d = DecoderFactory.get().binaryDecoder(bytes, null);
+      GenericRecord first = reader.read(null, d);
+      GenericRecord second = reader.read(null, d);
+      assertTrue(first.get("type") instanceof String);
+      assertSame(first.get("type"), second.get("type"));
+      Object firstKey = ((Map<?, ?>) first.get("tags")).keySet().iterator().next();
+      Object secondKey = ((Map<?, ?>) second.get("tags")).keySet().iterator().next();
+      assertEquals("red", firstKey);
+      assertSame(firstKey, secondKey);
+      // fields without the property are read as before
+      assertEquals(new Utf8("x"), first.get("text"));
+      assertNotSame(first.get("text"), second.get("text"));
+    }
+  }
+
+  @Test
+  public void testPromotedBytes() throws IOException {
+    Schema writerSchema = new Schema.Parser()
+        .parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":[{\"name\":\"type\",\"type\":\"bytes\"}]}");
+    Schema readerSchema = new Schema.Parser()
+        .parse("{\"type\":\"record\",\"name\":\"Event\",\"fields\":["
+            + "{\"name\":\"type\",\"type\":{\"type\":\"string\",\"avro.java.string.intern\":true}}]}");
+    GenericRecord r = new GenericData.Record(writerSchema);
+    r.put("type", ByteBuffer.wrap(utf8("click")));
+    byte[] bytes = write(writerSchema, r, r);
+    for (boolean fast : new boolean[] { false, true }) {
+      GenericData data = new GenericData();
+      data.setFastReaderEnabled(fast);
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(writerSchema, readerSchema, data);
+      Decoder d = DecoderFactory.get().binaryDecoder(bytes, null);
+      Object first = reader.read(null, d).get("type");
+      assertEquals("click", first);
+      assertSame(first, reader.read(null, d).get("type"));
+    }
+  }
+
+  @Test
+  public void testUtf8HashCode() {
+    Utf8 utf8 = new Utf8("abc");
+    assertEquals(new Utf8("abc").hashCode(), utf8.hashCode());
+    utf8.set("xyz");
+    assertEquals(new Utf8("xyz").hashCode(), utf8.hashCode());
+  }
+}
@@ -17,12 +17,15 @@
  */
 package org.apache.avro.tool;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -30,8 +33,10 @@ import java.util.TreeMap;
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
 import org.apache.avro.file.DataFileStream;
 import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.file.SeekableFileInput;
 import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
@@ -55,9 +60,13 @@ public class ConcatTool implements Tool {
       return 0;
     }
 
+    // local files are read and written directly, so that blocks can be
+    // transferred from file to file without being copied through memory
     OutputStream output = out;
     if (args.size() > 1) {
-      output = Util.fileOrStdout(args.get(args.size() - 1), out);
+      String outFile = args.get(args.size() - 1);
+      File localOutput = Util.localFile(outFile);
+      output = localOutput != null ? new FileOutputStream(localOutput) : Util.fileOrStdout(outFile, out);
       args = args.subList(0, args.size() - 1);
     }
 
@@ -65,17 +74,23 @@ public class ConcatTool implements Tool {
     Schema schema = null;
     Map<String, byte[]> metadata = new TreeMap<>();
     String inputCodec = null;
+    byte[] inputDictionary = null;
 
     for (String inFile : expandsInputFiles(args)) {
-      InputStream input = Util.fileOrStdin(inFile, in);
-      DataFileStream<GenericRecord> reader = new DataFileStream<>(input, new GenericDatumReader<>());
+      File localInput = Util.localFile(inFile);
+      DataFileStream<GenericRecord> reader;
+      if (localInput != null) {
+        reader = new DataFileReader<>(new SeekableFileInput(localInput), new GenericDatumReader<>());
+      } else {
+        reader = new DataFileStream<>(Util.fileOrStdin(inFile, in), new GenericDatumReader<>());
+      }
 
       if (schema == null) {
         // this is the first file - set up the writer, and store the
         // Schema & metadata we'll use.
         schema = reader.getSchema();
         for (String key : reader.getMetaKeys()) {
-          if (!DataFileWriter.isReservedMeta(key)) {
+          if (!DataFileWriter.isReservedMeta(key) && !isCodecMeta(key)) {
             byte[] metadatum = reader.getMeta(key);
             metadata.put(key, metadatum);
             writer.setMeta(key, metadatum);
@@ -85,7 +100,8 @@ public class ConcatTool implements Tool {
         if (inputCodec == null) {
           inputCodec = DataFileConstants.NULL_CODEC;
         }
-        writer.setCodec(CodecFactory.fromString(inputCodec));
+        inputDictionary = reader.getMeta(DataFileConstants.ZSTANDARD_DICTIONARY);
+        writer.setCodec(codecOf(reader));
         writer.create(schema, output);
       } else {
         // check that we're appending to the same schema & metadata.
@@ -95,7 +111,7 @@ public class ConcatTool implements Tool {
           return 1;
         }
         for (String key : reader.getMetaKeys()) {
-          if (!DataFileWriter.isReservedMeta(key)) {
+          if (!DataFileWriter.isReservedMeta(key) && !isCodecMeta(key)) {
             byte[] metadatum = reader.getMeta(key);
             byte[] writersMetadatum = metadata.get(key);
             if (!Arrays.equals(metadatum, writersMetadatum)) {
@@ -109,7 +125,9 @@ public class ConcatTool implements Tool {
         if (thisCodec == null) {
           thisCodec = DataFileConstants.NULL_CODEC;
         }
-        if (!inputCodec.equals(thisCodec)) {
+        // blocks compressed with different dictionaries cannot be mixed
+        if (!inputCodec.equals(thisCodec)
+            || !Arrays.equals(inputDictionary, reader.getMeta(DataFileConstants.ZSTANDARD_DICTIONARY))) {
           err.println("input files have different codecs");
           reader.close();
           return 3;
@@ -124,6 +142,25 @@ public class ConcatTool implements Tool {
     return 0;
   }
 
+  /**
+   * True for metadata set along with the codec, which is compared with the
+   * codec rather than with the other metadata.
+   */
+  private static boolean isCodecMeta(String key) {
+    return DataFileConstants.ZSTANDARD_LEVEL.equals(key) || DataFileConstants.ZSTANDARD_DICTIONARY.equals(key);
+  }
+
+  /** The codec a file was written with, along with its level and dictionary. */
+  private static CodecFactory codecOf(DataFileStream<?> reader) {
+    Map<String, byte[]> codecMeta = new HashMap<>();
+    for (String key : reader.getMetaKeys()) {
+      if (DataFileConstants.CODEC.equals(key) || isCodecMeta(key)) {
+        codecMeta.put(key, reader.getMeta(key));
+      }
+    }
+    return CodecFactory.fromMeta(codecMeta);
+  }
+
   /** Processes a list of input files to expand directories if needed. */
   private static List<String> expandsInputFiles(List<String> args) throws IOException {
     List<String> files = new ArrayList<>();
@@ -44,6 +44,7 @@ import org.apache.avro.mapred.FsInput;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 
 import joptsimple.OptionSet;
@@ -110,6 +111,25 @@ class Util {
     return new FsInput(new Path(filename), new Configuration());
   }
 
+  /**
+   * Returns the file for a filename if it is in the local filesystem, else null.
+   * Relative paths are resolved in the default filesystem.
+   *
+   * @param filename The filename to be resolved
+   * @throws IOException
+   */
+  static File localFile(String filename) throws IOException {
+    if (filename.equals("-")) {
+      return null;
+    }
+    Path p = new Path(filename);
+    FileSystem fs = p.getFileSystem(new Configuration());
+    if (fs instanceof LocalFileSystem) {
+      return ((LocalFileSystem) fs).pathToFile(p);
+    }
+    return null;
+  }
+
   /**
    * Opens the file for writing in the owning filesystem, or the default if none
    * is given.